@@ -0,0 +1,61 @@
+package org.reactome.server.graph.benchmark;
+
+import org.aspectj.lang.Aspects;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactome.server.graph.aop.LazyFetchAspect;
+import org.reactome.server.graph.aop.SortingAspect;
+import org.reactome.server.graph.domain.model.Event;
+import org.reactome.server.graph.domain.model.Pathway;
+import org.reactome.server.graph.domain.model.ReactionLikeEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead added by the LazyFetchAspect and the SortingAspect to the getters of the domain model. The objects are
+ * flagged as loaded, so the aspects never reach the database.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AspectGetterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean lazyFetch;
+
+    @Param({"true", "false"})
+    public boolean sorting;
+
+    @Param({"100"})
+    public int reactions;
+
+    private Pathway pathway;
+
+    @Setup
+    public void setUp() {
+        Aspects.aspectOf(LazyFetchAspect.class).setEnableAOP(lazyFetch);
+        Aspects.aspectOf(SortingAspect.class).setEnableSorting(sorting);
+        pathway = Fixtures.pathway(reactions, 5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Aspects.aspectOf(LazyFetchAspect.class).setEnableAOP(true);
+        Aspects.aspectOf(SortingAspect.class).setEnableSorting(false);
+    }
+
+    @Benchmark
+    public void getters(Blackhole blackhole) {
+        for (Event event : pathway.getHasEvent()) {
+            ReactionLikeEvent rle = (ReactionLikeEvent) event;
+            blackhole.consume(rle.getInput());
+            blackhole.consume(rle.getOutput());
+            blackhole.consume(rle.getCatalystActivity());
+        }
+    }
+}
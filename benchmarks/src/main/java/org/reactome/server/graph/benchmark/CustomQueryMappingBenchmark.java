@@ -0,0 +1,64 @@
+package org.reactome.server.graph.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactome.server.graph.repository.util.CustomObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the rows of a custom query to custom objects, as done by customQueryForObjects
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CustomQueryMappingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Map<String, Object>> result;
+
+    @Setup
+    public void setUp() throws Exception {
+        result = Fixtures.load("custom-query-" + rows, () -> Fixtures.customQueryRows(rows));
+    }
+
+    @Benchmark
+    public void customQueryForObjects(Blackhole blackhole) throws Exception {
+        CustomObjectMapper<Participant> mapper = CustomObjectMapper.getMapper(Participant.class);
+        for (Map<String, Object> row : result) {
+            blackhole.consume(mapper.map(row));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Participant {
+        private Long dbId;
+        private String stId;
+        private String displayName;
+        private List<String> names;
+        private int[] stoichiometries;
+        private Species species;
+        private List<Reference> references;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Species {
+        private String name;
+        private String taxId;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Reference {
+        private String databaseName;
+        private String identifier;
+    }
+}
@@ -0,0 +1,92 @@
+package org.reactome.server.graph.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.reactome.server.graph.config.DriverSettings;
+import org.reactome.server.graph.config.Neo4jConfig;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.domain.model.TopLevelPathway;
+import org.reactome.server.graph.service.DatabaseObjectService;
+import org.reactome.server.graph.service.HierarchyService;
+import org.reactome.server.graph.service.TopLevelPathwayService;
+import org.reactome.server.graph.service.helper.PathwayBrowserNode;
+import org.reactome.server.graph.utils.ReactomeGraphCore;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the most used services over the HTTP and the Bolt drivers. Unlike the rest of the benchmarks, this one
+ * needs a database (e.g. created with the GraphGenerator), which is specified with the following system properties:
+ * neo4j.host (localhost), neo4j.user, neo4j.password, neo4j.http.port (7474), neo4j.bolt.port (7687),
+ * neo4j.pool.size (driver default) and neo4j.identifier (the first human TopLevelPathway)
+ * <p>
+ * <code>
+ * java -jar target/benchmarks.jar DriverThroughputBenchmark -t 16 -jvmArgs "-Dneo4j.user=neo4j -Dneo4j.password=neo4j"
+ * </code>
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+@Fork(1)
+public class DriverThroughputBenchmark {
+
+    private static final String SPECIES = "9606";
+
+    @Param({"HTTP", "BOLT"})
+    public DriverSettings.Protocol protocol;
+
+    private TopLevelPathwayService topLevelPathwayService;
+    private HierarchyService hierarchyService;
+    private DatabaseObjectService databaseObjectService;
+
+    private String identifier;
+
+    @Setup
+    public void setUp() {
+        String port = System.getProperty(protocol == DriverSettings.Protocol.BOLT ? "neo4j.bolt.port" : "neo4j.http.port");
+        DriverSettings settings = new DriverSettings()
+                .setProtocol(protocol)
+                .setHost(System.getProperty("neo4j.host", "localhost"))
+                .setUser(System.getProperty("neo4j.user"))
+                .setPassword(System.getProperty("neo4j.password"));
+        if (port != null) settings.setPort(Integer.valueOf(port));
+        if (System.getProperty("neo4j.pool.size") != null) {
+            settings.setConnectionPoolSize(Integer.valueOf(System.getProperty("neo4j.pool.size")));
+        }
+        ReactomeGraphCore.initialise(settings, Neo4jConfig.class);
+
+        topLevelPathwayService = ReactomeGraphCore.getService(TopLevelPathwayService.class);
+        hierarchyService = ReactomeGraphCore.getService(HierarchyService.class);
+        databaseObjectService = ReactomeGraphCore.getService(DatabaseObjectService.class);
+
+        identifier = System.getProperty("neo4j.identifier");
+        if (identifier == null) {
+            identifier = topLevelPathwayService.getTopLevelPathways(SPECIES).iterator().next().getStId();
+        }
+    }
+
+    @Benchmark
+    public Collection<TopLevelPathway> getTopLevelPathways() {
+        return topLevelPathwayService.getTopLevelPathways(SPECIES);
+    }
+
+    @Benchmark
+    public Collection<PathwayBrowserNode> getEventHierarchy() {
+        return hierarchyService.getEventHierarchy(SPECIES);
+    }
+
+    @Benchmark
+    public DatabaseObject findById() {
+        return databaseObjectService.findById(identifier);
+    }
+
+    @Benchmark
+    public PathwayBrowserNode getLocationsInPathwayBrowser() {
+        return hierarchyService.getLocationsInPathwayBrowser(identifier, false, true);
+    }
+}
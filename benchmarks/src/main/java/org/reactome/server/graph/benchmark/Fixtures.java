@@ -0,0 +1,230 @@
+package org.reactome.server.graph.benchmark;
+
+import org.reactome.server.graph.domain.model.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Fixtures for the benchmarks. They are the rows of a query Result (list of maps), shaped the same way Neo4j returns
+ * them (Integer for numbers, arrays for collections, nested maps for the custom objects).
+ * <p>
+ * Fixtures are generated synthetically, unless the "fixtures.dir" system property points to a folder containing
+ * a [name].ser file, in which case the rows are read from there. Those files are written with save, e.g. iterating
+ * over the Result of a real query in a project connected to the database:
+ * <p>
+ * <code>
+ * List&lt;Map&lt;String, Object&gt;&gt; rows = new ArrayList&lt;&gt;();
+ * for (Map&lt;String, Object&gt; row : neo4jTemplate.query(query, map)) rows.add(new HashMap&lt;&gt;(row));
+ * Fixtures.save("hierarchy", rows);
+ * </code>
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class Fixtures {
+
+    public static final String FIXTURES_DIR = "fixtures.dir";
+
+    private static final String[] SPECIES = {"Homo sapiens", "Mus musculus", "Gallus gallus"};
+
+    /**
+     * @return the rows stored as [name].ser in the fixtures folder or the ones provided by the generator otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> load(String name, Supplier<List<Map<String, Object>>> generator) throws IOException, ClassNotFoundException {
+        File file = getFile(name);
+        if (file == null || !file.exists()) return generator.get();
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (List<Map<String, Object>>) in.readObject();
+        }
+    }
+
+    public static void save(String name, List<Map<String, Object>> rows) throws IOException {
+        File file = getFile(name);
+        if (file == null) throw new IllegalStateException("The '" + FIXTURES_DIR + "' system property has not been set");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(new ArrayList<>(rows));
+        }
+    }
+
+    private static File getFile(String name) {
+        String dir = System.getProperty(FIXTURES_DIR);
+        return dir == null ? null : new File(dir, name + ".ser");
+    }
+
+    // ------------------------------------------- Hierarchy -----------------------------------------------------------
+
+    /**
+     * One row as returned by the locations in the pathway browser query (path mode): the physical entity ("n") and
+     * the paths ("nodePairCollection") from it to the TopLevelPathways, sorted the way Neo4j returns them (every
+     * path followed by the ones extending it).
+     *
+     * @param depth  number of levels above the physical entity (reactions, pathways and TopLevelPathways)
+     * @param fanOut number of containers for every event in the previous level
+     */
+    public static List<Map<String, Object>> hierarchyRows(int depth, int fanOut) {
+        EntityWithAccessionedSequence ewas = hierarchyRoot(1L);
+
+        List<ArrayList<Object>> paths = new ArrayList<>();
+        addPaths(paths, new ArrayList<>(), "R-HSA-1", 1, depth, fanOut);
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("n", ewas);
+        row.put("nodePairCollection", paths.toArray(new ArrayList[paths.size()]));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(row);
+        return rows;
+    }
+
+    private static void addPaths(List<ArrayList<Object>> paths, ArrayList<Object> path, String parent, int level, int depth, int fanOut) {
+        if (level > depth) return;
+        for (int i = 0; i < fanOut; i++) {
+            String stId = parent + "." + i;
+            String type = level == 1 ? "Reaction" : (level == depth ? "TopLevelPathway" : "Pathway");
+            ArrayList<Object> node = new ArrayList<>(Arrays.asList(stId, type + " " + stId, level > 1 && level % 2 == 0, SPECIES[0], type));
+            ArrayList<Object> aux = new ArrayList<>(path);
+            aux.add(node);
+            paths.add(aux);
+            addPaths(paths, aux, stId, level + 1, depth, fanOut);
+        }
+    }
+
+    /**
+     * The rows of the edge list queries for the same hierarchy as hierarchyRows: the distinct (parent, child)
+     * relationships level by level, with the attributes of the child. The parent of the first row is the root.
+     */
+    public static List<Map<String, Object>> hierarchyEdgeRows(int depth, int fanOut) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        addEdges(rows, hierarchyRoot(1L).getDbId(), "R-HSA-1", new int[]{2}, 1, depth, fanOut);
+        // Level by level, as they are retrieved from the database
+        rows.sort(Comparator.comparingInt(row -> ((String) row.get("stId")).split("\\.").length));
+        return rows;
+    }
+
+    /**
+     * The physical entity the hierarchies hang from
+     */
+    public static EntityWithAccessionedSequence hierarchyRoot(long dbId) {
+        EntityWithAccessionedSequence ewas = new EntityWithAccessionedSequence();
+        ewas.setDbId(dbId);
+        ewas.setStId("R-HSA-" + dbId);
+        ewas.setDisplayName("PTEN [cytosol]");
+        ewas.setSpeciesName(SPECIES[0]);
+        ewas.isLoaded = true;
+        return ewas;
+    }
+
+    private static void addEdges(List<Map<String, Object>> rows, long parentDbId, String parent, int[] dbId, int level, int depth, int fanOut) {
+        if (level > depth) return;
+        for (int i = 0; i < fanOut; i++) {
+            String stId = parent + "." + i;
+            String type = level == 1 ? "Reaction" : (level == depth ? "TopLevelPathway" : "Pathway");
+            Map<String, Object> row = new HashMap<>();
+            row.put("parent", (int) parentDbId);
+            row.put("dbId", dbId[0]++);
+            row.put("stId", stId);
+            row.put("name", type + " " + stId);
+            row.put("diagram", level > 1 && level % 2 == 0);
+            row.put("species", SPECIES[0]);
+            row.put("type", type);
+            rows.add(row);
+            addEdges(rows, (Integer) row.get("dbId"), stId, dbId, level + 1, depth, fanOut);
+        }
+    }
+
+    // ------------------------------------------- Custom query --------------------------------------------------------
+
+    /**
+     * Rows for a custom query mapped to CustomQueryMappingBenchmark.Participant
+     */
+    public static List<Map<String, Object>> customQueryRows(int size) {
+        List<Map<String, Object>> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("dbId", i);
+            row.put("stId", "R-HSA-" + i);
+            row.put("displayName", "Participant " + i);
+            row.put("names", new String[]{"Participant " + i, "P" + i});
+            row.put("stoichiometries", new Integer[]{1, 2, 3});
+
+            Map<String, Object> species = new LinkedHashMap<>();
+            species.put("name", SPECIES[i % SPECIES.length]);
+            species.put("taxId", "9606");
+            row.put("species", species);
+
+            Map[] references = new Map[3];
+            for (int j = 0; j < references.length; j++) {
+                Map<String, Object> reference = new LinkedHashMap<>();
+                reference.put("databaseName", "UniProt");
+                reference.put("identifier", "P" + (i * references.length + j));
+                references[j] = reference;
+            }
+            row.put("references", references);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // ------------------------------------------- Domain objects ------------------------------------------------------
+
+    /**
+     * A pathway containing the given number of reactions. Every reaction has inputs, outputs (some of them complexes)
+     * and a catalyst activity. All the objects are flagged as loaded, so the LazyFetchAspect does not try to hit the
+     * database when a relationship is empty.
+     */
+    public static Pathway pathway(int reactions, int participants) {
+        long[] dbId = {1};
+        Pathway pathway = init(new Pathway(), dbId);
+        pathway.setSpeciesName(SPECIES[0]);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < reactions; i++) {
+            Reaction reaction = init(new Reaction(), dbId);
+            reaction.setSpeciesName(SPECIES[0]);
+            List<PhysicalEntity> inputs = new ArrayList<>();
+            List<PhysicalEntity> outputs = new ArrayList<>();
+            for (int j = 0; j < participants; j++) {
+                inputs.add(j % 3 == 0 ? complex(dbId, 3) : ewas(dbId));
+                outputs.add(ewas(dbId));
+            }
+            reaction.setInput(inputs);
+            reaction.setOutput(outputs);
+
+            CatalystActivity catalystActivity = init(new CatalystActivity(), dbId);
+            catalystActivity.setPhysicalEntity(inputs.get(0));
+            reaction.setCatalystActivity(new ArrayList<>(Collections.singletonList(catalystActivity)));
+            events.add(reaction);
+        }
+        pathway.setHasEvent(events);
+        return pathway;
+    }
+
+    private static Complex complex(long[] dbId, int components) {
+        Complex complex = init(new Complex(), dbId);
+        complex.setSpeciesName(SPECIES[0]);
+        List<PhysicalEntity> hasComponent = new ArrayList<>();
+        for (int i = 0; i < components; i++) hasComponent.add(ewas(dbId));
+        complex.setHasComponent(hasComponent);
+        return complex;
+    }
+
+    private static EntityWithAccessionedSequence ewas(long[] dbId) {
+        EntityWithAccessionedSequence ewas = init(new EntityWithAccessionedSequence(), dbId);
+        ewas.setSpeciesName(SPECIES[0]);
+        ReferenceGeneProduct referenceEntity = init(new ReferenceGeneProduct(), dbId);
+        referenceEntity.setIdentifier("P" + referenceEntity.getDbId());
+        ewas.setReferenceEntity(referenceEntity);
+        return ewas;
+    }
+
+    private static <T extends DatabaseObject> T init(T object, long[] dbId) {
+        long id = dbId[0]++;
+        object.setDbId(id);
+        object.setStId("R-HSA-" + id);
+        // Names are not sorted by dbId, so the SortingAspect has some work to do
+        object.setDisplayName(object.getClass().getSimpleName() + " " + Long.toString(id * 7919 % 10007, 36));
+        object.isLoaded = true;
+        return object;
+    }
+}
@@ -0,0 +1,62 @@
+package org.reactome.server.graph.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.repository.HierarchyRepository;
+import org.reactome.server.graph.service.helper.PathwayBrowserNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the hierarchies retrieved by the HierarchyRepository into a PathwayBrowserNode tree, both from the
+ * relationships of the edge list mode and from the paths of the path mode. The repository is called through its
+ * public methods and its queries are answered from the fixtures (see InMemoryTemplate)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HierarchyParsingBenchmark {
+
+    @Param({"3", "5"})
+    public int depth;
+
+    @Param({"4", "8"})
+    public int fanOut;
+
+    @Param({"true", "false"})
+    public boolean omitNonDisplayableItems;
+
+    private HierarchyRepository edgeList;
+    private HierarchyRepository paths;
+    private long dbId;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, Object> row = Fixtures.load("hierarchy-" + depth + "-" + fanOut, () -> Fixtures.hierarchyRows(depth, fanOut)).get(0);
+        List<Map<String, Object>> edges = Fixtures.load("hierarchy-edges-" + depth + "-" + fanOut, () -> Fixtures.hierarchyEdgeRows(depth, fanOut));
+        DatabaseObject root = Fixtures.hierarchyRoot(((Number) edges.get(0).get("parent")).longValue());
+        dbId = root.getDbId();
+
+        edgeList = InMemoryTemplate.hierarchyRepository(root, edges, row);
+        edgeList.setEdgeListMode(true);
+        paths = InMemoryTemplate.hierarchyRepository(root, edges, row);
+        paths.setEdgeListMode(false);
+    }
+
+    @Benchmark
+    public PathwayBrowserNode buildTree() {
+        return edgeList.getLocationsInPathwayBrowser(dbId, omitNonDisplayableItems);
+    }
+
+    @Benchmark
+    public PathwayBrowserNode parseRaw() {
+        return paths.getLocationsInPathwayBrowser(dbId, omitNonDisplayableItems);
+    }
+}
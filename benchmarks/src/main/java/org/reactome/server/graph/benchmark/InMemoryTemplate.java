@@ -0,0 +1,117 @@
+package org.reactome.server.graph.benchmark;
+
+import org.neo4j.ogm.model.Result;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.repository.HierarchyRepository;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.neo4j.template.Neo4jOperations;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Neo4jOperations answering the queries of the HierarchyRepository from the fixtures, so the repository is measured
+ * through its public methods without a database. Only query(String, Map) is supported:
+ * <ul>
+ * <li>the root lookup returns the root</li>
+ * <li>the edge list queries return the rows whose parent is in the "dbIds" parameter (looked up by parent)</li>
+ * <li>any other query (the path queries) returns the path row</li>
+ * </ul>
+ * The lookups are hash based, so the time measured is mostly the one of the repository.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class InMemoryTemplate implements InvocationHandler {
+
+    private final DatabaseObject root;
+    private final Map<Long, List<Map<String, Object>>> edgesByParent = new HashMap<>();
+    private final Map<String, Object> pathRow;
+
+    private InMemoryTemplate(DatabaseObject root, List<Map<String, Object>> edges, Map<String, Object> pathRow) {
+        this.root = root;
+        for (Map<String, Object> edge : edges) {
+            long parent = ((Number) edge.get("parent")).longValue();
+            edgesByParent.computeIfAbsent(parent, k -> new ArrayList<>()).add(edge);
+        }
+        this.pathRow = pathRow;
+    }
+
+    /**
+     * @param root    the object the hierarchy hangs from (see Fixtures.hierarchyRoot)
+     * @param edges   rows of the edge list queries (see Fixtures.hierarchyEdgeRows)
+     * @param pathRow row of the path queries (see Fixtures.hierarchyRows)
+     * @return a HierarchyRepository wired to the fixtures, in the same way it is wired to the Neo4jOperations in the
+     * graph-core
+     */
+    public static HierarchyRepository hierarchyRepository(DatabaseObject root, List<Map<String, Object>> edges, Map<String, Object> pathRow) {
+        Neo4jOperations template = (Neo4jOperations) Proxy.newProxyInstance(InMemoryTemplate.class.getClassLoader(),
+                new Class[]{Neo4jOperations.class}, new InMemoryTemplate(root, edges, pathRow));
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("neo4jTemplate", template);
+        context.register(HierarchyRepository.class);
+        context.refresh();
+        return context.getBean(HierarchyRepository.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "query":
+                if (args.length == 2 && args[0] instanceof String && args[1] instanceof Map) {
+                    return query((String) args[0], (Map<String, Object>) args[1]);
+                }
+                break;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryTemplate";
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Result query(String query, Map<String, Object> parameters) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (parameters.containsKey("dbIds")) {
+            for (Object dbId : (Collection<Object>) parameters.get("dbIds")) {
+                rows.addAll(edgesByParent.getOrDefault(((Number) dbId).longValue(), Collections.emptyList()));
+            }
+        } else if (query.endsWith("RETURN n")) {
+            rows.add(Collections.singletonMap("n", root));
+        } else {
+            rows.add(pathRow);
+        }
+        return result(rows);
+    }
+
+    /**
+     * @return a Result iterating over the given rows
+     */
+    private static Result result(List<Map<String, Object>> rows) {
+        return (Result) Proxy.newProxyInstance(InMemoryTemplate.class.getClassLoader(), new Class[]{Result.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "iterator":
+                    return rows.iterator();
+                case "queryResults":
+                    return rows;
+                case "forEach":
+                    return method.invoke(rows, args);
+                case "spliterator":
+                    return rows.spliterator();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return rows.toString();
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package org.reactome.server.graph.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.repository.HierarchyRepository;
+import org.reactome.server.graph.service.helper.PathwayBrowserNode;
+import org.reactome.server.graph.service.util.PathwayBrowserLocationsUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotation of the locations graph into the trees shown in the pathway browser (from the TopLevelPathways)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LocationsTreeBenchmark {
+
+    @Param({"3", "5"})
+    public int depth;
+
+    @Param({"4", "8"})
+    public int fanOut;
+
+    private Set<PathwayBrowserNode> leaves;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Map<String, Object>> edges = Fixtures.load("hierarchy-edges-" + depth + "-" + fanOut, () -> Fixtures.hierarchyEdgeRows(depth, fanOut));
+        DatabaseObject object = Fixtures.hierarchyRoot(((Number) edges.get(0).get("parent")).longValue());
+        HierarchyRepository repository = InMemoryTemplate.hierarchyRepository(object, edges, null);
+        repository.setEdgeListMode(true);
+        PathwayBrowserNode root = repository.getLocationsInPathwayBrowser(object.getDbId(), true);
+        leaves = PathwayBrowserLocationsUtils.removeOrphans(root.getLeaves());
+    }
+
+    @Benchmark
+    public Set<PathwayBrowserNode> buildTreesFromLeaves() {
+        return PathwayBrowserLocationsUtils.buildTreesFromLeaves(leaves);
+    }
+}
@@ -0,0 +1,42 @@
+package org.reactome.server.graph.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.reactome.server.graph.domain.model.Pathway;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traversal of an object graph to switch the lazy loading off and on again
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PreventLazyLoadingBenchmark {
+
+    @Param({"10", "100"})
+    public int reactions;
+
+    @Param({"5"})
+    public int participants;
+
+    private Pathway pathway;
+
+    @Setup
+    public void setUp() {
+        pathway = Fixtures.pathway(reactions, participants);
+    }
+
+    /**
+     * Both calls traverse the whole graph, so the result is the cost of two traversals
+     */
+    @Benchmark
+    public Pathway preventLazyLoading() {
+        pathway.preventLazyLoading(true);
+        return pathway.preventLazyLoading(false);
+    }
+}
@@ -0,0 +1,563 @@
+package org.reactome.server.graph.benchmark.generator;
+
+import org.reactome.server.graph.domain.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Generates a synthetic graph following the Reactome data model: TopLevelPathways containing sub-pathways down to a
+ * given depth, reactions in the pathways, their participants (EntityWithAccessionedSequence, Complex and DefinedSet,
+ * shared between reactions), the catalyst activities, the ReferenceGeneProducts and the orthologous (inferred)
+ * events and physical entities in other species linked with inferredTo.
+ * <p>
+ * The default settings produce roughly the size of the human content of a release and the scale multiplies the
+ * number of TopLevelPathways and ReferenceEntities. The graph is generated and handed over to the Writer one
+ * TopLevelPathway at a time, so the memory needed does not grow with the scale (besides the reference entities).
+ * Objects are written in dependency order, so whatever they point to has been written before (or in the same call).
+ * <p>
+ * <code>
+ * try (Neo4jGraphWriter writer = new Neo4jGraphWriter("http://localhost:7474", "neo4j", "neo4j")) {
+ * new GraphGenerator().setScale(5).generate(writer);
+ * }
+ * </code>
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class GraphGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphGenerator.class);
+
+    private static final String[][] SPECIES = {
+            {"Homo sapiens", "9606", "HSA", "P"},
+            {"Mus musculus", "10090", "MMU", "Q"},
+            {"Rattus norvegicus", "10116", "RNO", "O"},
+            {"Gallus gallus", "9031", "GGA", "A"},
+            {"Danio rerio", "7955", "DRE", "B"},
+            {"Xenopus tropicalis", "8364", "XTR", "C"},
+            {"Drosophila melanogaster", "7227", "DME", "D"},
+            {"Caenorhabditis elegans", "6239", "CEL", "E"},
+            {"Saccharomyces cerevisiae", "4932", "SCE", "F"}
+    };
+
+    private static final String[] COMPARTMENTS = {"cytosol", "nucleoplasm", "plasma membrane", "extracellular region", "mitochondrial matrix"};
+
+    public interface Writer {
+        /**
+         * @param objects objects to be written (all their relationships point to objects already written or
+         *                contained in the collection)
+         * @param depth   depth of the relationships to be written for every object
+         */
+        void write(Collection<? extends DatabaseObject> objects, int depth);
+    }
+
+    private int scale = 1;
+    private int topLevelPathways = 26;
+    private int pathwayDepth = 3;
+    private int pathwayFanOut = 4;
+    private int reactionsPerPathway = 6;
+    private int inputsPerReaction = 2;
+    private int outputsPerReaction = 2;
+    private double catalystFraction = 0.5;
+    private double sharedParticipantFraction = 0.5;
+    private double complexFraction = 0.3;
+    private double setFraction = 0.1;
+    private int complexSize = 3;
+    private int setSize = 3;
+    private int referenceEntities = 11000;
+    private int inferredSpecies = 3;
+    private double orthologFraction = 0.7;
+    private long seed = 42;
+
+    // Generation state
+    private Random random;
+    private long dbId;
+    private List<Species> species;
+    private ReferenceDatabase referenceDatabase;
+    private List<Map<Integer, ReferenceGeneProduct>> references;
+    private Map<String, Integer> counts;
+
+    /**
+     * Generates the whole graph and hands it over to the writer
+     *
+     * @return the number of objects generated per class
+     */
+    public Map<String, Integer> generate(Writer writer) {
+        random = new Random(seed);
+        dbId = 1;
+        counts = new TreeMap<>();
+        references = new ArrayList<>();
+        species = new ArrayList<>();
+        for (int i = 0; i <= Math.min(inferredSpecies, SPECIES.length - 1); i++) {
+            Species s = init(new Species(), null);
+            s.setDisplayName(SPECIES[i][0]);
+            s.setName(new ArrayList<>(Collections.singletonList(SPECIES[i][0])));
+            s.setTaxId(SPECIES[i][1]);
+            s.setAbbreviation(SPECIES[i][2]);
+            species.add(s);
+            references.add(new HashMap<>());
+        }
+        referenceDatabase = init(new ReferenceDatabase(), null);
+        referenceDatabase.setDisplayName("UniProt");
+        referenceDatabase.setName(new ArrayList<>(Collections.singletonList("UniProt")));
+
+        List<DatabaseObject> aux = new ArrayList<>(species);
+        aux.add(referenceDatabase);
+        writer.write(aux, 0);
+
+        int tlps = topLevelPathways * scale;
+        for (int i = 0; i < tlps; i++) {
+            Batch batch = new Batch(new Batch(null));
+            TopLevelPathway tlp = (TopLevelPathway) createPathway(batch, 0);
+            for (int s = 1; s < species.size(); s++) {
+                if (random.nextDouble() < orthologFraction) {
+                    infer(batch, new HashMap<>(), tlp, s);
+                }
+            }
+            batch.write(writer);
+            logger.info("TopLevelPathway " + (i + 1) + " of " + tlps + " written");
+        }
+        logger.info("Generated: " + counts);
+        return counts;
+    }
+
+    // ------------------------------------------- Events --------------------------------------------------------------
+
+    private Pathway createPathway(Batch batch, int level) {
+        Pathway pathway = init(level == 0 ? new TopLevelPathway() : new Pathway(), species.get(0));
+        pathway.setDisplayName(name(level == 0 ? "Top level pathway" : "Pathway"));
+        pathway.setHasDiagram(level <= 1);
+        initEvent(pathway, species.get(0), false);
+
+        List<Event> hasEvent = new ArrayList<>();
+        if (level < pathwayDepth) {
+            for (int i = 0; i < pathwayFanOut; i++) hasEvent.add(createPathway(batch, level + 1));
+        }
+        int reactions = level == pathwayDepth ? reactionsPerPathway : reactionsPerPathway / 3;
+        for (int i = 0; i < reactions; i++) hasEvent.add(createReaction(batch));
+        pathway.setHasEvent(hasEvent);
+        batch.addPathway(pathway, level);
+        return pathway;
+    }
+
+    private Reaction createReaction(Batch batch) {
+        Reaction reaction = init(new Reaction(), species.get(0));
+        reaction.setDisplayName(name("Reaction"));
+        initEvent(reaction, species.get(0), false);
+
+        List<PhysicalEntity> inputs = new ArrayList<>();
+        for (int i = 0; i < inputsPerReaction; i++) inputs.add(participant(batch));
+        reaction.setInput(inputs);
+        List<PhysicalEntity> outputs = new ArrayList<>();
+        for (int i = 0; i < outputsPerReaction; i++) outputs.add(participant(batch));
+        reaction.setOutput(outputs);
+
+        if (random.nextDouble() < catalystFraction) {
+            CatalystActivity catalystActivity = init(new CatalystActivity(), null);
+            PhysicalEntity catalyst = participant(batch);
+            catalystActivity.setDisplayName("Activity of " + catalyst.getDisplayName());
+            catalystActivity.setPhysicalEntity(catalyst);
+            reaction.setCatalystActivity(new ArrayList<>(Collections.singletonList(catalystActivity)));
+            batch.catalystActivities.add(catalystActivity);
+        }
+        batch.reactions.add(reaction);
+        return reaction;
+    }
+
+    private void initEvent(Event event, Species species, boolean inferred) {
+        event.setSpeciesName(species.getDisplayName());
+        event.setSpecies(new ArrayList<>(Collections.singletonList(species)));
+        event.setName(new ArrayList<>(Collections.singletonList(event.getDisplayName())));
+        event.setIsInferred(inferred);
+        event.setIsInDisease(false);
+    }
+
+    // ------------------------------------------- Participants --------------------------------------------------------
+
+    private PhysicalEntity participant(Batch batch) {
+        if (!batch.participants.isEmpty() && random.nextDouble() < sharedParticipantFraction) {
+            return batch.participants.get(random.nextInt(batch.participants.size()));
+        }
+        double type = random.nextDouble();
+        PhysicalEntity pe;
+        if (type < complexFraction) {
+            pe = createComplex(batch);
+        } else if (type < complexFraction + setFraction) {
+            pe = createSet(batch);
+        } else {
+            pe = createEWAS(batch, random.nextInt(referenceEntities * scale), 0, compartment());
+        }
+        batch.participants.add(pe);
+        return pe;
+    }
+
+    private Complex createComplex(Batch batch) {
+        String compartment = compartment();
+        List<PhysicalEntity> components = new ArrayList<>();
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < complexSize; i++) {
+            PhysicalEntity component = random.nextDouble() < setFraction ? createSet(batch) : createEWAS(batch, random.nextInt(referenceEntities * scale), 0, compartment);
+            components.add(component);
+            if (name.length() > 0) name.append(":");
+            name.append(component.getDisplayName().replaceAll(" \\[.*]$", ""));
+        }
+        return createComplex(batch, name + " [" + compartment + "]", components, 0);
+    }
+
+    private Complex createComplex(Batch batch, String name, List<PhysicalEntity> components, int s) {
+        Complex complex = init(new Complex(), species.get(s));
+        complex.setDisplayName(name);
+        complex.setName(new ArrayList<>(Collections.singletonList(name)));
+        complex.setSpeciesName(species.get(s).getDisplayName());
+        complex.setSpecies(new ArrayList<>(Collections.singletonList(species.get(s))));
+        complex.setHasComponent(components);
+        batch.complexes.add(complex);
+        return complex;
+    }
+
+    private DefinedSet createSet(Batch batch) {
+        String compartment = compartment();
+        List<PhysicalEntity> members = new ArrayList<>();
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < setSize; i++) {
+            EntityWithAccessionedSequence member = createEWAS(batch, random.nextInt(referenceEntities * scale), 0, compartment);
+            members.add(member);
+            if (name.length() > 0) name.append(",");
+            name.append(member.getDisplayName().replaceAll(" \\[.*]$", ""));
+        }
+        return createSet(batch, name + " [" + compartment + "]", members, 0);
+    }
+
+    private DefinedSet createSet(Batch batch, String name, List<PhysicalEntity> members, int s) {
+        DefinedSet set = init(new DefinedSet(), species.get(s));
+        set.setDisplayName(name);
+        set.setName(new ArrayList<>(Collections.singletonList(name)));
+        set.setSpeciesName(species.get(s).getDisplayName());
+        set.setSpecies(new ArrayList<>(Collections.singletonList(species.get(s))));
+        set.setHasMember(members);
+        batch.sets.add(set);
+        return set;
+    }
+
+    private EntityWithAccessionedSequence createEWAS(Batch batch, int reference, int s, String compartment) {
+        ReferenceGeneProduct referenceEntity = getReferenceEntity(batch, reference, s);
+        EntityWithAccessionedSequence ewas = init(new EntityWithAccessionedSequence(), species.get(s));
+        String name = referenceEntity.getGeneName().get(0);
+        ewas.setDisplayName(name + " [" + compartment + "]");
+        ewas.setName(new ArrayList<>(Collections.singletonList(name)));
+        ewas.setSpeciesName(species.get(s).getDisplayName());
+        ewas.setSpecies(species.get(s));
+        ewas.setReferenceEntity(referenceEntity);
+        batch.ewas.add(ewas);
+        return ewas;
+    }
+
+    /**
+     * Reference entities are shared by the whole graph. Orthologous reference entities have the same index (and
+     * gene name) in every species.
+     */
+    private ReferenceGeneProduct getReferenceEntity(Batch batch, int index, int s) {
+        ReferenceGeneProduct referenceEntity = references.get(s).get(index);
+        if (referenceEntity == null) {
+            referenceEntity = init(new ReferenceGeneProduct(), null);
+            String identifier = String.format("%s%05d", SPECIES[s][3], index);
+            String geneName = "GENE" + index;
+            referenceEntity.setDisplayName("UniProt:" + identifier + " " + geneName);
+            referenceEntity.setIdentifier(identifier);
+            referenceEntity.setDatabaseName("UniProt");
+            referenceEntity.setReferenceDatabase(referenceDatabase);
+            referenceEntity.setGeneName(new ArrayList<>(Collections.singletonList(geneName)));
+            referenceEntity.setName(new ArrayList<>(Collections.singletonList(geneName)));
+            referenceEntity.setSpecies(species.get(s));
+            references.get(s).put(index, referenceEntity);
+            batch.references.add(referenceEntity);
+        }
+        return referenceEntity;
+    }
+
+    // ------------------------------------------- Orthologs -----------------------------------------------------------
+
+    /**
+     * Creates the orthologous copy of the given human object in species s (and everything it contains)
+     *
+     * @param inferred the copies already created for the species (so shared objects remain shared)
+     */
+    private DatabaseObject infer(Batch batch, Map<DatabaseObject, DatabaseObject> inferred, DatabaseObject object, int s) {
+        DatabaseObject copy = inferred.get(object);
+        if (copy != null) return copy;
+
+        Batch orthologs = batch.orthologs;
+        if (object instanceof Pathway) {
+            Pathway pathway = (Pathway) object;
+            Pathway aux = init(pathway instanceof TopLevelPathway ? new TopLevelPathway() : new Pathway(), species.get(s));
+            aux.setDisplayName(pathway.getDisplayName());
+            aux.setHasDiagram(pathway.getHasDiagram());
+            initEvent(aux, species.get(s), true);
+            List<Event> hasEvent = new ArrayList<>();
+            for (Event event : pathway.getHasEvent()) hasEvent.add((Event) infer(batch, inferred, event, s));
+            aux.setHasEvent(hasEvent);
+            orthologs.addPathway(aux, batch.getLevel(pathway));
+            copy = aux;
+        } else if (object instanceof Reaction) {
+            Reaction reaction = (Reaction) object;
+            Reaction aux = init(new Reaction(), species.get(s));
+            aux.setDisplayName(reaction.getDisplayName());
+            initEvent(aux, species.get(s), true);
+            aux.setInput(inferAll(batch, inferred, reaction.getInput(), s));
+            aux.setOutput(inferAll(batch, inferred, reaction.getOutput(), s));
+            if (reaction.getCatalystActivity() != null) {
+                List<CatalystActivity> catalystActivities = new ArrayList<>();
+                for (CatalystActivity catalystActivity : reaction.getCatalystActivity()) {
+                    CatalystActivity ca = init(new CatalystActivity(), null);
+                    ca.setDisplayName(catalystActivity.getDisplayName());
+                    ca.setPhysicalEntity((PhysicalEntity) infer(batch, inferred, catalystActivity.getPhysicalEntity(), s));
+                    orthologs.catalystActivities.add(ca);
+                    catalystActivities.add(ca);
+                }
+                aux.setCatalystActivity(catalystActivities);
+            }
+            orthologs.reactions.add(aux);
+            copy = aux;
+        } else if (object instanceof EntityWithAccessionedSequence) {
+            EntityWithAccessionedSequence ewas = (EntityWithAccessionedSequence) object;
+            int index = Integer.parseInt(ewas.getReferenceEntity().getIdentifier().substring(1));
+            String compartment = ewas.getDisplayName().replaceAll("^.* \\[(.*)]$", "$1");
+            copy = createEWAS(orthologs, index, s, compartment);
+        } else if (object instanceof Complex) {
+            Complex complex = (Complex) object;
+            copy = createComplex(orthologs, complex.getDisplayName(), inferAll(batch, inferred, complex.getHasComponent(), s), s);
+        } else if (object instanceof DefinedSet) {
+            DefinedSet set = (DefinedSet) object;
+            copy = createSet(orthologs, set.getDisplayName(), inferAll(batch, inferred, set.getHasMember(), s), s);
+        } else {
+            throw new IllegalArgumentException("Objects of type " + object.getClass().getSimpleName() + " are not generated");
+        }
+
+        if (object instanceof Event) {
+            Event event = (Event) object;
+            if (event.getOrthologousEvent() == null) event.setOrthologousEvent(new HashSet<>());
+            event.getOrthologousEvent().add((Event) copy);
+        } else {
+            PhysicalEntity pe = (PhysicalEntity) object;
+            if (pe.getInferredTo() == null) pe.setInferredTo(new ArrayList<>());
+            pe.getInferredTo().add((PhysicalEntity) copy);
+        }
+        inferred.put(object, copy);
+        return copy;
+    }
+
+    private List<PhysicalEntity> inferAll(Batch batch, Map<DatabaseObject, DatabaseObject> inferred, List<PhysicalEntity> pes, int s) {
+        List<PhysicalEntity> rtn = new ArrayList<>();
+        if (pes != null) for (PhysicalEntity pe : pes) rtn.add((PhysicalEntity) infer(batch, inferred, pe, s));
+        return rtn;
+    }
+
+    // ------------------------------------------- Helpers -------------------------------------------------------------
+
+    /**
+     * @param species the species of the object (used for the stId) or null if the object does not have stId
+     */
+    private <T extends DatabaseObject> T init(T object, Species species) {
+        long id = dbId++;
+        object.setDbId(id);
+        if (species != null) object.setStId("R-" + species.getAbbreviation() + "-" + id);
+        // Generated objects are complete, so there is nothing to be lazy loaded
+        object.isLoaded = true;
+        counts.merge(object.getClass().getSimpleName(), 1, Integer::sum);
+        return object;
+    }
+
+    private String name(String prefix) {
+        return prefix + " " + Long.toString(random.nextInt(Integer.MAX_VALUE), 36);
+    }
+
+    private String compartment() {
+        return COMPARTMENTS[random.nextInt(COMPARTMENTS.length)];
+    }
+
+    /**
+     * Objects of one TopLevelPathway grouped in the order they have to be written. The orthologs are kept apart and
+     * written first, so the inferredTo relationships of the original objects point to already existing nodes (OGM
+     * creates the target twice when it is also part of the objects being saved)
+     */
+    private static class Batch {
+        final Batch orthologs;
+        final List<ReferenceGeneProduct> references = new ArrayList<>();
+        final List<EntityWithAccessionedSequence> ewas = new ArrayList<>();
+        final List<DefinedSet> sets = new ArrayList<>();
+        final List<Complex> complexes = new ArrayList<>();
+        final List<CatalystActivity> catalystActivities = new ArrayList<>();
+        final List<Reaction> reactions = new ArrayList<>();
+        final List<List<Pathway>> pathways = new ArrayList<>();
+        final Map<Pathway, Integer> levels = new IdentityHashMap<>();
+        final List<PhysicalEntity> participants = new ArrayList<>();
+
+        Batch(Batch orthologs) {
+            this.orthologs = orthologs;
+        }
+
+        void addPathway(Pathway pathway, int level) {
+            while (pathways.size() <= level) pathways.add(new ArrayList<>());
+            pathways.get(level).add(pathway);
+            levels.put(pathway, level);
+        }
+
+        int getLevel(Pathway pathway) {
+            return levels.get(pathway);
+        }
+
+        void write(Writer writer) {
+            write(writer, orthologs.references, references);
+            write(writer, orthologs.ewas, ewas);
+            write(writer, orthologs.sets, sets);
+            // Complexes containing sets and/or EWAS only
+            write(writer, orthologs.complexes, complexes);
+            write(writer, orthologs.catalystActivities, catalystActivities);
+            write(writer, orthologs.reactions, reactions);
+            for (int i = pathways.size() - 1; i >= 0; i--) {
+                write(writer, i < orthologs.pathways.size() ? orthologs.pathways.get(i) : Collections.emptyList(), pathways.get(i));
+            }
+        }
+
+        private static void write(Writer writer, List<? extends DatabaseObject> orthologs, List<? extends DatabaseObject> objects) {
+            if (!orthologs.isEmpty()) writer.write(orthologs, 1);
+            if (!objects.isEmpty()) writer.write(objects, 1);
+        }
+    }
+
+    // ------------------------------------------- Settings ------------------------------------------------------------
+
+    /**
+     * @param scale multiplies the number of TopLevelPathways and ReferenceEntities (1 is roughly a human release)
+     */
+    public GraphGenerator setScale(int scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    public GraphGenerator setTopLevelPathways(int topLevelPathways) {
+        this.topLevelPathways = topLevelPathways;
+        return this;
+    }
+
+    /**
+     * @param pathwayDepth number of levels of pathways below the TopLevelPathways
+     */
+    public GraphGenerator setPathwayDepth(int pathwayDepth) {
+        this.pathwayDepth = pathwayDepth;
+        return this;
+    }
+
+    /**
+     * @param pathwayFanOut number of sub-pathways per pathway
+     */
+    public GraphGenerator setPathwayFanOut(int pathwayFanOut) {
+        this.pathwayFanOut = pathwayFanOut;
+        return this;
+    }
+
+    /**
+     * @param reactionsPerPathway reactions in the lowest level pathways (a third of them in the rest)
+     */
+    public GraphGenerator setReactionsPerPathway(int reactionsPerPathway) {
+        this.reactionsPerPathway = reactionsPerPathway;
+        return this;
+    }
+
+    public GraphGenerator setInputsPerReaction(int inputsPerReaction) {
+        this.inputsPerReaction = inputsPerReaction;
+        return this;
+    }
+
+    public GraphGenerator setOutputsPerReaction(int outputsPerReaction) {
+        this.outputsPerReaction = outputsPerReaction;
+        return this;
+    }
+
+    public GraphGenerator setCatalystFraction(double catalystFraction) {
+        this.catalystFraction = catalystFraction;
+        return this;
+    }
+
+    /**
+     * @param sharedParticipantFraction probability of a participant to be reused from other reactions
+     */
+    public GraphGenerator setSharedParticipantFraction(double sharedParticipantFraction) {
+        this.sharedParticipantFraction = sharedParticipantFraction;
+        return this;
+    }
+
+    public GraphGenerator setComplexFraction(double complexFraction) {
+        this.complexFraction = complexFraction;
+        return this;
+    }
+
+    public GraphGenerator setSetFraction(double setFraction) {
+        this.setFraction = setFraction;
+        return this;
+    }
+
+    public GraphGenerator setComplexSize(int complexSize) {
+        this.complexSize = complexSize;
+        return this;
+    }
+
+    public GraphGenerator setSetSize(int setSize) {
+        this.setSize = setSize;
+        return this;
+    }
+
+    public GraphGenerator setReferenceEntities(int referenceEntities) {
+        this.referenceEntities = referenceEntities;
+        return this;
+    }
+
+    /**
+     * @param inferredSpecies number of species (besides human) with orthologous content (up to 8)
+     */
+    public GraphGenerator setInferredSpecies(int inferredSpecies) {
+        this.inferredSpecies = inferredSpecies;
+        return this;
+    }
+
+    /**
+     * @param orthologFraction probability of a TopLevelPathway to be inferred to each one of the other species
+     */
+    public GraphGenerator setOrthologFraction(double orthologFraction) {
+        this.orthologFraction = orthologFraction;
+        return this;
+    }
+
+    public GraphGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates the graph into a Neo4j database
+     * <p>
+     * Usage: GraphGenerator --uri=http://localhost:7474 [--user=neo4j --password=neo4j] [--scale=1] [--seed=42] [--version=1]
+     * <p>
+     * The uri can also be bolt://host:port or file:///path/to/graph.db (embedded)
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            options.put(arg.substring(2, arg.indexOf("=")), arg.substring(arg.indexOf("=") + 1));
+        }
+        if (!options.containsKey("uri")) {
+            System.err.println("Usage: GraphGenerator --uri=http://localhost:7474 [--user=neo4j --password=neo4j] [--scale=1] [--seed=42] [--version=1]");
+            System.exit(1);
+        }
+        GraphGenerator generator = new GraphGenerator()
+                .setScale(Integer.parseInt(options.getOrDefault("scale", "1")))
+                .setSeed(Long.parseLong(options.getOrDefault("seed", "42")));
+        try (Neo4jGraphWriter writer = new Neo4jGraphWriter(options.get("uri"), options.get("user"), options.get("password"))) {
+            writer.setVersion(Integer.parseInt(options.getOrDefault("version", "1")));
+            generator.generate(writer);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.reactome.server.graph.benchmark.generator;
+
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.config.DriverConfiguration;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.neo4j.ogm.transaction.Transaction;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Writes the generated objects into a Neo4j database using the OGM mapping of the domain model, so the result is
+ * what the graph-core expects to find. The driver is chosen based on the uri scheme: http(s) (server), bolt (server)
+ * or file (embedded database in the given folder).
+ * <p>
+ * Once everything has been written (close) the schemaClass of every node and the DBInfo node are set, since those
+ * are created by the batch importer for the real releases.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class Neo4jGraphWriter implements GraphGenerator.Writer, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Neo4jGraphWriter.class);
+
+    private static final String DOMAIN_PACKAGE = "org.reactome.server.graph.domain";
+
+    private final SessionFactory sessionFactory;
+    private final Session session;
+    private final Set<Class<?>> classes = new HashSet<>();
+
+    private int batchSize = 1000;
+    private int version = 1;
+
+    public Neo4jGraphWriter(String uri, String user, String password) {
+        Configuration configuration = new Configuration();
+        DriverConfiguration driverConfiguration = configuration.driverConfiguration()
+                .setDriverClassName(getDriverClassName(uri))
+                .setURI(uri);
+        if (user != null) driverConfiguration.setCredentials(user, password);
+        sessionFactory = new SessionFactory(configuration, DOMAIN_PACKAGE);
+        session = sessionFactory.openSession();
+
+        session.query("CREATE CONSTRAINT ON (n:DatabaseObject) ASSERT n.dbId IS UNIQUE", Collections.emptyMap());
+        session.query("CREATE CONSTRAINT ON (n:DatabaseObject) ASSERT n.stId IS UNIQUE", Collections.emptyMap());
+    }
+
+    private static String getDriverClassName(String uri) {
+        String scheme = uri.substring(0, Math.max(uri.indexOf(":"), 0)).toLowerCase();
+        switch (scheme) {
+            case "http":
+            case "https":
+                return "org.neo4j.ogm.drivers.http.driver.HttpDriver";
+            case "bolt":
+                return "org.neo4j.ogm.drivers.bolt.driver.BoltDriver";
+            case "file":
+                return "org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver";
+            default:
+                throw new IllegalArgumentException("Unsupported uri '" + uri + "'. Use http(s)://, bolt:// or file://");
+        }
+    }
+
+    /**
+     * Objects are saved in transactions of batchSize objects and the session is cleared afterwards so the mapping
+     * context does not keep the whole graph in memory (already saved objects are still referred by their id)
+     */
+    @Override
+    public void write(Collection<? extends DatabaseObject> objects, int depth) {
+        List<DatabaseObject> batch = new ArrayList<>(batchSize);
+        for (DatabaseObject object : objects) {
+            classes.add(object.getClass());
+            batch.add(object);
+            if (batch.size() == batchSize) {
+                save(batch, depth);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) save(batch, depth);
+    }
+
+    private void save(List<DatabaseObject> batch, int depth) {
+        try (Transaction tx = session.beginTransaction()) {
+            session.save(batch, depth);
+            tx.commit();
+        }
+        session.clear();
+    }
+
+    @Override
+    public void close() {
+        // The most specific classes first so nodes are not tagged with the schemaClass of their super classes
+        List<Class<?>> classes = new ArrayList<>(this.classes);
+        classes.sort(Comparator.comparingInt(Neo4jGraphWriter::getHierarchyDepth).reversed());
+        for (Class<?> clazz : classes) {
+            String label = clazz.getSimpleName();
+            session.query("MATCH (n:" + label + ") WHERE NOT EXISTS(n.schemaClass) SET n.schemaClass = {schemaClass}", Collections.singletonMap("schemaClass", label));
+        }
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "synthetic");
+        map.put("version", version);
+        session.query("MERGE (n:DBInfo) SET n.name = {name}, n.version = {version}", map);
+        logger.info("Schema classes and DBInfo (version " + version + ") set");
+        sessionFactory.close();
+    }
+
+    private static int getHierarchyDepth(Class<?> clazz) {
+        int depth = 0;
+        for (Class<?> aux = clazz; aux != null; aux = aux.getSuperclass()) depth++;
+        return depth;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param version release number stored in the DBInfo node (checked by the DatabaseVersionService)
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+}
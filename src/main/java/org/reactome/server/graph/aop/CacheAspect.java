@@ -0,0 +1,129 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.DeclarePrecedence;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactome.server.graph.service.DatabaseVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the results of the methods in the service level annotated with @Cached. The content of the database does
+ * not change between releases, so the version of the database is part of the key and all the caches are cleared
+ * when a new version is detected.
+ * <p>
+ * Results are kept serialized and every hit gets a copy of its own (see SharedResult), so callers can lazy load or
+ * sort the returned objects without affecting each other. Results that cannot be serialized are not cached and a
+ * cached result that cannot be read back is treated as a miss.
+ * <p>
+ * The order of the aspects intercepting the service level is declared here: the database is chosen (RoutingAspect)
+ * and the session scope opened (SessionScopeAspect) before anything else, then every call is measured (LoggingAspect),
+ * so the latencies include the cache hits and the coalesced calls, and a cache hit skips the coalescing.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Aspect
+@Component
+@DeclarePrecedence("RoutingAspect, SessionScopeAspect, LoggingAspect, CacheAspect, CoalescingAspect")
+public class CacheAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheAspect.class);
+
+    private Boolean enableCache = false;
+
+    private ServiceCache.Provider provider = new LRUProvider();
+
+    private final Map<String, ServiceCache> caches = new ConcurrentHashMap<>();
+
+    private volatile Integer dbVersion = null;
+
+    @Autowired
+    private DatabaseVersionService databaseVersionService;
+
+    @Around("execution(@org.reactome.server.graph.aop.Cached public * org.reactome.server.graph.service.*.*(..))")
+    public Object cache(ProceedingJoinPoint pjp) throws Throwable {
+        if (!enableCache || databaseVersionService == null) {
+            return pjp.proceed();
+        }
+
+        Integer version = databaseVersionService.getDBVersion();
+        if (!Objects.equals(version, dbVersion)) {
+            clear();
+            dbVersion = version;
+        }
+
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        String name = InvocationKey.getName(pjp);
+        ServiceCache cache = caches.get(name);
+        if (cache == null) {
+            synchronized (caches) {
+                cache = caches.get(name);
+                if (cache == null) {
+                    cache = provider.create(name, signature.getMethod().getAnnotation(Cached.class));
+                    caches.put(name, cache);
+                }
+            }
+        }
+
+        // Overloaded methods share the cache, so the parameter types are part of the key
+        InvocationKey key = new InvocationKey(version, pjp);
+        SharedResult shared = (SharedResult) cache.get(key);
+        if (shared != null) {
+            try {
+                return shared.get();
+            } catch (IllegalStateException e) {
+                // Treated as not cached, the entry is replaced below
+                logger.debug("The cached result of " + name + " cannot be copied", e);
+            }
+        }
+
+        Object result = pjp.proceed();
+        shared = SharedResult.of(result);
+        if (shared != null) {
+            cache.put(key, shared);
+        } else {
+            logger.debug("The result of " + name + " cannot be cached (it cannot be serialized)");
+        }
+        return result;
+    }
+
+    /**
+     * Removes the content of all the caches
+     */
+    public void clear() {
+        for (ServiceCache cache : caches.values()) {
+            cache.clear();
+        }
+    }
+
+    public Boolean getEnableCache() {
+        return enableCache;
+    }
+
+    public void setEnableCache(boolean enableCache) {
+        this.enableCache = enableCache;
+    }
+
+    /**
+     * Sets the provider used to create the caches (previously created ones are discarded)
+     */
+    public void setProvider(ServiceCache.Provider provider) {
+        this.provider = provider;
+        caches.clear();
+    }
+
+    private static class LRUProvider implements ServiceCache.Provider {
+        @Override
+        public ServiceCache create(String name, Cached policy) {
+            return new LRUServiceCache(policy != null ? policy.maxSize() : 1000);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.reactome.server.graph.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method in the service level whose result can be cached until the database version changes. Every caller
+ * gets a copy of the cached result, so it has to be Serializable.
+ * <p>
+ * The copy is made by deserializing the cached result on every hit, which costs time and memory in proportion to
+ * its size: a hit is far cheaper than querying the database, but methods returning large graphs of objects (e.g. a
+ * whole hierarchy) spend most of a hit deserializing it. Annotate the methods whose results are small or are
+ * requested very often.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+    /**
+     * Maximum number of results kept for the annotated method
+     */
+    int maxSize() default 1000;
+}
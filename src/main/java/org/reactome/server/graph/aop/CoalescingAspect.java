@@ -0,0 +1,153 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical concurrent calls to the service level: while a method is being executed, the callers invoking
+ * it with the same arguments wait for that execution and share its result (or exception) instead of querying the
+ * database again. Nothing is kept once the execution finishes, so this is not a cache.
+ * <p>
+ * Every coalesced caller gets a copy of its own of the result (see SharedResult), which is only made when there is
+ * someone waiting for it. Results that cannot be copied, as well as waits taking longer than the coalescing timeout,
+ * make the waiting caller execute the method itself.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Aspect
+@Component
+public class CoalescingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingAspect.class);
+
+    private Boolean enableCoalescing = false;
+
+    /**
+     * Maximum time (in milliseconds) to wait for the execution in progress before executing the method
+     */
+    private long coalescingTimeout = 30_000;
+
+    private final ConcurrentMap<InvocationKey, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Methods that might modify the database (including GeneralService.query, which runs any given Cypher) are never
+     * coalesced. Neither are the ones returning something that can only be consumed once (Stream, Iterator) or that
+     * is still being computed (Future).
+     */
+    @Around("execution(public !void org.reactome.server.graph.service.*.*(..)) " +
+            "&& !execution(* org.reactome.server.graph.service.*.save*(..)) " +
+            "&& !execution(* org.reactome.server.graph.service.*.delete*(..)) " +
+            "&& !execution(* org.reactome.server.graph.service.GeneralService.query(..)) " +
+            "&& !execution(java.util.stream.BaseStream+ org.reactome.server.graph.service.*.*(..)) " +
+            "&& !execution(java.util.Iterator+ org.reactome.server.graph.service.*.*(..)) " +
+            "&& !execution(java.util.concurrent.Future+ org.reactome.server.graph.service.*.*(..))")
+    public Object coalesce(ProceedingJoinPoint pjp) throws Throwable {
+        if (!enableCoalescing) {
+            return pjp.proceed();
+        }
+
+        InvocationKey key = new InvocationKey(pjp);
+        Flight flight = new Flight();
+        Flight current = inFlight.putIfAbsent(key, flight);
+        if (current != null) {
+            // A re-entrant call from the thread executing the flight cannot wait for itself
+            if (current.leader == Thread.currentThread()) return pjp.proceed();
+            logger.debug("Coalescing " + key);
+            if (current.await(coalescingTimeout)) return current.get();
+            // Either it is taking too long or its result cannot be shared
+            return pjp.proceed();
+        }
+
+        Object result;
+        try {
+            result = pjp.proceed();
+        } catch (Throwable t) {
+            inFlight.remove(key, flight);
+            flight.complete(null, t);
+            throw t;
+        }
+        inFlight.remove(key, flight);
+        // The result is only copied when someone is waiting for it, and failing to copy it never fails the caller
+        flight.complete(flight.hasFollowers() ? share(key, result) : null, null);
+        return result;
+    }
+
+    /**
+     * @return the shareable form of the result or null if it cannot be copied
+     */
+    private static SharedResult share(InvocationKey key, Object result) {
+        try {
+            return SharedResult.of(result);
+        } catch (Throwable t) {
+            logger.debug("The result of " + key + " cannot be shared", t);
+            return null;
+        }
+    }
+
+    public Boolean getEnableCoalescing() {
+        return enableCoalescing;
+    }
+
+    public void setEnableCoalescing(boolean enableCoalescing) {
+        this.enableCoalescing = enableCoalescing;
+    }
+
+    public long getCoalescingTimeout() {
+        return coalescingTimeout;
+    }
+
+    /**
+     * @param coalescingTimeout maximum time (in milliseconds) a caller waits for the execution in progress
+     */
+    public void setCoalescingTimeout(long coalescingTimeout) {
+        this.coalescingTimeout = coalescingTimeout;
+    }
+
+    /**
+     * An execution in progress
+     */
+    private static class Flight {
+        private final Thread leader = Thread.currentThread();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicInteger followers = new AtomicInteger();
+        private volatile SharedResult result;
+        private volatile Throwable error;
+
+        void complete(SharedResult result, Throwable error) {
+            this.result = result;
+            this.error = error;
+            latch.countDown();
+        }
+
+        /**
+         * @return true if the execution finished within the given time (in milliseconds) and its outcome can be
+         * shared
+         */
+        boolean await(long timeout) throws InterruptedException {
+            followers.incrementAndGet();
+            return latch.await(timeout, TimeUnit.MILLISECONDS) && (error != null || result != null);
+        }
+
+        boolean hasFollowers() {
+            return followers.get() > 0;
+        }
+
+        /**
+         * @return a copy of the result of the execution (or throws its exception)
+         */
+        Object get() throws Throwable {
+            if (error != null) throw error;
+            return result.get();
+        }
+    }
+}
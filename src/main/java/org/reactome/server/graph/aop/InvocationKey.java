@@ -0,0 +1,67 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Identifies the invocation of a method with a given set of arguments. Overloaded methods share the name, so the
+ * parameter types are part of the key.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+class InvocationKey {
+
+    private final Object version;
+    private final String method;
+    private final Class[] types;
+    private final Object[] args;
+    private final int hash;
+
+    InvocationKey(ProceedingJoinPoint pjp) {
+        this(null, pjp);
+    }
+
+    /**
+     * @param version anything the result depends on apart from the method and the arguments (e.g. the DB version)
+     */
+    InvocationKey(Object version, ProceedingJoinPoint pjp) {
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        this.version = version;
+        this.method = getName(pjp);
+        this.types = signature.getParameterTypes();
+        this.args = pjp.getArgs();
+        this.hash = 31 * (31 * (31 * Objects.hashCode(version) + method.hashCode()) + Arrays.hashCode(types)) + Arrays.deepHashCode(args);
+    }
+
+    /**
+     * @return the invoked method in the form ClassName.methodName
+     */
+    static String getName(ProceedingJoinPoint pjp) {
+        return pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InvocationKey key = (InvocationKey) o;
+        return hash == key.hash &&
+                Objects.equals(version, key.version) &&
+                method.equals(key.method) &&
+                Arrays.equals(types, key.types) &&
+                Arrays.deepEquals(args, key.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return method + Arrays.deepToString(args);
+    }
+}
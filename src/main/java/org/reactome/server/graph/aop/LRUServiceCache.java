@@ -0,0 +1,43 @@
+package org.reactome.server.graph.aop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded ServiceCache evicting the least recently used entry when the maximum size is reached
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LRUServiceCache implements ServiceCache {
+
+    private final Map<Object, Object> map;
+
+    public LRUServiceCache(final int maxSize) {
+        this.map = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public synchronized void put(Object key, Object value) {
+        map.put(key, value);
+    }
+
+    @Override
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,98 @@
+package org.reactome.server.graph.aop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds with logarithmic buckets (HdrHistogram style): values under 64ns
+ * have their own bucket and every power of two above is split in 32 linear sub-buckets, so the value reported for
+ * any percentile is within ~3% of the recorded one. Values above 2^40ns (~18 minutes) are counted in the last bucket,
+ * which is reported as the maximum recorded.
+ * <p>
+ * Recording is a handful of atomic increments, so it can be done for every call.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    // One extra bucket for the values above 2^MAX_EXPONENT
+    private static final int BUCKETS = LINEAR + (MAX_EXPONENT - 6) * SUB_BUCKETS + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(getIndex(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) current = max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = this.count.get();
+        return count == 0 ? 0 : total.get() / (double) count;
+    }
+
+    /**
+     * @param percentile in the range [0, 100] (e.g. 99.9)
+     * @return the highest value equivalent to the one at the given percentile or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = 0;
+        long[] aux = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) count += aux[i] = buckets.get(i);
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100.0 * count));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulated += aux[i];
+            if (accumulated >= target) return Math.min(getHighestValue(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int getIndex(long value) {
+        if (value < LINEAR) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        // value >>> shift is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return LINEAR + (exponent - 6) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long getHighestValue(int index) {
+        if (index < LINEAR) return index;
+        if (index == BUCKETS - 1) return Long.MAX_VALUE;
+        int k = index - LINEAR;
+        int exponent = k / SUB_BUCKETS + 6;
+        long subBucket = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -5,18 +5,15 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MethodSignature;
 import org.neo4j.ogm.annotation.Relationship;
+import org.reactome.server.graph.aop.ModelMetadata.GetterMetadata;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.service.AdvancedDatabaseObjectService;
-import org.reactome.server.graph.service.helper.RelationshipDirection;
+import org.reactome.server.graph.service.util.LongHashMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.util.Collection;
+import java.util.*;
 
 /**
  * @author Guilherme Viteri (gviteri@ebi.ac.uk)
@@ -27,6 +24,22 @@ public class LazyFetchAspect {
 
     private Boolean enableAOP = true;
 
+    /**
+     * When enabled, a miss in an object that has been lazy loaded together with others (e.g. the
+     * components of a complex) loads the relationship for all of them in one query
+     */
+    private Boolean enableBatching = false;
+
+    /**
+     * When enabled, the lazy loading queries are counted per scope (see LazyLoadDetector) to spot N+1 patterns
+     */
+    private Boolean enableLazyLoadDetection = false;
+
+    private final LazyLoadDetector lazyLoadDetector = new LazyLoadDetector();
+
+    // Maximum time (in milliseconds) to wait for a sibling that is fetching the same relationship for the group
+    private static final long BATCH_FETCH_TIMEOUT = 30_000;
+
     @Autowired
     private AdvancedDatabaseObjectService advancedDatabaseObjectService;
 
@@ -39,43 +52,20 @@ public class LazyFetchAspect {
          // Target is the whole object that originated this pointcut.
         DatabaseObject databaseObject = (DatabaseObject) pjp.getTarget();
 
-         // Gathering information of the method we are invoking and it's being intercepted by AOP
-        MethodSignature signature = (MethodSignature) pjp.getSignature();
-        Method method = signature.getMethod();
+         // Gathering the precomputed information of the method we are invoking and it's being intercepted by AOP
+        GetterMetadata getter = ModelMetadata.get(databaseObject.getClass(), pjp.getSignature().getName());
 
          // Get the relationship that is annotated in the attribute
-        Relationship relationship = getRelationship(method.getName(), databaseObject.getClass());
+        Relationship relationship = getter != null ? getter.getRelationship() : null;
         if (relationship != null && !databaseObject.preventLazyLoading && !databaseObject.isLoaded) {
              // Check whether the object has been loaded.
              // pjp.proceed() has the result of the invoked method.
             if (pjp.proceed() == null) {
-                Long dbId = databaseObject.getDbId();
-                String setterMethod = method.getName().replaceFirst("get", "set");
-                Class<?> methodReturnClazz = method.getReturnType();
-
-                if (Collection.class.isAssignableFrom(methodReturnClazz)) {
-                    ParameterizedType stringListType = (ParameterizedType)  method.getGenericReturnType();
-                    Class<?> type = (Class<?>) stringListType.getActualTypeArguments()[0];
-                    String clazz = type.getSimpleName();
-                    // querying the graph and fill the collection
-                    Collection<DatabaseObject> lazyLoadedObjectAsCollection = advancedDatabaseObjectService.findCollectionByRelationship(dbId, clazz, methodReturnClazz, RelationshipDirection.valueOf(relationship.direction()), relationship.type());
-                    if (lazyLoadedObjectAsCollection != null) {
-                        // invoke the setter in order to set the object in the target
-                        databaseObject.getClass().getMethod(setterMethod, methodReturnClazz).invoke(databaseObject, lazyLoadedObjectAsCollection);
-                        return lazyLoadedObjectAsCollection;
-                    }
-                }
-
-                if (DatabaseObject.class.isAssignableFrom(methodReturnClazz)) {
-                    String clazz = methodReturnClazz.getSimpleName();
-                    // querying the graph and fill the single object
-                    DatabaseObject lazyLoadedObject = advancedDatabaseObjectService.findByRelationship(dbId, clazz, RelationshipDirection.valueOf(relationship.direction()), relationship.type());
-                    if (lazyLoadedObject != null) {
-                        // invoke the setter in order to set the object in the target
-                        databaseObject.getClass().getMethod(setterMethod, methodReturnClazz).invoke(databaseObject, lazyLoadedObject);
-                        return lazyLoadedObject;
-                    }
+                if (enableBatching) {
+                    return batchFetch(pjp, databaseObject, getter);
                 }
+                Object lazyLoaded = fetch(databaseObject, getter);
+                if (lazyLoaded != null) return lazyLoaded;
             }
         }
 
@@ -92,36 +82,131 @@ public class LazyFetchAspect {
     }
 
     /**
-     * Method used to get the Relationship annotation on top of the
-     * given attribute. This method looks for the annotation in the current class
-     * and keep looking in the superclass.
+     * Loads the relationship of the given getter for the target only
      *
-     * @return the Relationship annotation
+     * @return the value loaded for the target or null if there is nothing to be loaded
      */
-    private Relationship getRelationship(String methodName, Class<?> _clazz) {
-        methodName = methodName.substring(3, methodName.length()); // crop, remove 'get'
-        char c[] = methodName.toCharArray();
-        c[0] = Character.toLowerCase(c[0]); // lower the first char
-
-        String attribute = new String(c);
-
-         // Look up for the given attribute in the class and after superclasses.
-        while (_clazz != null && !_clazz.getClass().equals(Object.class)) {
-            for (Field field : _clazz.getDeclaredFields()) {
-                if (field.getAnnotation(Relationship.class) != null) {
-                    if (field.getName().equals(attribute)) {
-                        return field.getAnnotation(Relationship.class);
-                    }
-                }
+    private Object fetch(DatabaseObject databaseObject, GetterMetadata getter) throws Throwable {
+        Relationship relationship = getter.getRelationship();
+        Long dbId = databaseObject.getDbId();
+
+        if (getter.isCollection() && getter.getElementType() != null) {
+            String clazz = getter.getElementType().getSimpleName();
+            detect(getter);
+            // querying the graph and fill the collection
+            Collection<DatabaseObject> lazyLoadedObjectAsCollection = advancedDatabaseObjectService.findCollectionByRelationship(dbId, clazz, getter.getReturnType(), getter.getDirection(), relationship.type());
+            if (lazyLoadedObjectAsCollection != null) {
+                // invoke the setter in order to set the object in the target
+                if (getter.hasSetter()) getter.set(databaseObject, lazyLoadedObjectAsCollection);
+                return lazyLoadedObjectAsCollection;
+            }
+        }
+
+        if (getter.isDatabaseObject()) {
+            String clazz = getter.getReturnType().getSimpleName();
+            detect(getter);
+            // querying the graph and fill the single object
+            DatabaseObject lazyLoadedObject = advancedDatabaseObjectService.findByRelationship(dbId, clazz, getter.getDirection(), relationship.type());
+            if (lazyLoadedObject != null) {
+                // invoke the setter in order to set the object in the target
+                if (getter.hasSetter()) getter.set(databaseObject, lazyLoadedObject);
+                return lazyLoadedObject;
             }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the relationship of the given getter for the target and all its siblings (objects lazy loaded in the same
+     * group) in one query. The loaded objects are grouped together, so walking the tree level by level ends up in
+     * one query per level and relationship instead of one per object.
+     *
+     * @return the value loaded for the target or null if there is nothing to be loaded
+     */
+    private Object batchFetch(ProceedingJoinPoint pjp, DatabaseObject target, GetterMetadata getter) throws Throwable {
+        LazyFetchBatch batch = target.lazyFetchBatch;
+        if (batch == null) batch = LazyFetchBatch.create(Collections.singletonList(target));
+        String key = getter.getField().getDeclaringClass().getSimpleName() + "." + getter.getField().getName();
+        LazyFetchBatch.Fetch fetch = batch.startFetch(key);
+        if (fetch != null) {
+            // The relationship is queried (or has been queried) for the whole group, so the target has it set
+            if (fetch.await(BATCH_FETCH_TIMEOUT)) return pjp.proceed();
+            // Either it failed, it is taking too long or it is being fetched by this thread
+            return fetch(target, getter);
+        }
+
+        boolean success = false;
+        try {
+            Object rtn = batchFetch(batch, target, getter);
+            success = true;
+            return rtn;
+        } finally {
+            batch.finishFetch(key, success);
+        }
+    }
+
+    private Object batchFetch(LazyFetchBatch batch, DatabaseObject target, GetterMetadata getter) throws Throwable {
 
-            // Didn't find the field in the given class. Check the Superclass.
-            _clazz = _clazz.getSuperclass();
+        // Only the siblings that have the relationship and do not have it already loaded are taken into account
+        LongHashMap<DatabaseObject> pending = new LongHashMap<>(batch.getMembers().size() + 1);
+        pending.put(target.getDbId(), target);
+        for (DatabaseObject sibling : batch.getMembers()) {
+            if (sibling.preventLazyLoading || sibling.isLoaded || sibling.getDbId() == null) continue;
+            if (!getter.getField().getDeclaringClass().isInstance(sibling)) continue;
+            if (getter.getFieldValue(sibling) != null) continue;
+            pending.put(sibling.getDbId(), sibling);
+        }
+
+        Relationship relationship = getter.getRelationship();
+        Collection<DatabaseObject> loaded = new ArrayList<>();
+        detect(getter);
+
+        if (getter.isCollection() && getter.getElementType() != null) {
+            String clazz = getter.getElementType().getSimpleName();
+            // querying the graph once for all the siblings
+            Map<Long, Collection<DatabaseObject>> collections = advancedDatabaseObjectService.findCollectionsByRelationship(pending.toList(), clazz, getter.getReturnType(), getter.getDirection(), relationship.type());
+            for (Map.Entry<Long, Collection<DatabaseObject>> entry : collections.entrySet()) {
+                // invoke the setter in order to set the object in the sibling
+                set(pending.get(entry.getKey()), getter.getName(), entry.getValue());
+                loaded.addAll(entry.getValue());
+            }
+            LazyFetchBatch.create(loaded);
+            return collections.get(target.getDbId());
+        }
+
+        if (getter.isDatabaseObject()) {
+            String clazz = getter.getReturnType().getSimpleName();
+            // querying the graph once for all the siblings
+            Map<Long, DatabaseObject> objects = advancedDatabaseObjectService.findByRelationship(pending.toList(), clazz, getter.getDirection(), relationship.type());
+            for (Map.Entry<Long, DatabaseObject> entry : objects.entrySet()) {
+                // invoke the setter in order to set the object in the sibling
+                set(pending.get(entry.getKey()), getter.getName(), entry.getValue());
+                loaded.add(entry.getValue());
+            }
+            LazyFetchBatch.create(loaded);
+            return objects.get(target.getDbId());
         }
 
         return null;
     }
 
+    /**
+     * Counts the lazy loading query about to be executed for the given getter (when the detection is enabled)
+     */
+    private void detect(GetterMetadata getter) {
+        if (enableLazyLoadDetection) {
+            lazyLoadDetector.record(getter.getField().getDeclaringClass().getSimpleName() + "." + getter.getField().getName() + "[" + getter.getRelationship().type() + "]");
+        }
+    }
+
+    /**
+     * Siblings might belong to different classes, so the setter is taken from the class of each one of them
+     */
+    private void set(DatabaseObject databaseObject, String getterName, Object value) throws Throwable {
+        GetterMetadata getter = ModelMetadata.get(databaseObject.getClass(), getterName);
+        if (getter != null && getter.hasSetter()) getter.set(databaseObject, value);
+    }
+
     public Boolean getEnableAOP() {
         return enableAOP;
     }
@@ -130,4 +215,24 @@ public class LazyFetchAspect {
         this.enableAOP = enableAOP;
     }
 
-}
\ No newline at end of file
+    public Boolean getEnableBatching() {
+        return enableBatching;
+    }
+
+    public void setEnableBatching(boolean enableBatching) {
+        this.enableBatching = enableBatching;
+    }
+
+    public Boolean getEnableLazyLoadDetection() {
+        return enableLazyLoadDetection;
+    }
+
+    public void setEnableLazyLoadDetection(boolean enableLazyLoadDetection) {
+        this.enableLazyLoadDetection = enableLazyLoadDetection;
+    }
+
+    public LazyLoadDetector getLazyLoadDetector() {
+        return lazyLoadDetector;
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.service.util.LongHashSet;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group of objects that have been lazy loaded together (siblings). When batching is enabled in the LazyFetchAspect,
+ * a miss in one of the members triggers the loading of the same relationship for all the members of the group.
+ * The relationships that have already been fetched for the group are kept, so the group is not queried twice for
+ * the same relationship (e.g. when some members do not have any value for it). A relationship counts as fetched once
+ * the setters of all the members have been invoked, so a member missing it in the meantime waits for the fetch in
+ * progress instead of reading it as empty.
+ *
+ * @author Guilherme Viteri (gviteri@ebi.ac.uk)
+ */
+public class LazyFetchBatch {
+
+    private final Collection<DatabaseObject> members = new ArrayList<>();
+
+    private final Map<String, Fetch> fetches = new HashMap<>();
+
+    /**
+     * Creates a group for the given objects. Objects that already belong to a group or that have been
+     * fully loaded are not included.
+     */
+    static LazyFetchBatch create(Collection<? extends DatabaseObject> databaseObjects) {
+        LazyFetchBatch batch = new LazyFetchBatch();
+        LongHashSet visited = new LongHashSet(databaseObjects.size());
+        for (DatabaseObject databaseObject : databaseObjects) {
+            if (databaseObject == null || databaseObject.lazyFetchBatch != null || databaseObject.isLoaded) continue;
+            // Objects without dbId cannot be lazy loaded anyway
+            if (databaseObject.getDbId() != null && visited.add(databaseObject.getDbId())) {
+                databaseObject.lazyFetchBatch = batch;
+                batch.members.add(databaseObject);
+            }
+        }
+        return batch;
+    }
+
+    Collection<DatabaseObject> getMembers() {
+        return members;
+    }
+
+    /**
+     * @return null if the relationship has not been fetched for this group yet (then the caller has to fetch it and
+     * call finishFetch afterwards) or the fetch of the relationship (finished or in progress) otherwise
+     */
+    synchronized Fetch startFetch(String relationship) {
+        Fetch fetch = fetches.get(relationship);
+        if (fetch == null) fetches.put(relationship, new Fetch());
+        return fetch;
+    }
+
+    /**
+     * @param success whether the setters have been invoked. Failed fetches are forgotten, so they can be retried
+     */
+    synchronized void finishFetch(String relationship, boolean success) {
+        Fetch fetch = success ? fetches.get(relationship) : fetches.remove(relationship);
+        if (fetch != null) fetch.finish(success);
+    }
+
+    /**
+     * Fetch of a relationship for all the members of a group
+     */
+    static class Fetch {
+        private final Thread owner = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean success = false;
+
+        private void finish(boolean success) {
+            this.success = success;
+            done.countDown();
+        }
+
+        /**
+         * Waits for the fetch to finish. The thread doing the fetch does not wait for itself
+         *
+         * @return true if the fetch finished successfully within the given time (in milliseconds)
+         */
+        boolean await(long timeout) throws InterruptedException {
+            if (owner == Thread.currentThread() && done.getCount() > 0) return false;
+            return done.await(timeout, TimeUnit.MILLISECONDS) && success;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.exception.LazyLoadThresholdException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Diagnostic mode of the LazyFetchAspect (setEnableLazyLoadDetection) counting the lazy loading queries executed
+ * per scope, so N+1 patterns (e.g. serialising a tree of objects fires one query per getter and object) are spotted.
+ * Once the threshold is exceeded in a scope, the relationships being lazy loaded are reported together with the
+ * number of queries and the call site (stack) of the first one. When failOnThreshold is set, the query exceeding the
+ * threshold throws a LazyLoadThresholdException instead (meant for tests).
+ * <p>
+ * Scopes are per thread. A scope per request (e.g. in a servlet filter) or per test is opened with
+ * <p>
+ * <code>
+ * try (LazyLoadDetector.Scope scope = lazyFetchAspect.getLazyLoadDetector().open()) {
+ * ...
+ * }
+ * </code>
+ * <p>
+ * Nothing is counted outside of a scope: threads are pooled, so a count kept per thread would add up the queries of
+ * unrelated requests and report N+1 patterns that do not exist.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class LazyLoadDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyLoadDetector.class);
+
+    private static final int STACK_DEPTH = 15;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private int threshold = 100;
+    private boolean failOnThreshold = false;
+
+    /**
+     * Opens a new scope for the current thread (the previous one, if any, is restored once this one is closed)
+     */
+    public Scope open() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * @param relationship the relationship being lazy loaded in the form ClassName.attribute[type]
+     */
+    void record(String relationship) {
+        Scope scope = current.get();
+        if (scope == null) return;
+        if (scope.record(relationship) == threshold + 1) {
+            String report = scope.getReport();
+            if (failOnThreshold) throw new LazyLoadThresholdException(report);
+            logger.warn(report);
+        }
+    }
+
+    /**
+     * @return the scope of the current thread or null if there is none
+     */
+    public Scope getScope() {
+        return current.get();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param threshold maximum number of lazy loading queries per scope before they are reported
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean getFailOnThreshold() {
+        return failOnThreshold;
+    }
+
+    /**
+     * @param failOnThreshold whether the query exceeding the threshold has to throw a LazyLoadThresholdException
+     */
+    public void setFailOnThreshold(boolean failOnThreshold) {
+        this.failOnThreshold = failOnThreshold;
+    }
+
+    /**
+     * Lazy loading queries counted for one thread
+     */
+    public class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Counter> counters = new LinkedHashMap<>();
+        private int queries = 0;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private int record(String relationship) {
+            Counter counter = counters.get(relationship);
+            if (counter == null) {
+                counters.put(relationship, counter = new Counter(relationship, getCallSite()));
+            }
+            counter.queries++;
+            return ++queries;
+        }
+
+        /**
+         * @return number of lazy loading queries in the scope
+         */
+        public int getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return number of lazy loading queries per relationship (ClassName.attribute[type])
+         */
+        public Map<String, Integer> getQueriesPerRelationship() {
+            Map<String, Integer> rtn = new LinkedHashMap<>();
+            for (Counter counter : getCounters()) rtn.put(counter.relationship, counter.queries);
+            return rtn;
+        }
+
+        /**
+         * @return the relationships lazy loaded in this scope, the most queried first, and the call site of the first
+         * query for each one of them
+         */
+        public String getReport() {
+            StringBuilder sb = new StringBuilder("Lazy loading executed ").append(queries).append(" queries (threshold ").append(threshold).append(")");
+            for (Counter counter : getCounters()) {
+                sb.append("\n  ").append(counter.queries).append(" x ").append(counter.relationship).append(" first called from:");
+                for (StackTraceElement element : counter.callSite) sb.append("\n\tat ").append(element);
+            }
+            return sb.toString();
+        }
+
+        private List<Counter> getCounters() {
+            List<Counter> rtn = new ArrayList<>(counters.values());
+            rtn.sort((c1, c2) -> Integer.compare(c2.queries, c1.queries));
+            return rtn;
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) current.set(parent);
+            else current.remove();
+        }
+    }
+
+    private static class Counter {
+        final String relationship;
+        final List<StackTraceElement> callSite;
+        int queries = 0;
+
+        Counter(String relationship, List<StackTraceElement> callSite) {
+            this.relationship = relationship;
+            this.callSite = callSite;
+        }
+    }
+
+    /**
+     * @return the stack of the current thread leaving out the aspects, AspectJ and the intercepted getter itself
+     */
+    private static List<StackTraceElement> getCallSite() {
+        List<StackTraceElement> rtn = new ArrayList<>();
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("org.reactome.server.graph.aop.") || className.startsWith("org.aspectj.")) continue;
+            if (element.getMethodName().contains("_aroundBody")) continue;
+            rtn.add(element);
+            if (rtn.size() == STACK_DEPTH) break;
+        }
+        return rtn;
+    }
+}
@@ -1,19 +1,42 @@
 package org.reactome.server.graph.aop;
 
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.SessionFactory;
+import org.reactome.server.graph.config.ReplicaRouter;
+import org.reactome.server.graph.config.RoutingSessionFactory;
+import org.reactome.server.graph.service.helper.SlowQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.annotation.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Component;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Created by:
  *
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
  * @since 19.11.15.
  *
- * Logging aspect, used for logging all methods in the service level.
+ * Logging aspect, used for measuring all methods in the service level and all the cypher queries executed by the
+ * repositories (both the ones executed through the Neo4jOperations and the ones annotated with @Query). Latencies
+ * (in nanoseconds), errors and returned rows are kept per operation in the MetricsRegistry.
+ *
+ * Queries taking longer than the slow query threshold, failing ones included, are logged (query, parameters, rows and
+ * elapsed time) and kept in the SlowQueryLog. When profiling is enabled, they are also re-run in the background with
+ * PROFILE (in the database they were executed in) so their plan (rows and db hits per operator) is kept with them.
  */
 @Aspect
 @Component
@@ -21,6 +44,33 @@ public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
+    private Boolean enableMetrics = true;
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    private Boolean enableSlowQueryLog = false;
+
+    private Boolean enableProfiling = false;
+
+    /**
+     * Time (in milliseconds) for a query to be considered slow
+     */
+    private long slowQueryThreshold = 1000;
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(100);
+
+    // Created when the first slow query is profiled, unless one has been set
+    private volatile QueryProfiler queryProfiler = null;
+
+    private ReplicaRouter router;
+
+    @Autowired
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        if (sessionFactory instanceof RoutingSessionFactory) {
+            router = ((RoutingSessionFactory) sessionFactory).getRouter();
+        }
+    }
+
     /**
      * Logging around all Service Methods to see execution times
      * @param joinPoint loggingPointcut
@@ -29,14 +79,195 @@ public class LoggingAspect {
      */
     @Around("execution(public * org.reactome.server.graph.service.*.*(..))")
     public Object monitorExecutionTimes(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long elapsedTime = System.currentTimeMillis() - start;
-        int milliseconds = (int) elapsedTime % 1000;
-        int seconds = (int) (elapsedTime / 1000) % 60;
-        int minutes = (int) ((elapsedTime / (1000 * 60)) % 60);
-        logger.debug(joinPoint.getSignature().getDeclaringType().getSimpleName() + ":" + joinPoint.getSignature().getName() +
-                " successfully executed in " + minutes + " min " + seconds + " sec " + milliseconds + " mil");
+        if (!enableMetrics) {
+            return joinPoint.proceed();
+        }
+        String name = InvocationKey.getName(joinPoint);
+        long start = System.nanoTime();
+        Object result = monitor(joinPoint, metricsRegistry.getServiceMetrics(name), start);
+        if (logger.isDebugEnabled()) {
+            logger.debug(name + " successfully executed in " + (System.nanoTime() - start) / 1000 + " microseconds");
+        }
         return result;
     }
+
+    /**
+     * Queries executed through Neo4jOperations in the repositories: query(cypher, parameters, ..)
+     */
+    @Around("call(* org.springframework.data.neo4j.template.Neo4jOperations.query(String, ..)) " +
+            "&& within(org.reactome.server.graph.repository..*) && args(query, ..)")
+    public Object monitorQueryTemplates(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, String query) throws Throwable {
+        return monitorQuery(joinPoint, enclosing, query);
+    }
+
+    /**
+     * Queries executed through Neo4jOperations in the repositories: queryForObject(s)(type, cypher, parameters)
+     */
+    @Around("call(* org.springframework.data.neo4j.template.Neo4jOperations.queryForObject*(Class, String, ..)) " +
+            "&& within(org.reactome.server.graph.repository..*) && args(*, query, ..)")
+    public Object monitorQueryForObjectTemplates(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, String query) throws Throwable {
+        return monitorQuery(joinPoint, enclosing, query);
+    }
+
+    private Object monitorQuery(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, String query) throws Throwable {
+        if (!enableMetrics && !enableSlowQueryLog) {
+            return joinPoint.proceed();
+        }
+        String name = enclosing.getSignature().getDeclaringType().getSimpleName() + "." + enclosing.getSignature().getName();
+        return monitor(joinPoint, name, query);
+    }
+
+    /**
+     * Methods of the repository interfaces annotated with @Query
+     */
+    @Around("call(@org.springframework.data.neo4j.annotation.Query * org.reactome.server.graph.repository.*.*(..))")
+    public Object monitorQueryMethods(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enableMetrics && !enableSlowQueryLog) {
+            return joinPoint.proceed();
+        }
+        Query query = ((MethodSignature) joinPoint.getSignature()).getMethod().getAnnotation(Query.class);
+        return monitor(joinPoint, InvocationKey.getName(joinPoint), query.value());
+    }
+
+    private Object monitor(ProceedingJoinPoint joinPoint, String name, String query) throws Throwable {
+        OperationMetrics metrics = enableMetrics ? metricsRegistry.getQueryMetrics(name, query) : null;
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = monitor(joinPoint, metrics, start);
+            failed = false;
+            return result;
+        } finally {
+            // Also for the ones failing, since timeouts are slow queries as well
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            if (enableSlowQueryLog && elapsed >= slowQueryThreshold) {
+                SlowQuery slowQuery = new SlowQuery(name, query, getParameters(joinPoint), failed ? -1 : getRows(result), elapsed, failed, getDatabase());
+                logger.warn("Slow query in " + slowQuery);
+                slowQueryLog.add(slowQuery);
+                if (enableProfiling) slowQueryLog.profile(slowQuery, getQueryProfiler());
+            }
+        }
+    }
+
+    /**
+     * @return the uri of the database the current thread is querying or null if there are no read replicas
+     */
+    private String getDatabase() {
+        if (router == null) return null;
+        ReplicaRouter.Endpoint endpoint = router.current();
+        return (endpoint != null ? endpoint : router.getPrimary()).getURI();
+    }
+
+    private Object monitor(ProceedingJoinPoint joinPoint, OperationMetrics metrics, long start) throws Throwable {
+        try {
+            Object result = joinPoint.proceed();
+            if (metrics != null) metrics.record(System.nanoTime() - start, getRows(result), false);
+            return result;
+        } catch (Throwable t) {
+            if (metrics != null) metrics.record(System.nanoTime() - start, 0, true);
+            throw t;
+        }
+    }
+
+    /**
+     * @return the parameters of the query: the map passed to Neo4jOperations or the arguments of the @Query method
+     * (named after their @Param or their position)
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getParameters(ProceedingJoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (method.isAnnotationPresent(Query.class)) {
+            Annotation[][] annotations = method.getParameterAnnotations();
+            for (int i = 0; i < args.length; i++) {
+                String name = String.valueOf(i);
+                for (Annotation annotation : annotations[i]) {
+                    if (annotation instanceof Param) name = ((Param) annotation).value();
+                }
+                parameters.put(name, args[i]);
+            }
+        } else {
+            for (Object arg : args) {
+                if (arg instanceof Map) parameters.putAll((Map<String, Object>) arg);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * @return the number of rows (or elements) in the result or -1 if they cannot be counted without consuming it
+     */
+    private static long getRows(Object result) {
+        if (result == null) return 0;
+        if (result instanceof Result) result = ((Result) result).queryResults();
+        if (result instanceof Collection) return ((Collection) result).size();
+        if (result instanceof Map) return ((Map) result).size();
+        if (result.getClass().isArray()) return Array.getLength(result);
+        if (result instanceof Iterable) return -1;
+        return 1;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public Boolean getEnableMetrics() {
+        return enableMetrics;
+    }
+
+    public void setEnableMetrics(boolean enableMetrics) {
+        this.enableMetrics = enableMetrics;
+    }
+
+    public Boolean getEnableSlowQueryLog() {
+        return enableSlowQueryLog;
+    }
+
+    public void setEnableSlowQueryLog(boolean enableSlowQueryLog) {
+        this.enableSlowQueryLog = enableSlowQueryLog;
+    }
+
+    public Boolean getEnableProfiling() {
+        return enableProfiling;
+    }
+
+    /**
+     * Re-runs the slow queries with PROFILE in the background (only when the slow query log is enabled)
+     */
+    public void setEnableProfiling(boolean enableProfiling) {
+        this.enableProfiling = enableProfiling;
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * @param slowQueryThreshold time (in milliseconds) for a query to be considered slow
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * @return the profiler of the slow queries (HttpQueryProfiler unless another one has been set)
+     */
+    public QueryProfiler getQueryProfiler() {
+        if (queryProfiler == null) {
+            synchronized (this) {
+                if (queryProfiler == null) queryProfiler = new HttpQueryProfiler();
+            }
+        }
+        return queryProfiler;
+    }
+
+    public void setQueryProfiler(QueryProfiler queryProfiler) {
+        this.queryProfiler = queryProfiler;
+    }
 }
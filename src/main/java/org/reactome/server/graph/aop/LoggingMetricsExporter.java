@@ -0,0 +1,28 @@
+package org.reactome.server.graph.aop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes one line per operation in the log (info level), the ones with the highest p99 latency first
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LoggingMetricsExporter implements MetricsExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsExporter.class);
+
+    @Override
+    public void export(Collection<OperationMetrics> metrics) {
+        List<OperationMetrics> aux = new ArrayList<>(metrics);
+        aux.sort(Comparator.comparingDouble(OperationMetrics::getP99Millis).reversed());
+        for (OperationMetrics m : aux) {
+            if (m.getCount() > 0) logger.info(m.toString());
+        }
+    }
+}
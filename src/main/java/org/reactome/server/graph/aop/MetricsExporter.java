@@ -0,0 +1,18 @@
+package org.reactome.server.graph.aop;
+
+import java.util.Collection;
+
+/**
+ * Publishes the metrics collected by the MetricsRegistry somewhere else (logs, a monitoring system, etc.).
+ * Exporters are added with MetricsRegistry.addExporter and invoked every time MetricsRegistry.export is called
+ * (periodically once MetricsRegistry.startExporting has been called).
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public interface MetricsExporter {
+
+    /**
+     * @param metrics the metrics of all the operations called so far (or since the last reset)
+     */
+    void export(Collection<OperationMetrics> metrics);
+}
@@ -0,0 +1,187 @@
+package org.reactome.server.graph.aop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Keeps the metrics of the methods in the service level and the cypher queries (per template) recorded by the
+ * LoggingAspect. They can be retrieved with getMetrics, registered as MBeans (setEnableJmx) under
+ * "org.reactome.server.graph:type=[service|query],name=..." and/or published periodically through the exporters.
+ * <p>
+ * The number of operations is bounded (queries built by concatenating values would create a new template per call),
+ * once maxOperations is reached the new ones are aggregated in "(other)".
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class MetricsRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    public static final String JMX_DOMAIN = "org.reactome.server.graph";
+
+    private static final String OTHER = "(other)";
+
+    private final ConcurrentMap<String, OperationMetrics> services = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OperationMetrics> queries = new ConcurrentHashMap<>();
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+    private int maxOperations = 1000;
+    private volatile boolean enableJmx = false;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param name ClassName.methodName of the method in the service level
+     */
+    public OperationMetrics getServiceMetrics(String name) {
+        OperationMetrics metrics = services.get(name);
+        return metrics != null ? metrics : create(services, OperationMetrics.SERVICE, name, name, null);
+    }
+
+    /**
+     * Queries are identified by their template, so the same query executed from different methods is only reported
+     * once (with the name of the first method executing it)
+     *
+     * @param name  ClassName.methodName of the method executing the query
+     * @param query the cypher query template
+     */
+    public OperationMetrics getQueryMetrics(String name, String query) {
+        OperationMetrics metrics = queries.get(query);
+        return metrics != null ? metrics : create(queries, OperationMetrics.QUERY, query, name, query);
+    }
+
+    private OperationMetrics create(ConcurrentMap<String, OperationMetrics> map, String type, String key, String name, String query) {
+        if (services.size() + queries.size() >= maxOperations) {
+            key = OTHER;
+            name = OTHER;
+            query = null;
+        }
+        OperationMetrics metrics = new OperationMetrics(type, name, query);
+        OperationMetrics existing = map.putIfAbsent(key, metrics);
+        if (existing != null) return existing;
+        if (enableJmx) register(metrics);
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of all the operations executed so far
+     */
+    public Collection<OperationMetrics> getMetrics() {
+        List<OperationMetrics> rtn = new ArrayList<>(services.values());
+        rtn.addAll(queries.values());
+        return rtn;
+    }
+
+    /**
+     * Resets the counters of all the operations (they remain registered)
+     */
+    public void reset() {
+        for (OperationMetrics metrics : getMetrics()) metrics.reset();
+    }
+
+    // ------------------------------------------- JMX -----------------------------------------------------------------
+
+    public boolean getEnableJmx() {
+        return enableJmx;
+    }
+
+    /**
+     * Registers (or unregisters) one MBean per operation in the platform MBeanServer
+     */
+    public synchronized void setEnableJmx(boolean enableJmx) {
+        if (this.enableJmx == enableJmx) return;
+        this.enableJmx = enableJmx;
+        for (OperationMetrics metrics : getMetrics()) {
+            if (enableJmx) register(metrics);
+            else unregister(metrics);
+        }
+    }
+
+    private void register(OperationMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, getObjectName(metrics));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warn("There is already an MBean registered for " + metrics.getName());
+        } catch (JMException e) {
+            logger.error("The MBean for " + metrics.getName() + " could not be registered", e);
+        }
+    }
+
+    private void unregister(OperationMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName(metrics));
+        } catch (InstanceNotFoundException e) {
+            // Nothing to do here
+        } catch (JMException e) {
+            logger.error("The MBean for " + metrics.getName() + " could not be unregistered", e);
+        }
+    }
+
+    /**
+     * Several queries can be executed from the same method, so the hash of the template is part of their name
+     */
+    private static ObjectName getObjectName(OperationMetrics metrics) throws MalformedObjectNameException {
+        String name = metrics.getName();
+        if (metrics.getQuery() != null) name += "#" + Integer.toHexString(metrics.getQuery().hashCode());
+        return new ObjectName(JMX_DOMAIN + ":type=" + metrics.getType() + ",name=" + ObjectName.quote(name));
+    }
+
+    // ------------------------------------------- Exporters -----------------------------------------------------------
+
+    public void addExporter(MetricsExporter exporter) {
+        exporters.add(exporter);
+    }
+
+    public void removeExporter(MetricsExporter exporter) {
+        exporters.remove(exporter);
+    }
+
+    /**
+     * Hands over the current metrics to all the exporters
+     */
+    public void export() {
+        Collection<OperationMetrics> metrics = getMetrics();
+        for (MetricsExporter exporter : exporters) {
+            try {
+                exporter.export(metrics);
+            } catch (RuntimeException e) {
+                logger.error("Metrics could not be exported by " + exporter.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Calls export periodically from a background (daemon) thread
+     */
+    public synchronized void startExporting(long period, TimeUnit unit) {
+        stopExporting();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-core-metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::export, period, period, unit);
+    }
+
+    public synchronized void stopExporting() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public void setMaxOperations(int maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+}
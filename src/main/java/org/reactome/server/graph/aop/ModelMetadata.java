@@ -0,0 +1,339 @@
+package org.reactome.server.graph.aop;
+
+import org.neo4j.ogm.annotation.EndNode;
+import org.neo4j.ogm.annotation.Relationship;
+import org.neo4j.ogm.annotation.RelationshipEntity;
+import org.neo4j.ogm.annotation.StartNode;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.service.helper.RelationshipDirection;
+import org.reactome.server.graph.service.util.DatabaseObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry with the information needed by the aspects for every getter of the domain model: the Relationship
+ * annotation of the backing attribute, the returned type (and element type in case of collections) and the
+ * setter as a MethodHandle.
+ * <p>
+ * The registry is built once for all the classes in org.reactome.server.graph.domain.model, so the aspects do not
+ * need to use reflection every time a getter is intercepted. It also keeps, per class, the attributes that point to
+ * other objects of the model (see getReferences), so the graph can be walked without going through the getters.
+ *
+ * @author Guilherme Viteri (gviteri@ebi.ac.uk)
+ */
+public class ModelMetadata {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelMetadata.class);
+
+    private static final Map<Class<?>, Map<String, GetterMetadata>> registry = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, List<Reference>> references = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<? extends DatabaseObject> clazz : DatabaseObjectUtils.getModelClasses()) {
+            getGetters(clazz);
+        }
+    }
+
+    /**
+     * @return the metadata of the given getter in the given class or null if the getter does not exist
+     */
+    public static GetterMetadata get(Class<?> clazz, String getter) {
+        return getGetters(clazz).get(getter);
+    }
+
+    /**
+     * @return all the getters of the given class (indexed by name)
+     */
+    public static Map<String, GetterMetadata> getGetters(Class<?> clazz) {
+        Map<String, GetterMetadata> getters = registry.get(clazz);
+        if (getters == null) {
+            getters = build(clazz);
+            registry.put(clazz, getters);
+        }
+        return getters;
+    }
+
+    /**
+     * @return the attributes of the given class (and its superclasses) pointing to other objects of the model, either
+     * directly or through relationship entities (e.g. HasEvent)
+     */
+    public static List<Reference> getReferences(Class<?> clazz) {
+        List<Reference> rtn = references.get(clazz);
+        if (rtn == null) {
+            rtn = buildReferences(clazz);
+            references.put(clazz, rtn);
+        }
+        return rtn;
+    }
+
+    private static List<Reference> buildReferences(Class<?> clazz) {
+        List<Reference> rtn = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && !c.equals(Object.class); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
+                Class<?> type = field.getType();
+                if (Collection.class.isAssignableFrom(type)) {
+                    Type genericType = field.getGenericType();
+                    if (!(genericType instanceof ParameterizedType)) continue;
+                    Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                    if (!(elementType instanceof Class)) continue;
+                    type = (Class<?>) elementType;
+                }
+                if (DatabaseObject.class.isAssignableFrom(type) || type.isAnnotationPresent(RelationshipEntity.class)) {
+                    Reference reference = Reference.create(field, type);
+                    if (reference != null) rtn.add(reference);
+                }
+            }
+        }
+        return Collections.unmodifiableList(rtn);
+    }
+
+    private static Map<String, GetterMetadata> build(Class<?> clazz) {
+        Map<String, GetterMetadata> getters = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            String name = method.getName();
+            if (!name.startsWith("get") || name.length() == 3 || name.equals("getClass")) continue;
+            if (method.getParameterCount() > 0 || method.isBridge()) continue;
+            getters.put(name, new GetterMetadata(clazz, method));
+        }
+        return Collections.unmodifiableMap(getters);
+    }
+
+    /**
+     * Looks for the attribute annotated with Relationship that is related to the given getter. The attribute is
+     * looked up in the given class first and then in the superclasses.
+     */
+    private static Field getRelationshipField(String methodName, Class<?> _clazz) {
+        methodName = methodName.substring(3, methodName.length()); // crop, remove 'get'
+        char c[] = methodName.toCharArray();
+        c[0] = Character.toLowerCase(c[0]); // lower the first char
+
+        String attribute = new String(c);
+
+        // Look up for the given attribute in the class and after superclasses.
+        while (_clazz != null && !_clazz.equals(Object.class)) {
+            for (Field field : _clazz.getDeclaredFields()) {
+                if (field.getAnnotation(Relationship.class) != null) {
+                    if (field.getName().equals(attribute)) {
+                        return field;
+                    }
+                }
+            }
+
+            // Didn't find the field in the given class. Check the Superclass.
+            _clazz = _clazz.getSuperclass();
+        }
+
+        return null;
+    }
+
+    /**
+     * Precomputed information of a getter of the domain model
+     */
+    public static class GetterMetadata {
+
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private final String name;
+        private final String setterName;
+        private final Class<?> returnType;
+        private final Class<?> elementType;
+        private final Field field;
+        private final Relationship relationship;
+        private final MethodHandle setter;
+        private final MethodHandle fieldGetter;
+
+        GetterMetadata(Class<?> clazz, Method method) {
+            this.name = method.getName();
+            this.setterName = name.replaceFirst("get", "set");
+            this.returnType = method.getReturnType();
+
+            Class<?> elementType = null;
+            Type genericReturnType = method.getGenericReturnType();
+            if (Collection.class.isAssignableFrom(returnType) && genericReturnType instanceof ParameterizedType) {
+                Type type = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+                if (type instanceof Class) elementType = (Class<?>) type;
+            }
+            this.elementType = elementType;
+
+            this.field = getRelationshipField(name, clazz);
+            this.relationship = field != null ? field.getAnnotation(Relationship.class) : null;
+
+            MethodHandle setter = null;
+            try {
+                setter = MethodHandles.publicLookup().unreflect(clazz.getMethod(setterName, returnType)).asType(SETTER_TYPE);
+            } catch (NoSuchMethodException e) {
+                // e.g getRegulation, which wraps Positive and Negative Regulation, does not have a setter
+            } catch (IllegalAccessException e) {
+                logger.warn("Could not access method " + setterName + " in the class " + clazz.getName());
+            }
+            this.setter = setter;
+
+            MethodHandle fieldGetter = null;
+            if (field != null) {
+                try {
+                    field.setAccessible(true);
+                    fieldGetter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+                } catch (IllegalAccessException | SecurityException e) {
+                    logger.warn("Could not access attribute " + field.getName() + " in the class " + clazz.getName());
+                }
+            }
+            this.fieldGetter = fieldGetter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSetterName() {
+            return setterName;
+        }
+
+        public Class<?> getReturnType() {
+            return returnType;
+        }
+
+        /**
+         * @return the type of the elements when the getter returns a Collection, null otherwise
+         */
+        public Class<?> getElementType() {
+            return elementType;
+        }
+
+        public boolean isCollection() {
+            return Collection.class.isAssignableFrom(returnType);
+        }
+
+        public boolean isDatabaseObject() {
+            return DatabaseObject.class.isAssignableFrom(returnType);
+        }
+
+        /**
+         * @return the attribute annotated with Relationship that backs this getter, null if there is none
+         */
+        public Field getField() {
+            return field;
+        }
+
+        public Relationship getRelationship() {
+            return relationship;
+        }
+
+        public RelationshipDirection getDirection() {
+            return relationship != null ? RelationshipDirection.valueOf(relationship.direction()) : null;
+        }
+
+        public boolean hasSetter() {
+            return setter != null;
+        }
+
+        /**
+         * Invokes the setter related to this getter in the given target
+         */
+        public void set(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, value);
+        }
+
+        /**
+         * Reads the attribute that backs this getter straight away, so no aspect is triggered
+         */
+        public Object getFieldValue(Object target) throws Throwable {
+            return fieldGetter != null ? (Object) fieldGetter.invokeExact(target) : null;
+        }
+    }
+
+    /**
+     * Attribute of a class of the model pointing to other objects of the model. It is read straight away (no getter
+     * is invoked, so no aspect is triggered) and relationship entities are replaced by the objects they link.
+     */
+    public static class Reference {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        // @StartNode and @EndNode attributes of the relationship entities
+        private static final Map<Class<?>, MethodHandle[]> nodes = new ConcurrentHashMap<>();
+
+        private final Field field;
+        private final MethodHandle getter;
+        private final boolean isCollection;
+        private final MethodHandle[] entityNodes;
+
+        private Reference(Field field, MethodHandle getter, MethodHandle[] entityNodes) {
+            this.field = field;
+            this.getter = getter;
+            this.isCollection = Collection.class.isAssignableFrom(field.getType());
+            this.entityNodes = entityNodes;
+        }
+
+        private static Reference create(Field field, Class<?> type) {
+            try {
+                MethodHandle[] entityNodes = DatabaseObject.class.isAssignableFrom(type) ? null : getNodes(type);
+                return new Reference(field, getGetter(field), entityNodes);
+            } catch (IllegalAccessException | SecurityException e) {
+                logger.warn("Could not access attribute " + field.getName() + " in the class " + field.getDeclaringClass().getName());
+                return null;
+            }
+        }
+
+        private static MethodHandle[] getNodes(Class<?> relationshipEntity) throws IllegalAccessException {
+            MethodHandle[] rtn = nodes.get(relationshipEntity);
+            if (rtn == null) {
+                List<MethodHandle> aux = new ArrayList<>();
+                for (Field field : relationshipEntity.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(StartNode.class) || field.isAnnotationPresent(EndNode.class)) {
+                        aux.add(getGetter(field));
+                    }
+                }
+                nodes.put(relationshipEntity, rtn = aux.toArray(new MethodHandle[aux.size()]));
+            }
+            return rtn;
+        }
+
+        private static MethodHandle getGetter(Field field) throws IllegalAccessException {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Adds the objects the given target points to through this attribute to the given collection
+         */
+        public void addTargets(Object target, Collection<DatabaseObject> targets) throws Throwable {
+            Object value = (Object) getter.invokeExact(target);
+            if (value == null) return;
+            if (isCollection) {
+                for (Object element : (Collection<?>) value) addTarget(element, targets);
+            } else {
+                addTarget(value, targets);
+            }
+        }
+
+        private void addTarget(Object value, Collection<DatabaseObject> targets) throws Throwable {
+            if (value == null) return;
+            if (entityNodes == null) {
+                targets.add((DatabaseObject) value);
+            } else {
+                for (MethodHandle node : entityNodes) {
+                    Object object = (Object) node.invokeExact(value);
+                    if (object instanceof DatabaseObject) targets.add((DatabaseObject) object);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.aop.ModelMetadata.Reference;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Walks the graph of objects reachable from a given one to switch the lazy loading on or off. The walk is done level
+ * by level (no recursion, so big graphs do not overflow the stack) reading the attributes straight away from the
+ * precomputed references of every class (see ModelMetadata), so no getter is invoked and nothing is lazy loaded on
+ * the way. Every object is expanded when its flag changes (so each instance once, including different instances of the
+ * same entry) and the walk can be limited to a number of levels.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class ModelWalker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelWalker.class);
+
+    private static int maxDepth = Integer.MAX_VALUE;
+
+    /**
+     * Sets the lazy loading flag of the root and the objects reachable from it up to the given depth (1 for the
+     * objects directly linked to the root). As before, objects that already have the flag set to the given value
+     * are not expanded.
+     */
+    public static void preventLazyLoading(DatabaseObject root, boolean preventLazyLoading, int maxDepth) {
+        root.preventLazyLoading = preventLazyLoading;
+
+        List<DatabaseObject> level = Collections.singletonList(root);
+        List<DatabaseObject> targets = new ArrayList<>();
+        for (int depth = 0; depth < maxDepth && !level.isEmpty(); depth++) {
+            List<DatabaseObject> next = new ArrayList<>();
+            for (DatabaseObject object : level) {
+                targets.clear();
+                for (Reference reference : ModelMetadata.getReferences(object.getClass())) {
+                    try {
+                        reference.addTargets(object, targets);
+                    } catch (Throwable t) {
+                        logger.warn("Could not read " + reference.getField().getName() + " in " + object.getClass().getSimpleName(), t);
+                    }
+                }
+                for (DatabaseObject target : targets) {
+                    if (target.preventLazyLoading == preventLazyLoading) continue;
+                    target.preventLazyLoading = preventLazyLoading;
+                    next.add(target);
+                }
+            }
+            level = next;
+        }
+    }
+
+    public static int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth default number of levels walked by DatabaseObject.preventLazyLoading (unbounded by default)
+     */
+    public static void setMaxDepth(int maxDepth) {
+        ModelWalker.maxDepth = maxDepth;
+    }
+}
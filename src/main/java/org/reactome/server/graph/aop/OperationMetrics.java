@@ -0,0 +1,113 @@
+package org.reactome.server.graph.aop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies, errors and returned rows of one operation (a method in the service level or a query template)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+    public static final String SERVICE = "service";
+    public static final String QUERY = "query";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String type;
+    private final String name;
+    private final String query;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    OperationMetrics(String type, String name, String query) {
+        this.type = type;
+        this.name = name;
+        this.query = query;
+    }
+
+    /**
+     * @param nanos elapsed time of the call
+     * @param rows  rows returned by the call (ignored if negative)
+     * @param error whether the call finished with an exception
+     */
+    public void record(long nanos, long rows, boolean error) {
+        histogram.record(nanos);
+        if (rows > 0) this.rows.addAndGet(rows);
+        if (error) errors.incrementAndGet();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getQuery() {
+        return query;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.get();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return histogram.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return histogram.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return histogram.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return histogram.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return histogram.getPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+        errors.set(0);
+        rows.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s count=%d errors=%d rows=%d mean=%.3fms p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                type, name, getCount(), getErrors(), getRows(), getMeanMillis(), getP50Millis(), getP99Millis(), getP999Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,46 @@
+package org.reactome.server.graph.aop;
+
+/**
+ * JMX view of the metrics of one operation (a method in the service level or a query template). Latencies are
+ * reported in milliseconds.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public interface OperationMetricsMBean {
+
+    /**
+     * @return "service" or "query"
+     */
+    String getType();
+
+    /**
+     * @return ClassName.methodName of the service method or the repository method executing the query
+     */
+    String getName();
+
+    /**
+     * @return the cypher query template (null for the service methods)
+     */
+    String getQuery();
+
+    long getCount();
+
+    long getErrors();
+
+    /**
+     * @return number of rows (or elements) returned by all the calls
+     */
+    long getRows();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    void reset();
+}
@@ -0,0 +1,22 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.service.helper.QueryPlan;
+
+import java.util.Map;
+
+/**
+ * Re-runs a query with PROFILE to retrieve its execution plan. The default implementation (HttpQueryProfiler) uses
+ * the transactional endpoint of the server the query was executed in, a different one can be plugged in with
+ * LoggingAspect.setQueryProfiler.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public interface QueryProfiler {
+
+    /**
+     * @param database uri of the database the query was executed in or null for the one configured for the OGM
+     * @return the plan of the query or null if it cannot be profiled
+     * @throws Exception if the query could not be profiled
+     */
+    QueryPlan profile(String database, String query, Map<String, Object> parameters) throws Exception;
+}
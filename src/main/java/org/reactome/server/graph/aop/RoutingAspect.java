@@ -0,0 +1,87 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.neo4j.ogm.session.SessionFactory;
+import org.reactome.server.graph.config.ReplicaRouter;
+import org.reactome.server.graph.config.ReplicaRouter.Endpoint;
+import org.reactome.server.graph.config.RoutingSessionFactory;
+import org.reactome.server.graph.repository.util.RepositoryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds every call to the service level to one database when read replicas have been configured (see
+ * ReplicaRouter). Methods saving or deleting, as well as GeneralService.query with a clause modifying the database,
+ * are executed in the primary and the rest in one of the replicas. Nested calls keep the database of the outermost
+ * one (unless they write and it is a replica).
+ * <p>
+ * When a read-only call fails and its replica does not pass the health check afterwards, the replica is left out
+ * and the call is executed again in the next one (or in the primary once there are no more healthy replicas).
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Aspect
+@Component
+public class RoutingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingAspect.class);
+
+    private ReplicaRouter router;
+
+    @Autowired
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        if (sessionFactory instanceof RoutingSessionFactory) {
+            router = ((RoutingSessionFactory) sessionFactory).getRouter();
+        }
+    }
+
+    @Around("execution(public * org.reactome.server.graph.service.*.*(..))")
+    public Object route(ProceedingJoinPoint pjp) throws Throwable {
+        if (router == null) {
+            return pjp.proceed();
+        }
+
+        boolean write = isWrite(pjp);
+        Endpoint current = router.current();
+        if (current != null && (!write || current.isPrimary())) {
+            return pjp.proceed();
+        }
+
+        Endpoint endpoint = write ? router.getPrimary() : router.select();
+        for (int attempt = 0; ; attempt++) {
+            Endpoint previous = router.bind(endpoint);
+            try {
+                return pjp.proceed();
+            } catch (Throwable t) {
+                // The error is thrown if it has nothing to do with the availability of the replica
+                if (endpoint.isPrimary() || attempt >= router.getReplicas().size() || router.check(endpoint)) throw t;
+                logger.warn("Replica " + endpoint + " failed executing " + pjp.getSignature().toShortString() + ", retrying in another one");
+            } finally {
+                router.release(endpoint, previous);
+            }
+            endpoint = router.select();
+        }
+    }
+
+    private boolean isWrite(ProceedingJoinPoint pjp) {
+        String name = pjp.getSignature().getName();
+        if (name.startsWith("save") || name.startsWith("delete")) return true;
+        Object[] args = pjp.getArgs();
+        return name.equals("query") && args.length > 0 && args[0] instanceof String && RepositoryUtils.isWriteQuery((String) args[0]);
+    }
+
+    public ReplicaRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * @param router the router deciding the database of every call (null to disable the routing)
+     */
+    public void setRouter(ReplicaRouter router) {
+        this.router = router;
+    }
+}
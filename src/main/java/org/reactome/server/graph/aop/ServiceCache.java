@@ -0,0 +1,33 @@
+package org.reactome.server.graph.aop;
+
+/**
+ * Storage used by the CacheAspect for the results of one method in the service level. The default implementation
+ * is LRUServiceCache but a different one can be plugged in with CacheAspect.setProvider.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public interface ServiceCache {
+
+    /**
+     * @return the cached value or null if it is not present
+     */
+    Object get(Object key);
+
+    void put(Object key, Object value);
+
+    void clear();
+
+    int size();
+
+    /**
+     * Creates the storage for a given method
+     */
+    interface Provider {
+
+        /**
+         * @param name   the method in the form ClassName.methodName
+         * @param policy the caching policy of the method
+         */
+        ServiceCache create(String name, Cached policy);
+    }
+}
@@ -0,0 +1,39 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.reactome.server.graph.config.SessionScope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens a SessionScope per call to the service level (nested calls join the one of the outermost call), so all the
+ * queries of one call share a session that is discarded once the call finishes.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Aspect
+@Component
+public class SessionScopeAspect {
+
+    private Boolean enableSessionScopes = false;
+
+    @Around("execution(public * org.reactome.server.graph.service.*.*(..))")
+    public Object scope(ProceedingJoinPoint pjp) throws Throwable {
+        if (!enableSessionScopes || SessionScope.current() != null) {
+            return pjp.proceed();
+        }
+
+        try (SessionScope ignored = SessionScope.open()) {
+            return pjp.proceed();
+        }
+    }
+
+    public Boolean getEnableSessionScopes() {
+        return enableSessionScopes;
+    }
+
+    public void setEnableSessionScopes(boolean enableSessionScopes) {
+        this.enableSessionScopes = enableSessionScopes;
+    }
+}
@@ -0,0 +1,56 @@
+package org.reactome.server.graph.aop;
+
+import java.io.*;
+
+/**
+ * Result of a method in the service level handed to more than one caller (see CacheAspect and CoalescingAspect).
+ * Objects of the domain model are modified when they are used (lazy loading, sorting), so instead of sharing the
+ * instances the result is kept serialized and every caller gets a copy of its own, as if it had been retrieved from
+ * the database. Immutable values (e.g. Strings or numbers) are shared as they are.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+class SharedResult {
+
+    private final Object value;
+    private final byte[] serialized;
+
+    private SharedResult(Object value, byte[] serialized) {
+        this.value = value;
+        this.serialized = serialized;
+    }
+
+    /**
+     * @return the shareable form of the given result or null if it cannot be copied (it is not Serializable or
+     * writing it fails in any other way)
+     */
+    static SharedResult of(Object result) {
+        if (result == null || isImmutable(result)) return new SharedResult(result, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            // The attributes are read straight away, so nothing is lazy loaded on the way
+            out.writeObject(result);
+        } catch (Throwable t) {
+            // e.g. NotSerializableException, a failing writeObject or a graph too deep to be written
+            return null;
+        }
+        return new SharedResult(null, bytes.toByteArray());
+    }
+
+    /**
+     * @return a new copy of the result
+     */
+    Object get() {
+        if (serialized == null) return value;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        } catch (Throwable e) {
+            throw new IllegalStateException("The shared result could not be copied", e);
+        }
+    }
+
+    private static boolean isImmutable(Object result) {
+        return result instanceof String || result instanceof Number || result instanceof Boolean
+                || result instanceof Character || result instanceof Enum;
+    }
+}
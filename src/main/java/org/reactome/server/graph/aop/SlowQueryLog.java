@@ -0,0 +1,104 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.repository.util.RepositoryUtils;
+import org.reactome.server.graph.service.helper.SlowQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ring buffer keeping the last slow queries detected by the LoggingAspect (the oldest one is overwritten once it is
+ * full). Queries are profiled one at a time in a background (daemon) thread and, if several slow queries pile up
+ * while one is being profiled, the ones not fitting in the waiting queue are not profiled, so profiling never adds
+ * more than one extra query to the load of the database. Queries modifying the database are never profiled.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class SlowQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final int PENDING_PROFILES = 10;
+
+    private SlowQuery[] buffer;
+    private int next = 0;
+    private int size = 0;
+
+    private ThreadPoolExecutor profiler;
+
+    public SlowQueryLog(int capacity) {
+        setCapacity(capacity);
+    }
+
+    public synchronized void add(SlowQuery slowQuery) {
+        buffer[next] = slowQuery;
+        next = (next + 1) % buffer.length;
+        if (size < buffer.length) size++;
+    }
+
+    /**
+     * Re-runs the query with PROFILE in the background and sets the plan of the slow query once it is done
+     */
+    public void profile(final SlowQuery slowQuery, final QueryProfiler queryProfiler) {
+        if (RepositoryUtils.isWriteQuery(slowQuery.getQuery())) return;
+        getProfiler().execute(() -> {
+            try {
+                slowQuery.setPlan(queryProfiler.profile(slowQuery.getDatabase(), slowQuery.getQuery(), slowQuery.getParameters()));
+                if (slowQuery.getPlan() != null) logger.info("Plan of " + slowQuery.getName() + ":\n" + slowQuery.getPlan());
+            } catch (Exception e) {
+                logger.warn("The query executed in " + slowQuery.getName() + " could not be profiled: " + e.getMessage());
+            }
+        });
+    }
+
+    private synchronized ThreadPoolExecutor getProfiler() {
+        if (profiler == null) {
+            profiler = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(PENDING_PROFILES), r -> {
+                Thread thread = new Thread(r, "graph-core-query-profiler");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+            profiler.allowCoreThreadTimeOut(true);
+        }
+        return profiler;
+    }
+
+    /**
+     * @return the slow queries in the buffer, the most recent first
+     */
+    public synchronized List<SlowQuery> getEntries() {
+        List<SlowQuery> rtn = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            rtn.add(buffer[(next - i + buffer.length) % buffer.length]);
+        }
+        return rtn;
+    }
+
+    public synchronized void clear() {
+        buffer = new SlowQuery[buffer.length];
+        next = 0;
+        size = 0;
+    }
+
+    public synchronized int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Changing the capacity keeps the most recent entries fitting in the new buffer
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity has to be greater than 0");
+        List<SlowQuery> entries = buffer == null ? new ArrayList<>() : getEntries();
+        buffer = new SlowQuery[capacity];
+        next = 0;
+        size = 0;
+        for (int i = Math.min(entries.size(), capacity) - 1; i >= 0; i--) add(entries.get(i));
+    }
+}
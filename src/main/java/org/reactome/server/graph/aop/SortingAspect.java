@@ -4,16 +4,21 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MethodSignature;
+import org.reactome.server.graph.aop.ModelMetadata.GetterMetadata;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
+import java.text.Collator;
 import java.util.*;
 
 /**
+ * Sorts the collections returned by the getters of the domain model by displayName. Every relationship is sorted
+ * once per object (see SortingState) and the comparison keys are computed once per object, as CollationKeys for the
+ * locale set with setCollationLocale (plain String comparison by default). Collections that come already sorted
+ * (e.g. when the order is pushed into the queries with setSortInQuery) are only checked, not copied nor set again.
+ *
  * @author Guilherme Viteri (gviteri@ebi.ac.uk)
  * @author Florian Korninger (fkorn@ebi.ac.uk)
  */
@@ -25,6 +30,11 @@ public class SortingAspect {
 
     private static boolean enableSorting = false;
 
+    private static boolean sortInQuery = false;
+
+    private static volatile Collator collator = null;
+    private static Locale collationLocale = null;
+
     @SuppressWarnings("unchecked")
     @Around("modelGetter()")
     public Object autoFetch(ProceedingJoinPoint pjp) throws Throwable {
@@ -32,78 +42,59 @@ public class SortingAspect {
             return pjp.proceed();
         }
 
-        MethodSignature signature = (MethodSignature) pjp.getSignature();
-        Method method = signature.getMethod();
-
         // This is the value that is returned by the intercepted getter
         Object returnedValue = pjp.proceed();
 
+        if (!(returnedValue instanceof List || returnedValue instanceof Set)) {
+            return returnedValue;
+        }
+
         DatabaseObject target = (DatabaseObject) pjp.getTarget();
+        String getterName = pjp.getSignature().getName();
+        GetterMetadata getter = ModelMetadata.get(target.getClass(), getterName);
 
-        if (returnedValue == null) {
-            return pjp.proceed();
+        // Derived getters (e.g. getRegulation) do not have a backing attribute, so they cannot be marked as sorted
+        Object backingValue = getter != null ? getter.getFieldValue(target) : null;
+        if (SortingState.isSorted(target, getterName, backingValue)) {
+            return returnedValue;
         }
 
-        List<? extends DatabaseObject> returnedValueAsList;
         if (returnedValue instanceof List) {
-            returnedValueAsList = (List<? extends DatabaseObject>) returnedValue;
-
-            //noinspection Convert2Lambda, Do not apply lambda function here. ajc won't compile
-            Collections.sort(returnedValueAsList, new Comparator<DatabaseObject>() {
-                @Override
-                public int compare(DatabaseObject o1, DatabaseObject o2) {
-                    return o1.getDisplayName().compareTo(o2.getDisplayName());
-                }
-            });
-
-            String setterMethod = method.getName().replaceFirst("get", "set");
-            try {
-                // Check if the setter exists. e.g getRegulation, which wraps Positive and Negative Regulation,
-                // does not have a setter, in this case we are going to return the list but won't set the target object.
-                Method setter = target.getClass().getMethod(setterMethod, method.getReturnType());
-
-                // Set collection in object, then we do not sort every execution.
-                setter.invoke(target, returnedValueAsList);
-            } catch (NoSuchMethodException e) {
-                logger.warn("Could not find method " + setterMethod + " in the class " + target.getClass().getName());
+            List<DatabaseObject> returnedValueAsList = (List<DatabaseObject>) returnedValue;
+            if (SortingState.sort(returnedValueAsList, collator)) {
+                setSortedValue(target, getter, returnedValueAsList);
             }
-
-            // return the sorted list
-            return returnedValueAsList;
-
-        } else if (returnedValue instanceof Set) {
+        } else {
             // The set by default (DatabaseObject.compareTo) is sorting by dbId, in this case we want to sort by displayName.
-            // Then take the Set, convert to a List, sort it and convert back to a LinkedHashSet.
-            Set<? extends DatabaseObject> returnedValueSet = (Set<? extends DatabaseObject>) returnedValue;
-            returnedValueAsList = new ArrayList<>(returnedValueSet);
-
-            //noinspection Convert2Lambda, Do not apply lambda function here. ajc won't compile
-            Collections.sort(returnedValueAsList, new Comparator<DatabaseObject>() {
-                @Override
-                public int compare(DatabaseObject o1, DatabaseObject o2) {
-                    return o1.getDisplayName().compareTo(o2.getDisplayName());
-                }
-            });
-
-            Set<? extends DatabaseObject> returnedValueAsSet = new LinkedHashSet<>(returnedValueAsList);
-            String setterMethod = method.getName().replaceFirst("get", "set");
-            try {
-                // Check if the setter exists. e.g getRegulation, which wraps Positive and Negative Regulation,
-                // does not have a setter, in this case we are going to return the list but won't set the target object.
-                Method setter = target.getClass().getMethod(setterMethod, method.getReturnType());
-
-                // Set collection in object, then we do not sort every execution.
-                setter.invoke(target, returnedValueAsSet);
-            } catch (NoSuchMethodException e) {
-                logger.warn("Could not find method " + setterMethod + " in the class " + target.getClass().getName());
+            // Then take the Set, convert to a List, sort it and convert back to a LinkedHashSet (only when needed).
+            List<DatabaseObject> returnedValueAsList = new ArrayList<>((Set<DatabaseObject>) returnedValue);
+            if (SortingState.sort(returnedValueAsList, collator)) {
+                returnedValue = new LinkedHashSet<>(returnedValueAsList);
+                setSortedValue(target, getter, returnedValue);
             }
+        }
 
-            // return the sorted list
-            return returnedValueAsSet;
+        if (backingValue != null) {
+            // The setter might have replaced the backing collection
+            SortingState.markAsSorted(target, getterName, getter.getFieldValue(target));
         }
         return returnedValue;
     }
 
+    /**
+     * Check if the setter exists. e.g getRegulation, which wraps Positive and Negative Regulation,
+     * does not have a setter, in this case we are going to return the list but won't set the target object.
+     */
+    private void setSortedValue(DatabaseObject target, GetterMetadata getter, Object value) throws Throwable {
+        if (getter != null && getter.hasSetter()) {
+            // Set collection in object, then we do not sort every execution.
+            getter.set(target, value);
+        } else {
+            String setterMethod = getter != null ? getter.getSetterName() : "setter";
+            logger.warn("Could not find method " + setterMethod + " in the class " + target.getClass().getName());
+        }
+    }
+
     /**
      * AspectJ pointcut for all the getters, excluding getters in the DatabaseObject,
      * so then we can freely invoke getDbId, getStId and so on without being cut.
@@ -121,4 +112,28 @@ public class SortingAspect {
     public void setEnableSorting(boolean enableSorting) {
         SortingAspect.enableSorting = enableSorting;
     }
+
+    public static boolean isSortInQuery() {
+        return SortingAspect.enableSorting && SortingAspect.sortInQuery;
+    }
+
+    /**
+     * @param sortInQuery whether the collections lazy loaded are retrieved ordered by displayName, so the aspect only
+     *                    has to check them (only when sorting is enabled)
+     */
+    public void setSortInQuery(boolean sortInQuery) {
+        SortingAspect.sortInQuery = sortInQuery;
+    }
+
+    public Locale getCollationLocale() {
+        return SortingAspect.collationLocale;
+    }
+
+    /**
+     * @param locale the locale used to compare the display names (null for plain String comparison, the default)
+     */
+    public void setCollationLocale(Locale locale) {
+        SortingAspect.collationLocale = locale;
+        SortingAspect.collator = locale != null ? Collator.getInstance(locale) : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package org.reactome.server.graph.aop;
+
+import org.reactome.server.graph.domain.model.DatabaseObject;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+
+/**
+ * Sorting information kept per object by the SortingAspect: the key used to compare the object by displayName (a
+ * CollationKey when a locale has been set, computed once and reused until the name or the locale change) and the
+ * relationships that have already been sorted. A relationship is sorted once: it is marked with the collection that
+ * backs it, so it is only sorted again if the collection is replaced (e.g. by calling its setter).
+ *
+ * @author Guilherme Viteri (gviteri@ebi.ac.uk)
+ */
+public class SortingState {
+
+    private Key key = null;
+
+    private Map<String, Object> sorted = null;
+
+    private SortingState() {
+    }
+
+    /**
+     * Sorts the given list by displayName comparing the keys cached in the objects (computed only for the objects
+     * that do not have one or whose display name has changed)
+     *
+     * @return true if the list was not sorted already (and then it has been sorted)
+     */
+    static boolean sort(List<DatabaseObject> databaseObjects, Collator collator) {
+        int size = databaseObjects.size();
+        Key[] keys = new Key[size];
+        boolean isSorted = true;
+        for (int i = 0; i < size; i++) {
+            keys[i] = getKey(databaseObjects.get(i), collator);
+            if (i > 0 && keys[i - 1].compareTo(keys[i]) > 0) isSorted = false;
+        }
+        if (isSorted) return false;
+
+        Arrays.sort(keys);
+        for (int i = 0; i < size; i++) databaseObjects.set(i, keys[i].databaseObject);
+        return true;
+    }
+
+    /**
+     * @return true if the relationship of the given getter has already been sorted and it is still backed by the
+     * same collection
+     */
+    static boolean isSorted(DatabaseObject databaseObject, String getter, Object backingValue) {
+        SortingState state = databaseObject.sortingState;
+        return state != null && backingValue != null && state.isSorted(getter, backingValue);
+    }
+
+    static void markAsSorted(DatabaseObject databaseObject, String getter, Object backingValue) {
+        if (backingValue == null) return;
+        getState(databaseObject).markAsSorted(getter, backingValue);
+    }
+
+    private static Key getKey(DatabaseObject databaseObject, Collator collator) {
+        SortingState state = getState(databaseObject);
+        String displayName = databaseObject.getDisplayName();
+        Key key = state.key;
+        if (key == null || !key.isValidFor(displayName, collator)) state.key = key = new Key(databaseObject, displayName, collator);
+        return key;
+    }
+
+    private static SortingState getState(DatabaseObject databaseObject) {
+        SortingState state = databaseObject.sortingState;
+        if (state == null) databaseObject.sortingState = state = new SortingState();
+        return state;
+    }
+
+    private synchronized boolean isSorted(String getter, Object backingValue) {
+        return sorted != null && sorted.get(getter) == backingValue;
+    }
+
+    private synchronized void markAsSorted(String getter, Object backingValue) {
+        if (sorted == null) sorted = new HashMap<>(4);
+        sorted.put(getter, backingValue);
+    }
+
+    /**
+     * Immutable, so it can be shared by threads sorting collections that contain the same object
+     */
+    private static class Key implements Comparable<Key> {
+        private final DatabaseObject databaseObject;
+        private final String displayName;
+        private final Collator collator;
+        private final CollationKey collationKey;
+
+        Key(DatabaseObject databaseObject, String displayName, Collator collator) {
+            this.databaseObject = databaseObject;
+            this.displayName = displayName != null ? displayName : "";
+            this.collator = collator;
+            this.collationKey = collator != null ? collator.getCollationKey(this.displayName) : null;
+        }
+
+        @SuppressWarnings("StringEquality")
+        boolean isValidFor(String displayName, Collator collator) {
+            if (displayName == null) displayName = "";
+            // The name is the same instance in most of the cases, so there is no need to go through the chars
+            return this.collator == collator && (this.displayName == displayName || this.displayName.equals(displayName));
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            if (collationKey != null && o.collationKey != null) return collationKey.compareTo(o.collationKey);
+            return displayName.compareTo(o.displayName);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package org.reactome.server.graph.config;
+
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.config.DriverConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connection to the graph database used by ReactomeGraphCore.initialise. Either the HTTP or the Bolt driver of the
+ * OGM can be used, and their connection pool can be tuned:
+ * <p>
+ * <code>
+ * DriverSettings settings = new DriverSettings()
+ * .setProtocol(DriverSettings.Protocol.BOLT)
+ * .setHost("localhost").setUser("neo4j").setPassword("neo4j")
+ * .setConnectionPoolSize(100);
+ * ReactomeGraphCore.initialise(settings, Neo4jConfig.class);
+ * </code>
+ * <p>
+ * Read-only service methods can be spread across read replicas (see ReplicaRouter) while writes are kept in the
+ * primary (host and port above). Replicas use the same protocol, credentials and pool settings as the primary:
+ * <p>
+ * <code>
+ * settings.setReplicas("replica1:7687", "replica2:7687").setRoutingStrategy(DriverSettings.RoutingStrategy.LEAST_LOADED);
+ * </code>
+ * <p>
+ * The settings are handed over to Neo4jConfig through system properties (neo4j.driver, neo4j.host, etc.), so they
+ * can also be provided in the command line. When neo4j.driver is not set, the OGM is configured by ogm.properties.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class DriverSettings {
+
+    static final String DRIVER = "neo4j.driver";
+    static final String HOST = "neo4j.host";
+    static final String PORT = "neo4j.port";
+    static final String USER = "neo4j.user";
+    static final String PASSWORD = "neo4j.password";
+    static final String CONNECTION_POOL_SIZE = "neo4j.connection.pool.size";
+    static final String ENCRYPTION_LEVEL = "neo4j.encryption.level";
+    static final String FETCH_SIZE = "neo4j.fetch.size";
+    static final String REPLICAS = "neo4j.replicas";
+    static final String ROUTING_STRATEGY = "neo4j.routing.strategy";
+    static final String HEALTH_CHECK_INTERVAL = "neo4j.health.check.interval";
+
+    public enum Protocol {
+        HTTP("http", "org.neo4j.ogm.drivers.http.driver.HttpDriver", 7474),
+        BOLT("bolt", "org.neo4j.ogm.drivers.bolt.driver.BoltDriver", 7687);
+
+        private final String scheme;
+        private final String driverClassName;
+        private final int defaultPort;
+
+        Protocol(String scheme, String driverClassName, int defaultPort) {
+            this.scheme = scheme;
+            this.driverClassName = driverClassName;
+            this.defaultPort = defaultPort;
+        }
+    }
+
+    public enum RoutingStrategy {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private Protocol protocol = Protocol.HTTP;
+    private String host = "localhost";
+    private Integer port;
+    private String user;
+    private String password;
+    private Integer connectionPoolSize;
+    private String encryptionLevel = "NONE";
+    private Integer fetchSize;
+    private List<String> replicas = new ArrayList<>();
+    private RoutingStrategy routingStrategy = RoutingStrategy.ROUND_ROBIN;
+    private int healthCheckInterval = 10;
+
+    /**
+     * @return the OGM configuration for these settings
+     */
+    public Configuration getConfiguration() {
+        Configuration configuration = new Configuration();
+        DriverConfiguration driverConfiguration = configuration.driverConfiguration()
+                .setDriverClassName(protocol.driverClassName)
+                .setURI(getURI());
+        if (user != null) driverConfiguration.setCredentials(user, password);
+        if (connectionPoolSize != null) driverConfiguration.setConnectionPoolSize(connectionPoolSize);
+        if (protocol == Protocol.BOLT && encryptionLevel != null) driverConfiguration.setEncryptionLevel(encryptionLevel);
+        return configuration;
+    }
+
+    public String getURI() {
+        return protocol.scheme + "://" + host + ":" + getPort();
+    }
+
+    /**
+     * @return the settings of every replica (a copy of these ones pointing to the replica)
+     */
+    public List<DriverSettings> getReplicaSettings() {
+        List<DriverSettings> rtn = new ArrayList<>();
+        for (String replica : replicas) {
+            String[] hostPort = replica.trim().split(":");
+            rtn.add(new DriverSettings()
+                    .setProtocol(protocol)
+                    .setHost(hostPort[0])
+                    .setPort(hostPort.length > 1 ? Integer.valueOf(hostPort[1]) : getPort())
+                    .setUser(user)
+                    .setPassword(password)
+                    .setConnectionPoolSize(connectionPoolSize)
+                    .setEncryptionLevel(encryptionLevel)
+                    .setFetchSize(fetchSize));
+        }
+        return rtn;
+    }
+
+    /**
+     * Sets the system properties read by Neo4jConfig
+     */
+    public void toSystemProperties() {
+        set(DRIVER, protocol.name());
+        set(HOST, host);
+        set(PORT, String.valueOf(getPort()));
+        set(USER, user);
+        set(PASSWORD, password);
+        set(CONNECTION_POOL_SIZE, connectionPoolSize);
+        set(ENCRYPTION_LEVEL, encryptionLevel);
+        set(FETCH_SIZE, fetchSize);
+        set(REPLICAS, replicas.isEmpty() ? null : String.join(",", replicas));
+        set(ROUTING_STRATEGY, routingStrategy.name());
+        set(HEALTH_CHECK_INTERVAL, healthCheckInterval);
+    }
+
+    /**
+     * @return the settings provided as system properties or null if the driver has not been specified
+     */
+    public static DriverSettings fromSystemProperties() {
+        String driver = System.getProperty(DRIVER);
+        if (driver == null) return null;
+        DriverSettings settings = new DriverSettings()
+                .setProtocol(Protocol.valueOf(driver.toUpperCase()))
+                .setHost(System.getProperty(HOST, "localhost"))
+                .setUser(System.getProperty(USER))
+                .setPassword(System.getProperty(PASSWORD))
+                .setEncryptionLevel(System.getProperty(ENCRYPTION_LEVEL, "NONE"));
+        if (System.getProperty(PORT) != null) settings.setPort(Integer.valueOf(System.getProperty(PORT)));
+        if (System.getProperty(CONNECTION_POOL_SIZE) != null) settings.setConnectionPoolSize(Integer.valueOf(System.getProperty(CONNECTION_POOL_SIZE)));
+        if (System.getProperty(FETCH_SIZE) != null) settings.setFetchSize(Integer.valueOf(System.getProperty(FETCH_SIZE)));
+        if (System.getProperty(REPLICAS) != null) settings.setReplicas(System.getProperty(REPLICAS).split(","));
+        if (System.getProperty(ROUTING_STRATEGY) != null) settings.setRoutingStrategy(RoutingStrategy.valueOf(System.getProperty(ROUTING_STRATEGY).toUpperCase()));
+        if (System.getProperty(HEALTH_CHECK_INTERVAL) != null) settings.setHealthCheckInterval(Integer.valueOf(System.getProperty(HEALTH_CHECK_INTERVAL)));
+        return settings;
+    }
+
+    private static void set(String key, Object value) {
+        if (value == null) System.clearProperty(key);
+        else System.setProperty(key, value.toString());
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public DriverSettings setProtocol(Protocol protocol) {
+        this.protocol = protocol;
+        return this;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public DriverSettings setHost(String host) {
+        this.host = host;
+        return this;
+    }
+
+    /**
+     * @return the given port or the default one for the protocol (7474 for HTTP and 7687 for Bolt)
+     */
+    public Integer getPort() {
+        return port != null ? port : protocol.defaultPort;
+    }
+
+    public DriverSettings setPort(Integer port) {
+        this.port = port;
+        return this;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public DriverSettings setUser(String user) {
+        this.user = user;
+        return this;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public DriverSettings setPassword(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public Integer getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    /**
+     * @param connectionPoolSize maximum number of connections (HTTP) or sessions (Bolt) to the server. The driver
+     *                           default (50) is used when it is not set
+     */
+    public DriverSettings setConnectionPoolSize(Integer connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+        return this;
+    }
+
+    public String getEncryptionLevel() {
+        return encryptionLevel;
+    }
+
+    /**
+     * @param encryptionLevel Bolt only: NONE (default) or REQUIRED
+     */
+    public DriverSettings setEncryptionLevel(String encryptionLevel) {
+        this.encryptionLevel = encryptionLevel;
+        return this;
+    }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @param fetchSize number of objects retrieved per query by the streaming methods (SchemaService.stream*)
+     */
+    public DriverSettings setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @param replicas read replicas as host or host:port (the port of the primary is used when not specified)
+     */
+    public DriverSettings setReplicas(String... replicas) {
+        this.replicas = new ArrayList<>(Arrays.asList(replicas));
+        return this;
+    }
+
+    public RoutingStrategy getRoutingStrategy() {
+        return routingStrategy;
+    }
+
+    /**
+     * @param routingStrategy how the read-only service methods are spread across the replicas (ROUND_ROBIN by default)
+     */
+    public DriverSettings setRoutingStrategy(RoutingStrategy routingStrategy) {
+        this.routingStrategy = routingStrategy;
+        return this;
+    }
+
+    public int getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * @param healthCheckInterval seconds between two health checks of the replicas (10 by default)
+     */
+    public DriverSettings setHealthCheckInterval(int healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+        return this;
+    }
+}
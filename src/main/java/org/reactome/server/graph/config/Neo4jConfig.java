@@ -2,7 +2,12 @@ package org.reactome.server.graph.config;
 
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
+import org.reactome.server.graph.aop.CacheAspect;
+import org.reactome.server.graph.aop.CoalescingAspect;
 import org.reactome.server.graph.aop.LazyFetchAspect;
+import org.reactome.server.graph.aop.LoggingAspect;
+import org.reactome.server.graph.aop.RoutingAspect;
+import org.reactome.server.graph.aop.SessionScopeAspect;
 import org.springframework.context.annotation.*;
 import org.springframework.context.annotation.aspectj.EnableSpringConfigured;
 import org.springframework.data.neo4j.config.Neo4jConfiguration;
@@ -20,14 +25,30 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableSpringConfigured
 public class Neo4jConfig extends Neo4jConfiguration {
 
+    /**
+     * The OGM is configured by ogm.properties unless the driver has been specified (see DriverSettings). When read
+     * replicas are specified, the sessions are routed by the RoutingSessionFactory
+     */
     @Bean
     public SessionFactory getSessionFactory() {
+        DriverSettings settings = DriverSettings.fromSystemProperties();
+        if (settings != null) {
+            if (!settings.getReplicas().isEmpty()) {
+                return new RoutingSessionFactory(settings, "org.reactome.server.graph.domain");
+            }
+            return new SessionFactory(settings.getConfiguration(), "org.reactome.server.graph.domain");
+        }
         return new SessionFactory("org.reactome.server.graph.domain" );
     }
 
+    /**
+     * Every call to the session gets a new one unless the thread is within a SessionScope (then the one of the scope)
+     */
     @Bean
     @Scope(value = "prototype", proxyMode = ScopedProxyMode.TARGET_CLASS)
     public Session getSession() throws Exception {
+        SessionScope scope = SessionScope.current();
+        if (scope != null) return scope.getSession(getSessionFactory());
         return super.getSession();
     }
 
@@ -35,4 +56,29 @@ public class Neo4jConfig extends Neo4jConfiguration {
     public LazyFetchAspect lazyFetchAspect() {
         return org.aspectj.lang.Aspects.aspectOf(LazyFetchAspect.class);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public CacheAspect cacheAspect() {
+        return org.aspectj.lang.Aspects.aspectOf(CacheAspect.class);
+    }
+
+    @Bean
+    public CoalescingAspect coalescingAspect() {
+        return org.aspectj.lang.Aspects.aspectOf(CoalescingAspect.class);
+    }
+
+    @Bean
+    public LoggingAspect loggingAspect() {
+        return org.aspectj.lang.Aspects.aspectOf(LoggingAspect.class);
+    }
+
+    @Bean
+    public RoutingAspect routingAspect() {
+        return org.aspectj.lang.Aspects.aspectOf(RoutingAspect.class);
+    }
+
+    @Bean
+    public SessionScopeAspect sessionScopeAspect() {
+        return org.aspectj.lang.Aspects.aspectOf(SessionScopeAspect.class);
+    }
+}
@@ -0,0 +1,205 @@
+package org.reactome.server.graph.config;
+
+import org.neo4j.ogm.MetaData;
+import org.neo4j.ogm.driver.Driver;
+import org.neo4j.ogm.session.Neo4jSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which database (primary or one of the read replicas) the sessions opened by the RoutingSessionFactory point
+ * to. The endpoint is bound to the current thread for the whole service method (see RoutingAspect), so all the
+ * queries of one call are executed in the same database:
+ * <ul>
+ * <li>methods writing (save* and delete*) and any query executed outside a service method go to the primary</li>
+ * <li>read-only methods go to the healthy replicas, round-robin or to the one with less calls in progress</li>
+ * <li>when no replica is healthy, the primary is used</li>
+ * </ul>
+ * Replicas are checked in the background (RETURN 1) and the ones failing are left out until they recover.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ReplicaRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private static final String HEALTH_CHECK = "RETURN 1";
+
+    private final MetaData metaData;
+    private final Endpoint primary;
+    private final List<Endpoint> replicas;
+    private final DriverSettings.RoutingStrategy strategy;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Endpoint> current = new ThreadLocal<>();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaRouter(MetaData metaData, Endpoint primary, List<Endpoint> replicas, DriverSettings.RoutingStrategy strategy) {
+        this.metaData = metaData;
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return the driver of the endpoint bound to the current thread or the primary one if there is none
+     */
+    public Driver getDriver() {
+        Endpoint endpoint = current.get();
+        return endpoint != null ? endpoint.driver : primary.driver;
+    }
+
+    /**
+     * @return the replica to be used for the next read-only call or the primary when none of them is healthy
+     */
+    public Endpoint select() {
+        Endpoint rtn = null;
+        if (strategy == DriverSettings.RoutingStrategy.LEAST_LOADED) {
+            for (Endpoint replica : replicas) {
+                if (replica.healthy && (rtn == null || replica.inFlight.get() < rtn.inFlight.get())) rtn = replica;
+            }
+        } else {
+            int start = next.getAndIncrement() & Integer.MAX_VALUE;
+            for (int i = 0; i < replicas.size() && rtn == null; i++) {
+                Endpoint replica = replicas.get((start + i) % replicas.size());
+                if (replica.healthy) rtn = replica;
+            }
+        }
+        return rtn != null ? rtn : primary;
+    }
+
+    /**
+     * Binds the endpoint to the current thread
+     *
+     * @return the endpoint previously bound, to be restored by release
+     */
+    public Endpoint bind(Endpoint endpoint) {
+        Endpoint previous = current.get();
+        current.set(endpoint);
+        endpoint.inFlight.incrementAndGet();
+        endpoint.calls.incrementAndGet();
+        return previous;
+    }
+
+    public void release(Endpoint endpoint, Endpoint previous) {
+        endpoint.inFlight.decrementAndGet();
+        if (previous != null) current.set(previous);
+        else current.remove();
+    }
+
+    /**
+     * @return the endpoint bound to the current thread or null if there is none
+     */
+    public Endpoint current() {
+        return current.get();
+    }
+
+    /**
+     * Checks whether the endpoint answers and updates its health accordingly
+     *
+     * @return true if the endpoint is healthy
+     */
+    public boolean check(Endpoint endpoint) {
+        boolean healthy;
+        try {
+            new Neo4jSession(metaData, endpoint.driver).query(HEALTH_CHECK, Collections.emptyMap());
+            healthy = true;
+        } catch (Exception e) {
+            healthy = false;
+            if (endpoint.healthy) logger.warn("Replica " + endpoint.uri + " is not available: " + e.getMessage());
+        }
+        if (healthy && !endpoint.healthy) logger.info("Replica " + endpoint.uri + " is available again");
+        endpoint.healthy = healthy;
+        return healthy;
+    }
+
+    /**
+     * Checks the replicas every given number of seconds in a daemon thread
+     */
+    public synchronized void startHealthChecks(int interval) {
+        if (healthChecker != null || replicas.isEmpty() || interval <= 0) return;
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-core-replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> replicas.forEach(this::check), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the health checks and closes the drivers of all the endpoints, the primary included
+     */
+    public synchronized void close() {
+        if (healthChecker != null) healthChecker.shutdownNow();
+        healthChecker = null;
+        for (Endpoint replica : replicas) replica.driver.close();
+        primary.driver.close();
+    }
+
+    public Endpoint getPrimary() {
+        return primary;
+    }
+
+    public List<Endpoint> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * One database: the primary or a read replica
+     */
+    public static class Endpoint {
+        private final String uri;
+        private final Driver driver;
+        private final boolean isPrimary;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private volatile boolean healthy = true;
+
+        public Endpoint(String uri, Driver driver, boolean isPrimary) {
+            this.uri = uri;
+            this.driver = driver;
+            this.isPrimary = isPrimary;
+        }
+
+        public String getURI() {
+            return uri;
+        }
+
+        public boolean isPrimary() {
+            return isPrimary;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        /**
+         * @return number of service calls in progress in this endpoint
+         */
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * @return number of service calls routed to this endpoint
+         */
+        public long getCalls() {
+            return calls.get();
+        }
+
+        @Override
+        public String toString() {
+            return uri;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.reactome.server.graph.config;
+
+import org.neo4j.ogm.driver.Driver;
+import org.neo4j.ogm.service.Components;
+import org.neo4j.ogm.service.DriverService;
+import org.neo4j.ogm.session.Neo4jSession;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SessionFactory opening every session against the database chosen by the ReplicaRouter (primary or read replica).
+ * Used by Neo4jConfig when read replicas have been specified in the DriverSettings.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class RoutingSessionFactory extends SessionFactory {
+
+    private final ReplicaRouter router;
+
+    public RoutingSessionFactory(DriverSettings settings, String... packages) {
+        super(settings.getConfiguration(), packages);
+
+        List<ReplicaRouter.Endpoint> replicas = new ArrayList<>();
+        for (DriverSettings replica : settings.getReplicaSettings()) {
+            Driver driver = DriverService.load(replica.getConfiguration().driverConfiguration());
+            replicas.add(new ReplicaRouter.Endpoint(replica.getURI(), driver, false));
+        }
+        ReplicaRouter.Endpoint primary = new ReplicaRouter.Endpoint(settings.getURI(), Components.driver(), true);
+        router = new ReplicaRouter(metaData(), primary, replicas, settings.getRoutingStrategy());
+        router.startHealthChecks(settings.getHealthCheckInterval());
+    }
+
+    @Override
+    public Session openSession() {
+        return new Neo4jSession(metaData(), router.getDriver());
+    }
+
+    @Override
+    public void close() {
+        try {
+            router.close();
+        } finally {
+            super.close();
+        }
+    }
+
+    public ReplicaRouter getRouter() {
+        return router;
+    }
+}
@@ -0,0 +1,122 @@
+package org.reactome.server.graph.config;
+
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit of work bound to the current thread. Outside a scope, every call to the Session provided by Neo4jConfig opens
+ * a new OGM session, so nothing is shared between two queries. Within a scope, all the queries executed by the thread
+ * share one session (and its identity map), so objects already mapped are not hydrated again, and the session is
+ * discarded once the scope is closed:
+ * <p>
+ * <code>
+ * try (SessionScope scope = SessionScope.open()) {
+ * ...
+ * }
+ * </code>
+ * <p>
+ * Scopes opened within another one join it. One scope per service call can also be opened automatically (see
+ * SessionScopeAspect). Sessions are opened lazily, one per database when read replicas are used.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class SessionScope implements AutoCloseable {
+
+    private static final ThreadLocal<SessionScope> current = new ThreadLocal<>();
+
+    private final Map<Object, Session> sessions = new HashMap<>();
+
+    private SessionScope() {
+    }
+
+    /**
+     * @return a new scope for the current thread or a reference to the current one if there is already one open
+     */
+    public static SessionScope open() {
+        SessionScope scope = current.get();
+        if (scope != null) return new Joined(scope);
+        current.set(scope = new SessionScope());
+        return scope;
+    }
+
+    /**
+     * @return the scope of the current thread or null if there is none
+     */
+    public static SessionScope current() {
+        return current.get();
+    }
+
+    /**
+     * Detaches the scope of the current thread (if any) until the returned object is closed, so the queries executed
+     * meanwhile get sessions of their own and the objects they map are not merged with the ones of the scope:
+     * <p>
+     * <code>
+     * try (SessionScope.Suspension ignored = SessionScope.suspend()) {
+     * ...
+     * }
+     * </code>
+     */
+    public static Suspension suspend() {
+        SessionScope scope = current.get();
+        if (scope != null) current.remove();
+        return new Suspension(scope);
+    }
+
+    /**
+     * @return the session of this scope for the database the given factory points to at the moment
+     */
+    public Session getSession(SessionFactory sessionFactory) {
+        Object key = sessionFactory;
+        if (sessionFactory instanceof RoutingSessionFactory) {
+            key = ((RoutingSessionFactory) sessionFactory).getRouter().getDriver();
+        }
+        Session session = sessions.get(key);
+        if (session == null) sessions.put(key, session = sessionFactory.openSession());
+        return session;
+    }
+
+    @Override
+    public void close() {
+        sessions.clear();
+        current.remove();
+    }
+
+    /**
+     * Binds the suspended scope (if any) back to the thread when closed
+     */
+    public static class Suspension implements AutoCloseable {
+        private final SessionScope scope;
+
+        private Suspension(SessionScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public void close() {
+            if (scope != null) current.set(scope);
+        }
+    }
+
+    /**
+     * A scope opened within another one. Closing it does not affect the outer one
+     */
+    private static class Joined extends SessionScope {
+        private final SessionScope scope;
+
+        private Joined(SessionScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public Session getSession(SessionFactory sessionFactory) {
+            return scope.getSession(sessionFactory);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -7,16 +7,15 @@ import io.swagger.annotations.ApiModelProperty;
 import org.neo4j.ogm.annotation.GraphId;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Relationship;
+import org.reactome.server.graph.aop.LazyFetchBatch;
+import org.reactome.server.graph.aop.ModelWalker;
+import org.reactome.server.graph.aop.SortingState;
 import org.reactome.server.graph.domain.annotations.ReactomeProperty;
 import org.reactome.server.graph.domain.annotations.ReactomeSchemaIgnore;
 import org.reactome.server.graph.domain.annotations.ReactomeTransient;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.util.Collection;
 
 /**
  * DatabaseObject contains the minimum fields used to define an instance of an Reactome entry
@@ -38,6 +37,14 @@ public abstract class DatabaseObject implements Serializable, Comparable<Databas
     @ReactomeTransient
     public transient boolean preventLazyLoading = false;
 
+    @ReactomeTransient
+    @JsonIgnore
+    public transient LazyFetchBatch lazyFetchBatch = null;
+
+    @ReactomeTransient
+    @JsonIgnore
+    public transient SortingState sortingState = null;
+
     @JsonIgnore
     @GraphId
     private Long id;
@@ -186,49 +193,22 @@ public abstract class DatabaseObject implements Serializable, Comparable<Databas
         return preventLazyLoading(true);
     }
 
-    @SuppressWarnings({"unchecked", "WeakerAccess", "UnusedReturnValue"})
+    @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
     @ReactomeSchemaIgnore
     @JsonIgnore
     public <T extends DatabaseObject> T preventLazyLoading(boolean preventLazyLoading) {
-        if(this.preventLazyLoading == preventLazyLoading) return (T) this;
-
-        this.preventLazyLoading = preventLazyLoading;
-
-        //Here we go through all the getters and prevent LazyLoading for all the objects
-        Method[] methods = getClass().getMethods();
-        for (Method method : methods) {
-            if (!method.getName().startsWith("get")) continue;
-            try {
-                Class<?> methodReturnClazz = method.getReturnType();
-
-                if (DatabaseObject.class.isAssignableFrom(methodReturnClazz)) {
-                    DatabaseObject object = (DatabaseObject) method.invoke(this);
-                    if (object != null && object.preventLazyLoading != preventLazyLoading) {
-                        object.preventLazyLoading(preventLazyLoading);
-                    }
-                }
-
-                if (Collection.class.isAssignableFrom(methodReturnClazz)) {
-                    ParameterizedType stringListType = (ParameterizedType) method.getGenericReturnType();
-                    Class<?> type = (Class<?>) stringListType.getActualTypeArguments()[0];
-                    String clazz = type.getSimpleName();
-                    if (DatabaseObject.class.isAssignableFrom(type)) {
-                        Collection collection = (Collection) method.invoke(this);
-                        if (collection != null) {
-                            for (Object obj : collection) {
-                                DatabaseObject object = (DatabaseObject) obj;
-                                if (object != null && object.preventLazyLoading != preventLazyLoading) {
-                                    object.preventLazyLoading(preventLazyLoading);
-                                }
-                            }
-                        }
-                    }
-                }
-
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                e.printStackTrace();
-            }
-        }
+        return preventLazyLoading(preventLazyLoading, ModelWalker.getMaxDepth());
+    }
+
+    /**
+     * Sets the lazy loading flag of this object and the ones reachable from it, up to the given number of levels
+     */
+    @SuppressWarnings({"unchecked", "WeakerAccess", "UnusedReturnValue"})
+    @ReactomeSchemaIgnore
+    @JsonIgnore
+    public <T extends DatabaseObject> T preventLazyLoading(boolean preventLazyLoading, int maxDepth) {
+        if (this.preventLazyLoading == preventLazyLoading) return (T) this;
+        ModelWalker.preventLazyLoading(this, preventLazyLoading, maxDepth);
         return (T) this;
     }
 }
@@ -2,6 +2,7 @@ package org.reactome.server.graph.domain.result;
 
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -12,7 +13,7 @@ import java.util.*;
  */
 @SuppressWarnings("unused")
 @QueryResult
-public class ComponentOf {
+public class ComponentOf implements Serializable {
 
     private String type;
     private List<String> names;
@@ -2,6 +2,7 @@ package org.reactome.server.graph.domain.result;
 
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 /**
@@ -14,7 +15,7 @@ import java.util.Collection;
  */
 @SuppressWarnings("unused")
 @QueryResult
-public class Participant {
+public class Participant implements Serializable {
 
     private Long peDbId;
     private String displayName;
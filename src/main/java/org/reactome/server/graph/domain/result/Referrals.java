@@ -3,6 +3,7 @@ package org.reactome.server.graph.domain.result;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -10,7 +11,7 @@ import java.util.List;
  */
 @SuppressWarnings("unused")
 @QueryResult
-public class Referrals {
+public class Referrals implements Serializable {
 
     private String referral;
 
@@ -2,6 +2,7 @@ package org.reactome.server.graph.domain.result;
 
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 /**
@@ -14,7 +15,7 @@ import java.util.Collection;
  */
 @SuppressWarnings("unused")
 @QueryResult
-public class SchemaClassCount {
+public class SchemaClassCount implements Serializable {
 
     private int count;
     private Collection<String> labels;
@@ -3,6 +3,7 @@ package org.reactome.server.graph.domain.result;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 /**
@@ -10,7 +11,7 @@ import java.util.Collection;
  */
 @SuppressWarnings("unused")
 @QueryResult
-public class SimpleDatabaseObject {
+public class SimpleDatabaseObject implements Serializable {
 
     private Long dbId;
 
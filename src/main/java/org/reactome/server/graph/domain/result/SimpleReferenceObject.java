@@ -2,6 +2,8 @@ package org.reactome.server.graph.domain.result;
 
 import org.springframework.data.neo4j.annotation.QueryResult;
 
+import java.io.Serializable;
+
 /**
  * Created by:
  *
@@ -10,7 +12,7 @@ import org.springframework.data.neo4j.annotation.QueryResult;
  */
 @QueryResult
 @SuppressWarnings("unused")
-public class SimpleReferenceObject {
+public class SimpleReferenceObject implements Serializable {
 
     private Long dbId;
     private String identifier;
@@ -0,0 +1,14 @@
+package org.reactome.server.graph.exception;
+
+/**
+ * Thrown by the lazy loading when the number of queries in a scope exceeds the threshold of the LazyLoadDetector
+ * (only when it has been configured to fail)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LazyLoadThresholdException extends RuntimeException {
+
+    public LazyLoadThresholdException(String message) {
+        super(message);
+    }
+}
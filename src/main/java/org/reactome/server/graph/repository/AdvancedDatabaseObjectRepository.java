@@ -1,23 +1,22 @@
 package org.reactome.server.graph.repository;
 
 import jodd.typeconverter.TypeConverterManager;
-import org.apache.commons.lang3.ArrayUtils;
 import org.neo4j.ogm.model.Result;
+import org.reactome.server.graph.aop.SortingAspect;
+import org.reactome.server.graph.config.SessionScope;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.exception.CustomQueryException;
+import org.reactome.server.graph.repository.util.CustomObjectMapper;
 import org.reactome.server.graph.repository.util.RepositoryUtils;
+import org.reactome.server.graph.service.helper.FetchPlan;
 import org.reactome.server.graph.service.helper.RelationshipDirection;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.template.Neo4jOperations;
 import org.springframework.stereotype.Repository;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
-
 /**
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
  * @author Guilherme Viteri (gviteri@ebi.ac.uk)
@@ -27,6 +26,9 @@ import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
 @Repository
 public class AdvancedDatabaseObjectRepository {
 
+    private static final String RELATIONSHIP_ORDER = "ORDER BY TYPE(r) ASC, r.order ASC";
+    private static final String DISPLAY_NAME_ORDER = "ORDER BY m.displayName ASC";
+
     @Autowired
     private Neo4jOperations neo4jTemplate;
 
@@ -74,7 +76,6 @@ public class AdvancedDatabaseObjectRepository {
         Map<String, Object> map = new HashMap<>();
         map.put("dbId", dbId);
         map.put("limit", limit);
-        neo4jTemplate.clear();
         Result result = neo4jTemplate.query(query, map, true);
         if (result != null && result.iterator().hasNext())
             return (T) result.iterator().next().get("n");
@@ -88,7 +89,6 @@ public class AdvancedDatabaseObjectRepository {
         Map<String, Object> map = new HashMap<>();
         map.put("stId", stId);
         map.put("limit", limit);
-        neo4jTemplate.clear();
         Result result = neo4jTemplate.query(query, map);
         if (result != null && result.iterator().hasNext())
             return (T) result.iterator().next().get("n");
@@ -125,6 +125,101 @@ public class AdvancedDatabaseObjectRepository {
         return null;
     }
 
+    // --------------------------------------- Fetch Plan Finder Methods -----------------------------------------------
+
+    public <T extends DatabaseObject> T findById(Long dbId, FetchPlan plan) {
+        String query = getFetchPlanQuery("MATCH (n:DatabaseObject{dbId:{dbId}}) ", plan);
+        Map<String, Object> map = new HashMap<>();
+        map.put("dbId", dbId);
+        return parseFetchPlanResult(queryOwnSession(query, map), plan);
+    }
+
+    public <T extends DatabaseObject> T findById(String stId, FetchPlan plan) {
+        String query = getFetchPlanQuery("MATCH (n:DatabaseObject{stId:{stId}}) ", plan);
+        Map<String, Object> map = new HashMap<>();
+        map.put("stId", stId);
+        return parseFetchPlanResult(queryOwnSession(query, map), plan);
+    }
+
+    /**
+     * Compiles the plan into one query. Every path of the plan (from the requested object to each one of the last
+     * steps) is matched in a different stage of the query and the relationships and nodes are collected before moving
+     * to the following one, so sibling branches of the plan are not multiplied with each other.
+     */
+    private String getFetchPlanQuery(String match, FetchPlan plan) {
+        StringBuilder query = new StringBuilder(match);
+        if (plan == null || plan.isEmpty()) return query.append("RETURN n").toString();
+
+        List<List<FetchPlan.Step>> paths = new ArrayList<>();
+        for (FetchPlan.Step step : plan.getSteps()) {
+            addFetchPlanPaths(new ArrayList<>(), step, paths);
+        }
+
+        int var = 0;
+        boolean first = true;
+        for (List<FetchPlan.Step> path : paths) {
+            StringJoiner rs = new StringJoiner(" + ", first ? "" : "rs + ", " AS rs");
+            StringJoiner ms = new StringJoiner(" + ", first ? "" : "ms + ", " AS ms");
+            String from = "n";
+            for (FetchPlan.Step step : path) {
+                addFetchPlanStep(query, from, step, ++var);
+                rs.add("COLLECT(DISTINCT r" + var + ")");
+                ms.add("COLLECT(DISTINCT m" + var + ")");
+                from = "m" + var;
+            }
+            query.append("WITH n, ").append(rs).append(", ").append(ms).append(" ");
+            first = false;
+        }
+        return query.append("RETURN n, rs, ms").toString();
+    }
+
+    private void addFetchPlanPaths(List<FetchPlan.Step> prefix, FetchPlan.Step step, List<List<FetchPlan.Step>> paths) {
+        List<FetchPlan.Step> path = new ArrayList<>(prefix);
+        path.add(step);
+        if (step.getChildren().isEmpty()) {
+            paths.add(path);
+        } else {
+            for (FetchPlan.Step child : step.getChildren()) {
+                addFetchPlanPaths(path, child, paths);
+            }
+        }
+    }
+
+    private void addFetchPlanStep(StringBuilder query, String from, FetchPlan.Step step, int var) {
+        String rel = "[r" + var + RepositoryUtils.getRelationshipAsString(step.getRelationships()) + "]";
+        switch (step.getDirection()) {
+            case OUTGOING:
+                query.append("OPTIONAL MATCH (").append(from).append(")-").append(rel).append("->(m").append(var).append(") ");
+                break;
+            case INCOMING:
+                query.append("OPTIONAL MATCH (").append(from).append(")<-").append(rel).append("-(m").append(var).append(") ");
+                break;
+            default: //UNDIRECTED
+                query.append("OPTIONAL MATCH (").append(from).append(")-").append(rel).append("-(m").append(var).append(") ");
+                break;
+        }
+    }
+
+    /**
+     * The objects mapped by the query are flagged below, so they cannot be the ones shared by a SessionScope (other
+     * callers within the scope would see their lazy loading disabled)
+     */
+    private Result queryOwnSession(String query, Map<String, Object> map) {
+        try (SessionScope.Suspension ignored = SessionScope.suspend()) {
+            return neo4jTemplate.query(query, map);
+        }
+    }
+
+    private <T extends DatabaseObject> T parseFetchPlanResult(Result result, FetchPlan plan) {
+        if (result == null || !result.iterator().hasNext()) return null;
+        T rtn = (T) result.iterator().next().get("n");
+        if (rtn != null && plan != null && plan.isPreventLazyLoading()) {
+            // The session only contains what the plan retrieved, so this flags the subgraph of the returned object
+            rtn.preventLazyLoading(true);
+        }
+        return rtn;
+    }
+
     // ---------------------- Methods with RelationshipDirection and Relationships -------------------------------------
 
     public <T extends DatabaseObject> T findById(Long dbId, RelationshipDirection direction) {
@@ -300,12 +395,7 @@ public class AdvancedDatabaseObjectRepository {
         }
         Map<String, Object> map = new HashMap<>();
         map.put("dbIds", dbIds);
-        Result result = neo4jTemplate.query(query, map);
-        Set<DatabaseObject> databaseObjects = new HashSet<>();
-        for (Map<String, Object> stringObjectMap : result) {
-            databaseObjects.add((DatabaseObject) stringObjectMap.get("n"));
-        }
-        return databaseObjects;
+        return distinctNodes(neo4jTemplate.query(query, map));
     }
 
     public Collection<DatabaseObject> findByStIds(Collection<String> stIds, RelationshipDirection direction, String... relationships) {
@@ -323,7 +413,13 @@ public class AdvancedDatabaseObjectRepository {
         }
         Map<String, Object> map = new HashMap<>();
         map.put("stIds", stIds);
-        Result result = neo4jTemplate.query(query, map);
+        return distinctNodes(neo4jTemplate.query(query, map));
+    }
+
+    /**
+     * @return the objects in the column "n" of the result without duplicates
+     */
+    private Collection<DatabaseObject> distinctNodes(Result result) {
         Set<DatabaseObject> databaseObjects = new HashSet<>();
         for (Map<String, Object> stringObjectMap : result) {
             databaseObjects.add((DatabaseObject) stringObjectMap.get("n"));
@@ -332,11 +428,11 @@ public class AdvancedDatabaseObjectRepository {
     }
 
     public Collection<DatabaseObject> findCollectionByRelationship(Long dbId, String clazz, Class<?> collectionClass, RelationshipDirection direction, String... relationships) {
-        Result result = queryRelationshipTypesByDbId(dbId, clazz, direction, relationships);
+        Result result = queryRelationshipTypesByDbId(dbId, clazz, direction, getCollectionOrder(), relationships);
 
         Collection<DatabaseObject> databaseObjects;
         if (collectionClass.getName().equals(Set.class.getName())) {
-            databaseObjects = new HashSet<>();
+            databaseObjects = new LinkedHashSet<>();
             //No need to check stoichiometry
             for (Map<String, Object> stringObjectMap : result) {
                 databaseObjects.add((DatabaseObject) stringObjectMap.get("m"));
@@ -354,30 +450,85 @@ public class AdvancedDatabaseObjectRepository {
     }
 
     public <T extends DatabaseObject> T findByRelationship(Long dbId, String clazz, RelationshipDirection direction, String... relationships) {
-        Result result = queryRelationshipTypesByDbId(dbId, clazz, direction, relationships);
+        Result result = queryRelationshipTypesByDbId(dbId, clazz, direction, RELATIONSHIP_ORDER, relationships);
 
         if (result != null && result.iterator().hasNext())
             return (T) result.iterator().next().get("m");
         return null;
     }
 
+    /**
+     * Batched version of findCollectionByRelationship. The relationship is queried for all the given dbIds at once
+     * and the result is grouped by the dbId of the object the relationship starts from.
+     *
+     * @return a map dbId -> collection. Objects without results for the relationship are not present in the map
+     */
+    public Map<Long, Collection<DatabaseObject>> findCollectionsByRelationship(Collection<Long> dbIds, String clazz, Class<?> collectionClass, RelationshipDirection direction, String... relationships) {
+        Result result = queryRelationshipTypesByDbIds(dbIds, clazz, direction, getCollectionOrder(), relationships);
+
+        boolean isSet = collectionClass.getName().equals(Set.class.getName());
+        Map<Long, Collection<DatabaseObject>> rtn = new HashMap<>();
+        for (Map<String, Object> stringObjectMap : result) {
+            Long dbId = ((Number) stringObjectMap.get("dbId")).longValue();
+            Collection<DatabaseObject> databaseObjects = rtn.get(dbId);
+            if (databaseObjects == null) {
+                databaseObjects = isSet ? new LinkedHashSet<>() : new ArrayList<>();
+                rtn.put(dbId, databaseObjects);
+            }
+            if (isSet) {
+                //No need to check stoichiometry
+                databaseObjects.add((DatabaseObject) stringObjectMap.get("m"));
+            } else {
+                //Here stoichiometry has to be taken into account
+                for (int i = 0; i < (int) stringObjectMap.get("n"); ++i) {
+                    databaseObjects.add((DatabaseObject) stringObjectMap.get("m"));
+                }
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * Batched version of findByRelationship. The relationship is queried for all the given dbIds at once.
+     *
+     * @return a map dbId -> object. Objects without results for the relationship are not present in the map
+     */
+    public Map<Long, DatabaseObject> findByRelationship(Collection<Long> dbIds, String clazz, RelationshipDirection direction, String... relationships) {
+        Result result = queryRelationshipTypesByDbIds(dbIds, clazz, direction, RELATIONSHIP_ORDER, relationships);
+
+        Map<Long, DatabaseObject> rtn = new HashMap<>();
+        for (Map<String, Object> stringObjectMap : result) {
+            Long dbId = ((Number) stringObjectMap.get("dbId")).longValue();
+            if (!rtn.containsKey(dbId)) rtn.put(dbId, (DatabaseObject) stringObjectMap.get("m"));
+        }
+        return rtn;
+    }
+
+    /**
+     * Collections are retrieved in the order the SortingAspect would give them when it has been asked to push the
+     * sorting into the queries, so it only has to check them
+     */
+    private static String getCollectionOrder() {
+        return SortingAspect.isSortInQuery() ? DISPLAY_NAME_ORDER : RELATIONSHIP_ORDER;
+    }
+
     /**
      * During the Lazy-Loading strategy, we need to query pointing to a relationship type and either gets back a single
      * DatabaseObject or a Collection of DatabaseObject.
      * This method queries the Graph and returns it as a Result object that will be parsed in the findByRelationship
      * and findCollectionByRelationship accordingly.
      */
-    private Result queryRelationshipTypesByDbId(Long dbId, String clazz, RelationshipDirection direction, String... relationships) {
+    private Result queryRelationshipTypesByDbId(Long dbId, String clazz, RelationshipDirection direction, String orderBy, String... relationships) {
         String query;
         switch (direction) {
             case OUTGOING:
-                query = "MATCH (:DatabaseObject{dbId:{dbId}})-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]->(m:" + clazz + ") RETURN m, r.stoichiometry AS n ORDER BY TYPE(r) ASC, r.order ASC";
+                query = "MATCH (:DatabaseObject{dbId:{dbId}})-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]->(m:" + clazz + ") RETURN m, r.stoichiometry AS n " + orderBy;
                 break;
             case INCOMING:
-                query = "MATCH (:DatabaseObject{dbId:{dbId}})<-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") RETURN m, r.stoichiometry AS n ORDER BY TYPE(r) ASC, r.order ASC";
+                query = "MATCH (:DatabaseObject{dbId:{dbId}})<-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") RETURN m, r.stoichiometry AS n " + orderBy;
                 break;
             default: //UNDIRECTED
-                query = "MATCH (:DatabaseObject{dbId:{dbId}})-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") RETURN m, r.stoichiometry AS n ORDER BY TYPE(r) ASC, r.order ASC";
+                query = "MATCH (:DatabaseObject{dbId:{dbId}})-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") RETURN m, r.stoichiometry AS n " + orderBy;
                 break;
         }
         Map<String, Object> map = new HashMap<>();
@@ -386,6 +537,29 @@ public class AdvancedDatabaseObjectRepository {
         return neo4jTemplate.query(query, map);
     }
 
+    /**
+     * Same as queryRelationshipTypesByDbId but for a group of objects. The dbId of the starting object is returned
+     * in each row, so the result can be split afterwards.
+     */
+    private Result queryRelationshipTypesByDbIds(Collection<Long> dbIds, String clazz, RelationshipDirection direction, String orderBy, String... relationships) {
+        String query;
+        switch (direction) {
+            case OUTGOING:
+                query = "MATCH (o:DatabaseObject)-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]->(m:" + clazz + ") WHERE o.dbId IN {dbIds} RETURN o.dbId AS dbId, m, r.stoichiometry AS n " + orderBy;
+                break;
+            case INCOMING:
+                query = "MATCH (o:DatabaseObject)<-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") WHERE o.dbId IN {dbIds} RETURN o.dbId AS dbId, m, r.stoichiometry AS n " + orderBy;
+                break;
+            default: //UNDIRECTED
+                query = "MATCH (o:DatabaseObject)-[r" + RepositoryUtils.getRelationshipAsString(relationships) + "]-(m:" + clazz + ") WHERE o.dbId IN {dbIds} RETURN o.dbId AS dbId, m, r.stoichiometry AS n " + orderBy;
+                break;
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("dbIds", dbIds);
+
+        return neo4jTemplate.query(query, map);
+    }
+
     // ----------------------------------------- Custom Query Methods --------------------------------------------------
 
     public <T> Collection<T> customQueryForObjects(Class<T> clazz, String query, Map<String, Object> parametersMap) throws CustomQueryException {
@@ -394,15 +568,11 @@ public class AdvancedDatabaseObjectRepository {
 
         Collection<T> instancesResult = new ArrayList<>();
         Result result = neo4jTemplate.query(query, parametersMap);
-        Field[] fields = getAllFields(clazz);
 
         try {
+            CustomObjectMapper<T> mapper = CustomObjectMapper.getMapper(clazz);
             for (Map<String, Object> stringObjectMap : result) {
-                T instance = clazz.newInstance();
-                for (Field field : fields) {
-                    setFields(instance, field, stringObjectMap);
-                }
-                instancesResult.add(instance);
+                instancesResult.add(mapper.map(stringObjectMap));
             }
         } catch (Throwable e) {
             throw new CustomQueryException(e);
@@ -416,16 +586,10 @@ public class AdvancedDatabaseObjectRepository {
             parametersMap = Collections.EMPTY_MAP;
 
         Result result = neo4jTemplate.query(query, parametersMap);
-        Field[] fields = getAllFields(clazz);
 
         try {
             if (result.iterator().hasNext()) {
-                Map<String, Object> stringObjectMap = result.iterator().next();
-                T instance = clazz.newInstance();
-                for (Field field : fields) {
-                    setFields(instance, field, stringObjectMap);
-                }
-                return instance;
+                return CustomObjectMapper.getMapper(clazz).map(result.iterator().next());
             }
         } catch (Throwable e) {
             throw new CustomQueryException(e);
@@ -541,118 +705,4 @@ public class AdvancedDatabaseObjectRepository {
             throw new CustomQueryException(e);
         }
     }
-
-    /**
-     * Neo4j results always return the Object (wrapper)
-     * as an Array (if it is collection). However if we are
-     * mapping an object which attribute is a int[] e.g then it
-     * does not 'boxing', then this method checks the type
-     * and return the proper Array of primitive .
-     */
-    private Object toPrimitiveArray(Object value, Class type) {
-        if (type == byte[].class) {
-            return ArrayUtils.toPrimitive((Byte[]) value);
-        } else if (type == short[].class) {
-            return ArrayUtils.toPrimitive((Short[]) value);
-        } else if (type == int[].class) {
-            return ArrayUtils.toPrimitive((Integer[]) value);
-        } else if (type == float[].class) {
-            return ArrayUtils.toPrimitive((Float[]) value);
-        } else if (type == double[].class) {
-            return ArrayUtils.toPrimitive((Double[]) value);
-        } else if (type == char[].class) {
-            return ArrayUtils.toPrimitive((Character[]) value);
-        } else if (type == long[].class) {
-            return ArrayUtils.toPrimitive((Long[]) value);
-        } else if (type == boolean[].class) {
-            return ArrayUtils.toPrimitive((Boolean[]) value);
-        }
-        // version 3.5 we can perform a single call like - return ArrayUtils.toPrimitive(value);
-        return null;
-    }
-
-    /**
-     * Method that uses Java Reflection in order to set the attributes of a specific instance.
-     * The attribute is handled in different ways depends on its type.
-     * The types are: Array of primitive, Collection of [String, Number, primitives and CustomObjects] and Custom Objects.
-     * A external type convert is used to convert the Result "stringObjectMap" once Neo4j returns
-     * an array of Integer for a list of number and we must be able to convert it to whatever type the final user
-     * has defined in his Custom Object. Obviously the type conversion is going to check the type compatibility.
-     * For that we use the jodd.TypeConverter and we are using Java Reflection for the Custom Objects - we manually instantiate
-     * them and recursively call the result list.
-     */
-    private <T> void setFields(T instance, Field field, Map<String, Object> stringObjectMap) throws Exception {
-        String fieldName = field.getName();
-        Object object = stringObjectMap.get(fieldName);
-        if (object != null) {
-            field.setAccessible(true);
-
-            // An array of primitives do not box automatically then we cast it manually using ArrayUtils and the attribute type
-            if (field.getType().isArray() && field.getType().getComponentType().isPrimitive()) {
-                field.set(instance, toPrimitiveArray(object, field.getType()));
-            } else if (Collection.class.isAssignableFrom(field.getType())) {
-                //The returned results are normally stored in an Array, then we need to convert in case the attribute is a Collection
-                ParameterizedType stringListType = (ParameterizedType) field.getGenericType();
-                Class<?> stringListClass = (Class<?>) stringListType.getActualTypeArguments()[0];
-
-                // Parametrised type is String and the convertToCollection is able to convert that
-                if (stringListClass.isAssignableFrom(String.class) || Number.class.isAssignableFrom(stringListClass) || stringListClass.isPrimitive()){
-                    //noinspection unchecked
-                    field.set(instance, TypeConverterManager.convertToCollection(object, (Class<? extends Collection>) field.getType(), stringListClass));
-                } else {
-                    // Parametrised type is a Custom Object so we have to create the list, create the objects
-                    // add them into the list and set attribute in the main class.
-                    Collection<T> customCollection;
-                    if (field.getType().isAssignableFrom(List.class)){
-                        customCollection = new ArrayList<>();
-                    } else if (field.getType().isAssignableFrom(Set.class)) {
-                        customCollection = new HashSet<>();
-                    } else {
-                        throw new Exception("Couldn't get the class name of the given collection [" + field.getType() + "]");
-                    }
-
-                    if (object instanceof Map[]) {
-                        // The object returned by Neo4j is an array of LinkedHashMap.
-                        LinkedHashMap<String, Object>[] allLinkedHashMap = (LinkedHashMap<String, Object>[]) object;
-                        Field[] fields = getAllFields(stringListClass);
-                        for (LinkedHashMap<String, Object> entry : allLinkedHashMap) {
-                            T customInstance = createAndPopulateObject(stringListClass, fields, entry);
-                            customCollection.add(customInstance);
-                        }
-                    }
-                    // set the list in the main class
-                    field.set(instance, customCollection);
-                }
-            } else if (field.getType().isAssignableFrom(String.class) || Number.class.isAssignableFrom(field.getType()) || field.getType().isArray()){
-                try {
-                    // The attribute is String, Number or an array we know how to convert
-                    field.set(instance, TypeConverterManager.convertType(object, field.getType()));
-                } catch (Exception ex){
-                    field.set(instance, null);
-                }
-            } else {
-                // The attribute is a Custom Object that needs to be instantiated.
-                Field[] customFields = getAllFields(field.getType());
-                T customInstance = createAndPopulateObject(field.getType(), customFields, (Map<String, Object>)object);
-                field.set(instance, customInstance);
-            }
-        }
-    }
-
-    /**
-     * This method is called in the setFields method which calls recursively in order to create and populate the objects themselves.
-     *
-     * @param clazz the class to be instantiate
-     * @param customFields attributes of given class
-     * @param object result map of the cypher query, key=String(name of attribute) value=object result of the given attribute
-     *
-     * @throws Exception in case we can't create new instances
-     */
-    private <T> T createAndPopulateObject(Class<?> clazz, Field[] customFields, Map<String, Object> object) throws Exception {
-        T customInstance = (T) clazz.newInstance();
-        for (Field customField : customFields) {
-            setFields(customInstance, customField, object);
-        }
-        return customInstance;
-    }
 }
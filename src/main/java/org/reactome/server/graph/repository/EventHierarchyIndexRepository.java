@@ -0,0 +1,101 @@
+package org.reactome.server.graph.repository;
+
+import org.neo4j.ogm.model.Result;
+import org.reactome.server.graph.domain.model.Event;
+import org.reactome.server.graph.service.helper.EventHierarchyIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.template.Neo4jOperations;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Retrieves the content of the EventHierarchyIndex of a given species. The graph is traversed level by level from
+ * the TopLevelPathways (one query per level), so the number of retrieved rows is proportional to the number of
+ * relationships instead of the number of paths.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Repository
+public class EventHierarchyIndexRepository {
+
+    private static final String RETURN_NODE = "n.dbId AS dbId, n.stId AS stId, n.displayName AS name, n.hasDiagram AS diagram, n.speciesName AS species, n.schemaClass AS type";
+
+    @Autowired
+    private Neo4jOperations neo4jTemplate;
+
+    public EventHierarchyIndex getEventHierarchyIndexByTaxId(String taxId) {
+        String query = "MATCH (:Species{taxId:{taxId}})<-[:species]-(n:TopLevelPathway) " +
+                       "RETURN " + RETURN_NODE;
+        Map<String, Object> map = new HashMap<>();
+        map.put("taxId", taxId);
+        return getEventHierarchyIndex(neo4jTemplate.query(query, map));
+    }
+
+    /**
+     * @return the taxId of the species with the given name or null if there is no such species
+     */
+    public String getTaxId(String speciesName) {
+        String query = "MATCH (s:Species{displayName:{speciesName}}) " +
+                       "RETURN s.taxId AS taxId LIMIT 1";
+        Map<String, Object> map = new HashMap<>();
+        map.put("speciesName", speciesName);
+        for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+            return (String) row.get("taxId");
+        }
+        return null;
+    }
+
+    public Map<Long, Event> getEventsByDbIds(Collection<Long> dbIds) {
+        String query = "MATCH (n:Event) WHERE n.dbId IN {dbIds} RETURN n";
+        Map<String, Object> map = new HashMap<>();
+        map.put("dbIds", dbIds);
+        Map<Long, Event> rtn = new HashMap<>();
+        for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+            Event event = (Event) row.get("n");
+            rtn.put(event.getDbId(), event);
+        }
+        return rtn;
+    }
+
+    private EventHierarchyIndex getEventHierarchyIndex(Result roots) {
+        EventHierarchyIndex.Builder builder = new EventHierarchyIndex.Builder();
+        Set<Long> frontier = new HashSet<>();
+        for (Map<String, Object> row : roots) {
+            Long dbId = addNode(builder, row);
+            if (dbId != null) frontier.add(dbId);
+            builder.addRoot(((Number) row.get("dbId")).longValue());
+        }
+        if (frontier.isEmpty()) return null;
+
+        String query = "MATCH (p:DatabaseObject)-[r:hasEvent|input|output|repeatedUnit|hasMember|hasCandidate|hasComponent]->(n:DatabaseObject) " +
+                       "WHERE p.dbId IN {dbIds} " +
+                       "RETURN p.dbId AS parent, TYPE(r) = 'hasEvent' AS event, " + RETURN_NODE;
+        while (!frontier.isEmpty()) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("dbIds", frontier);
+            Set<Long> next = new HashSet<>();
+            for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+                Long dbId = addNode(builder, row);
+                if (dbId != null) next.add(dbId);
+                builder.addRelationship(((Number) row.get("parent")).longValue(), ((Number) row.get("dbId")).longValue(), (Boolean) row.get("event"));
+            }
+            frontier = next;
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the dbId of the node if it has not been previously added, null otherwise
+     */
+    private Long addNode(EventHierarchyIndex.Builder builder, Map<String, Object> row) {
+        Long dbId = ((Number) row.get("dbId")).longValue();
+        boolean added = builder.addNode(dbId,
+                (String) row.get("stId"),
+                (String) row.get("name"),
+                (Boolean) row.get("diagram"),
+                (String) row.get("species"),
+                (String) row.get("type"));
+        return added ? dbId : null;
+    }
+}
@@ -6,16 +6,15 @@ import org.reactome.server.graph.domain.model.Event;
 import org.reactome.server.graph.domain.model.Pathway;
 import org.reactome.server.graph.domain.model.PhysicalEntity;
 import org.reactome.server.graph.service.helper.PathwayBrowserNode;
+import org.reactome.server.graph.service.util.LongHashMap;
+import org.reactome.server.graph.service.util.LongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.template.Neo4jOperations;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
@@ -25,9 +24,21 @@ public class HierarchyRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DetailsRepository.class);
 
+    private static final String LOCATIONS_RELATIONSHIPS = "regulatedBy|regulator|physicalEntity|requiredInputComponent|entityFunctionalStatus|activeUnit|catalystActivity|repeatedUnit|hasMember|hasCandidate|hasComponent|input|output|hasEvent";
+    private static final String DIRECT_PARTICIPANTS_RELATIONSHIPS = "regulatedBy|regulator|physicalEntity|catalystActivity|requiredInputComponent|entityFunctionalStatus|input|output|hasEvent";
+    private static final String SUB_HIERARCHY_RELATIONSHIPS = "hasEvent|input|output|repeatedUnit|hasMember|hasCandidate|hasComponent";
+    private static final String EVENT_HIERARCHY_RELATIONSHIPS = "hasEvent";
+
     @Autowired
     private Neo4jOperations neo4jTemplate;
 
+    /**
+     * When enabled, the hierarchies are retrieved as the distinct set of (parent, child) relationships plus the
+     * attributes of every node, instead of every path from the root (which grows combinatorially in the graph).
+     * Disabled by default, so the consumers keep the path queries until they opt in
+     */
+    private boolean edgeListMode = false;
+
     // -------------------------------- Locations in the Pathway Browser -----------------------------------------------
 
     /**
@@ -36,11 +47,13 @@ public class HierarchyRepository {
      * @return a PathwayBrowserNode.
      */
     public PathwayBrowserNode getLocationsInPathwayBrowser(String stId, Boolean omitNonDisplayableItems) {
+        if (edgeListMode) return getHierarchy(getRoot("stId", stId), LOCATIONS_RELATIONSHIPS, true, omitNonDisplayableItems);
         Result result = getLocationsInPathwayBrowserByStIdRaw(stId);
         return parseResult(result, omitNonDisplayableItems);
     }
 
     public PathwayBrowserNode getLocationsInPathwayBrowser(Long dbId, Boolean omitNonDisplayableItems) {
+        if (edgeListMode) return getHierarchy(getRoot("dbId", dbId), LOCATIONS_RELATIONSHIPS, true, omitNonDisplayableItems);
         Result result = getLocationsInPathwayBrowserByDbIdRaw(dbId);
         return parseResult(result, omitNonDisplayableItems);
     }
@@ -51,11 +64,13 @@ public class HierarchyRepository {
      * @return a PathwayBrowserNode.
      */
     public PathwayBrowserNode getLocationsInPathwayBrowserDirectParticipants(String stId, Boolean omitNonDisplayableItems) {
+        if (edgeListMode) return getHierarchy(getRoot("stId", stId), DIRECT_PARTICIPANTS_RELATIONSHIPS, true, omitNonDisplayableItems);
         Result result = getLocationsInPathwayBrowserForInteractorByStIdRaw(stId);
         return parseResult(result, omitNonDisplayableItems);
     }
 
     public PathwayBrowserNode getLocationsInPathwayBrowserDirectParticipants(Long dbId, Boolean omitNonDisplayableItems) {
+        if (edgeListMode) return getHierarchy(getRoot("dbId", dbId), DIRECT_PARTICIPANTS_RELATIONSHIPS, true, omitNonDisplayableItems);
         Result result = getLocationsInPathwayBrowserForInteractorByDbIdRaw(dbId);
         return parseResult(result, omitNonDisplayableItems);
     }
@@ -63,11 +78,13 @@ public class HierarchyRepository {
     // --------------------------------------------- Sub Hierarchy -----------------------------------------------------
 
     public PathwayBrowserNode getSubHierarchy(String stId) {
+        if (edgeListMode) return getHierarchy(getRoot("stId", stId), SUB_HIERARCHY_RELATIONSHIPS, false, false);
         Result result = getSubHierarchyByStIdRaw(stId);
         return parseResult(result, false);
     }
 
     public PathwayBrowserNode getSubHierarchy(Long dbId) {
+        if (edgeListMode) return getHierarchy(getRoot("dbId", dbId), SUB_HIERARCHY_RELATIONSHIPS, false, false);
         Result result = getSubHierarchyByDbIdRaw(dbId);
         return parseResult(result, false);
     }
@@ -75,15 +92,212 @@ public class HierarchyRepository {
     // ------------------------------------------- Event Hierarchy -----------------------------------------------------
 
     public Collection<PathwayBrowserNode> getEventHierarchyBySpeciesName(String speciesName) {
+        if (edgeListMode) return getEventHierarchy(getTopLevelPathwaysBySpeciesNameRaw(speciesName));
         Result result = getEventHierarchyBySpeciesNameRaw(speciesName);
         return parseResults(result, false);
     }
 
     public Collection<PathwayBrowserNode> getEventHierarchyByTaxId(String taxId) {
+        if (edgeListMode) return getEventHierarchy(getTopLevelPathwaysByTaxIdRaw(taxId));
         Result result = getEventHierarchyByTaxIdRaw(taxId);
         return parseResults(result, false);
     }
 
+    public boolean isEdgeListMode() {
+        return edgeListMode;
+    }
+
+    public void setEdgeListMode(boolean edgeListMode) {
+        this.edgeListMode = edgeListMode;
+    }
+
+    // ------------------------------------------- Edge List Mode ------------------------------------------------------
+
+    private PathwayBrowserNode getHierarchy(DatabaseObject root, String relationships, boolean incoming, Boolean omitNonDisplayableItems) {
+        if (root == null) return null;
+        HierarchyGraph graph = getHierarchyGraph(Collections.singleton(root.getDbId()), relationships, incoming);
+        return buildTree(createNode(root), root.getDbId(), graph, omitNonDisplayableItems);
+    }
+
+    private Collection<PathwayBrowserNode> getEventHierarchy(Result result) {
+        List<DatabaseObject> roots = new ArrayList<>();
+        for (Map<String, Object> row : result) {
+            roots.add((DatabaseObject) row.get("n"));
+        }
+        if (roots.isEmpty()) return null;
+
+        Set<Long> dbIds = new HashSet<>();
+        for (DatabaseObject root : roots) dbIds.add(root.getDbId());
+        HierarchyGraph graph = getHierarchyGraph(dbIds, EVENT_HIERARCHY_RELATIONSHIPS, false);
+
+        Collection<PathwayBrowserNode> eventHierarchy = new ArrayList<>();
+        for (DatabaseObject root : roots) {
+            // TopLevelPathways without events are not part of the hierarchy
+            if (graph.getChildren(root.getDbId()).isEmpty()) continue;
+            eventHierarchy.add(buildTree(createNode(root), root.getDbId(), graph, false));
+        }
+        return eventHierarchy.isEmpty() ? null : eventHierarchy;
+    }
+
+    /**
+     * Retrieves the graph under the given roots level by level, so every relationship is retrieved only once
+     * no matter the number of paths going through it.
+     *
+     * @param incoming true to follow the relationships from the end node to the start node
+     */
+    private HierarchyGraph getHierarchyGraph(Collection<Long> roots, String relationships, boolean incoming) {
+        String pattern = incoming ? "(p:DatabaseObject)<-[:%s]-(n:DatabaseObject)" : "(p:DatabaseObject)-[:%s]->(n:DatabaseObject)";
+        String query = "MATCH " + String.format(pattern, relationships) + " " +
+                       "WHERE p.dbId IN {dbIds} " +
+                       "RETURN DISTINCT p.dbId AS parent, n.dbId AS dbId, n.stId AS stId, n.displayName AS name, n.hasDiagram AS diagram, n.speciesName AS species, n.schemaClass AS type";
+        HierarchyGraph graph = new HierarchyGraph();
+        LongHashSet visited = new LongHashSet(roots.size());
+        for (Long root : roots) visited.add(root);
+        Collection<Long> frontier = roots;
+        while (!frontier.isEmpty()) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("dbIds", frontier);
+            List<Long> next = new ArrayList<>();
+            for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+                long parent = ((Number) row.get("parent")).longValue();
+                long child = ((Number) row.get("dbId")).longValue();
+                graph.addRelationship(parent, child, row);
+                if (visited.add(child)) next.add(child);
+            }
+            frontier = next;
+        }
+        return graph;
+    }
+
+    /**
+     * Builds the tree in linear time processing the nodes in topological order (a node is processed once all its
+     * parents have been processed). Non displayable items are not linked in the tree, so their children are linked
+     * to the closest displayable ancestors instead.
+     * <p>
+     * Nodes on a cycle never get all their parents processed, so once there is nothing else to process, one of them
+     * (already linked to a processed parent) is processed anyway and the cycle is linked as the path queries did.
+     */
+    private PathwayBrowserNode buildTree(PathwayBrowserNode root, long rootDbId, HierarchyGraph graph, Boolean omitNonDisplayableItems) {
+        // In-degree of every node taking into account only the part of the graph under the root
+        LongHashMap<Integer> inDegree = new LongHashMap<>();
+        inDegree.put(rootDbId, 0);
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.push(rootDbId);
+        while (!pending.isEmpty()) {
+            LongHashSet children = graph.getChildren(pending.pop());
+            for (int i = 0; i < children.size(); i++) {
+                long child = children.keyAt(i);
+                Integer degree = inDegree.get(child);
+                if (degree == null) pending.push(child);
+                inDegree.put(child, degree == null ? 1 : degree + 1);
+            }
+        }
+
+        LongHashMap<PathwayBrowserNode> nodes = new LongHashMap<>(inDegree.size());
+        // The displayable nodes where the children of a given node have to be linked
+        LongHashMap<Set<PathwayBrowserNode>> linkTo = new LongHashMap<>(inDegree.size());
+        linkTo.put(rootDbId, Collections.singleton(root));
+        LongHashSet processed = new LongHashSet(inDegree.size());
+        pending.push(rootDbId);
+        while (!pending.isEmpty() || pushCycle(inDegree, linkTo, processed, pending)) {
+            long parent = pending.pop();
+            processed.add(parent);
+            Set<PathwayBrowserNode> parents = linkTo.get(parent);
+            LongHashSet children = graph.getChildren(parent);
+            for (int i = 0; i < children.size(); i++) {
+                long child = children.keyAt(i);
+                PathwayBrowserNode node = nodes.get(child);
+                if (node == null) {
+                    node = createNode(graph.getNode(child));
+                    nodes.put(child, node);
+                }
+                if (!omitNonDisplayableItems || isDisplayable(node)) {
+                    for (PathwayBrowserNode p : parents) {
+                        p.addChild(node);
+                        node.addParent(p);
+                    }
+                    linkTo.put(child, Collections.singleton(node));
+                } else {
+                    Set<PathwayBrowserNode> aux = linkTo.get(child);
+                    if (aux == null) linkTo.put(child, aux = Collections.newSetFromMap(new IdentityHashMap<>()));
+                    aux.addAll(parents);
+                }
+                int degree = inDegree.get(child) - 1;
+                inDegree.put(child, degree);
+                if (degree == 0 && !processed.contains(child)) pending.push(child);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Pushes a node on a cycle that has not been processed yet but is already linked to a processed parent
+     *
+     * @return true if there was one
+     */
+    private boolean pushCycle(LongHashMap<Integer> inDegree, LongHashMap<Set<PathwayBrowserNode>> linkTo, LongHashSet processed, Deque<Long> pending) {
+        for (int i = 0; i < inDegree.size(); i++) {
+            long dbId = inDegree.keyAt(i);
+            if (inDegree.valueAt(i) > 0 && !processed.contains(dbId) && linkTo.containsKey(dbId)) {
+                logger.warn("Cycle found in the hierarchy at node " + dbId);
+                pending.push(dbId);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DatabaseObject getRoot(String property, Object value) {
+        String query = "MATCH (n:DatabaseObject{" + property + ":{value}}) RETURN n";
+        Map<String, Object> map = new HashMap<>();
+        map.put("value", value);
+        Result result = neo4jTemplate.query(query, map);
+        if (result != null && result.iterator().hasNext()) {
+            return (DatabaseObject) result.iterator().next().get("n");
+        }
+        return null;
+    }
+
+    private Result getTopLevelPathwaysBySpeciesNameRaw(String speciesName) {
+        String query = "MATCH (n:TopLevelPathway{speciesName:{speciesName}}) RETURN n";
+        Map<String, Object> map = new HashMap<>();
+        map.put("speciesName", speciesName);
+        return neo4jTemplate.query(query, map);
+    }
+
+    private Result getTopLevelPathwaysByTaxIdRaw(String taxId) {
+        String query = "MATCH (s:Species{taxId:{taxId}})<-[:species]-(n:TopLevelPathway) RETURN n";
+        Map<String, Object> map = new HashMap<>();
+        map.put("taxId", taxId);
+        return neo4jTemplate.query(query, map);
+    }
+
+    /**
+     * Distinct relationships (parent to children) of a hierarchy and the attributes of the nodes
+     */
+    private static class HierarchyGraph {
+
+        private static final LongHashSet NO_CHILDREN = new LongHashSet(4);
+
+        private final LongHashMap<Map<String, Object>> nodes = new LongHashMap<>();
+        private final LongHashMap<LongHashSet> children = new LongHashMap<>();
+
+        void addRelationship(long parent, long child, Map<String, Object> attributes) {
+            nodes.putIfAbsent(child, attributes);
+            LongHashSet aux = children.get(parent);
+            if (aux == null) children.put(parent, aux = new LongHashSet(4));
+            aux.add(child);
+        }
+
+        LongHashSet getChildren(long parent) {
+            LongHashSet aux = children.get(parent);
+            return aux != null ? aux : NO_CHILDREN;
+        }
+
+        Map<String, Object> getNode(long dbId) {
+            return nodes.get(dbId);
+        }
+    }
 
     /**
      * Build Locations in the Pathway Browser of a given query Result.
@@ -154,7 +368,7 @@ public class HierarchyRepository {
         /**
          * We do not link them in the Tree.
          */
-        if (!omitNonDisplayableItems || (!node.getType().equals("CatalystActivity") && !node.getType().contains("Regulation") && !node.getType().equals("Requirement") && !node.getType().equals("EntityFunctionalStatus"))) {
+        if (!omitNonDisplayableItems || isDisplayable(node)) {
             previous.addChild(node);
             node.addParent(previous);
             previous = node;
@@ -181,6 +395,26 @@ public class HierarchyRepository {
         return node;
     }
 
+    private boolean isDisplayable(PathwayBrowserNode node) {
+        return !node.getType().equals("CatalystActivity") && !node.getType().contains("Regulation") && !node.getType().equals("Requirement") && !node.getType().equals("EntityFunctionalStatus");
+    }
+
+    /**
+     * Create a node based on the attributes retrieved in the edge list mode
+     */
+    private PathwayBrowserNode createNode(Map<String, Object> attributes) {
+        PathwayBrowserNode node = new PathwayBrowserNode();
+        node.setStId((String) attributes.get("stId"));
+        node.setName((String) attributes.get("name"));
+        node.setDiagram((Boolean) attributes.get("diagram"));
+        node.setSpecies((String) attributes.get("species"));
+        node.setType((String) attributes.get("type"));
+
+        doHighlighting(node);
+
+        return node;
+    }
+
     private PathwayBrowserNode createNode(DatabaseObject databaseObject) {
         PathwayBrowserNode node = new PathwayBrowserNode();
         node.setStId(databaseObject.getStId());
@@ -0,0 +1,130 @@
+package org.reactome.server.graph.repository;
+
+import org.reactome.server.graph.domain.model.Pathway;
+import org.reactome.server.graph.service.helper.IdentifierPathwayIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.template.Neo4jOperations;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Retrieves the content of the IdentifierPathwayIndex. The participants graph is traversed level by level starting
+ * from the reactions and the queries are split in chunks, so no query has to deal with the whole content at once.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Repository
+public class IdentifierPathwayIndexRepository {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Autowired
+    private Neo4jOperations neo4jTemplate;
+
+    /**
+     * @param taxId the species of the pathways or null for all of them
+     */
+    public IdentifierPathwayIndex getIdentifierPathwayIndex(String taxId) {
+        IdentifierPathwayIndex.Builder builder = new IdentifierPathwayIndex.Builder();
+
+        String query = taxId == null ?
+                "MATCH (p:Pathway)-[:hasEvent]->(rle:ReactionLikeEvent) " +
+                "RETURN rle.dbId AS reaction, p.dbId AS pathway" :
+                "MATCH (:Species{taxId:{taxId}})<-[:species]-(p:Pathway)-[:hasEvent]->(rle:ReactionLikeEvent) " +
+                "RETURN rle.dbId AS reaction, p.dbId AS pathway";
+        Map<String, Object> map = new HashMap<>();
+        map.put("taxId", taxId);
+        Set<Long> frontier = new HashSet<>();
+        for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+            Long reaction = ((Number) row.get("reaction")).longValue();
+            builder.addReaction(reaction, ((Number) row.get("pathway")).longValue());
+            frontier.add(reaction);
+        }
+
+        query = "MATCH (a:DatabaseObject)-[:regulatedBy|regulator|physicalEntity|entityFunctionalStatus|catalystActivity|hasMember|hasCandidate|hasComponent|repeatedUnit|input|output]->(b:DatabaseObject) " +
+                "WHERE a.dbId IN {dbIds} " +
+                "RETURN DISTINCT a.dbId AS parent, b.dbId AS child, b:PhysicalEntity AS pe";
+        Set<Long> visited = new HashSet<>(frontier);
+        Set<Long> physicalEntities = new HashSet<>();
+        while (!frontier.isEmpty()) {
+            Set<Long> next = new HashSet<>();
+            for (Collection<Long> chunk : split(frontier)) {
+                map = new HashMap<>();
+                map.put("dbIds", chunk);
+                for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+                    Long child = ((Number) row.get("child")).longValue();
+                    builder.addRelationship(((Number) row.get("parent")).longValue(), child);
+                    if (Boolean.TRUE.equals(row.get("pe"))) physicalEntities.add(child);
+                    if (visited.add(child)) next.add(child);
+                }
+            }
+            frontier = next;
+        }
+
+        query = "MATCH (pe:PhysicalEntity) " +
+                "WHERE pe.dbId IN {dbIds} " +
+                "OPTIONAL MATCH (pe)-[:referenceEntity|referenceSequence|crossReference|referenceGene*]->(n)-->(:ReferenceDatabase) " +
+                "RETURN pe.dbId AS dbId, pe.stId AS stId, COLLECT(DISTINCT n.identifier) AS identifiers, COLLECT(n.name) AS names, COLLECT(n.geneName) AS geneNames";
+        for (Collection<Long> chunk : split(physicalEntities)) {
+            map = new HashMap<>();
+            map.put("dbIds", chunk);
+            for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+                Long dbId = ((Number) row.get("dbId")).longValue();
+                builder.addIdentifier((String) row.get("stId"), dbId);
+                for (String identifier : flatten(row.get("identifiers"), row.get("names"), row.get("geneNames"))) {
+                    builder.addIdentifier(identifier, dbId);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public Map<Long, Pathway> getPathwaysByDbIds(Collection<Long> dbIds) {
+        String query = "MATCH (p:Pathway) WHERE p.dbId IN {dbIds} RETURN p";
+        Map<Long, Pathway> rtn = new HashMap<>();
+        for (Collection<Long> chunk : split(dbIds)) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("dbIds", chunk);
+            for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+                Pathway pathway = (Pathway) row.get("p");
+                rtn.put(pathway.getDbId(), pathway);
+            }
+        }
+        return rtn;
+    }
+
+    private static List<Collection<Long>> split(Collection<Long> dbIds) {
+        List<Collection<Long>> chunks = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>(Math.min(CHUNK_SIZE, dbIds.size()));
+        for (Long dbId : dbIds) {
+            chunk.add(dbId);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * Names and gene names are arrays, so the collected values might be nested
+     */
+    private static Set<String> flatten(Object... values) {
+        Set<String> rtn = new HashSet<>();
+        Deque<Object> pending = new ArrayDeque<>();
+        for (Object value : values) if (value != null) pending.add(value);
+        while (!pending.isEmpty()) {
+            Object value = pending.pop();
+            if (value instanceof Object[]) {
+                for (Object o : (Object[]) value) if (o != null) pending.add(o);
+            } else if (value instanceof Iterable) {
+                for (Object o : (Iterable) value) if (o != null) pending.add(o);
+            } else {
+                rtn.add(value.toString());
+            }
+        }
+        return rtn;
+    }
+}
@@ -84,6 +84,28 @@ public class SchemaRepository {
     }
 
 
+    // ------------------------------------ Query by Class (keyset paging) -----------------------------------------
+
+    public <T> Collection<T> getByClassAfter(Class<T> clazz, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN n ORDER BY n.displayName, n.dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        return (Collection<T>) neo4jTemplate.queryForObjects(clazz, query, map);
+    }
+
+    public <T> Collection<T> getByClassAndSpeciesTaxIdAfter(Class<T> clazz, String taxId, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (s:Species{taxId:{taxId}})<-[:species]-(n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN n ORDER BY n.displayName, n.dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        map.put("taxId", taxId);
+        return (Collection<T>) neo4jTemplate.queryForObjects(clazz, query, map);
+    }
+
+    public <T> Collection<T> getByClassAndSpeciesNameAfter(Class<T> clazz, String speciesName, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (s:Species{displayName:{speciesName}})<-[:species]-(n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN n ORDER BY n.displayName, n.dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        map.put("speciesName", speciesName);
+        return (Collection<T>) neo4jTemplate.queryForObjects(clazz, query, map);
+    }
+
     // ---------------------------------------- Query by Class for SimpleObject ------------------------------------------------
 
     public Collection<SimpleDatabaseObject> getSimpleDatabaseObjectByClass(Class clazz) {
@@ -139,6 +161,31 @@ public class SchemaRepository {
         return parseResult(result);
     }
 
+    // ---------------------------------------- Query by Class for SimpleObject (keyset paging) ------------------------------------------------
+
+    public Collection<SimpleDatabaseObject> getSimpleDatabaseObjectByClassAfter(Class clazz, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN Distinct(n.dbId) as dbId, n.stId as stId, n.displayName as displayName, labels(n) as labels ORDER BY displayName, dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        Result result = neo4jTemplate.query(query, map);
+        return parseResult(result);
+    }
+
+    public Collection<SimpleDatabaseObject> getSimpleDatabaseObjectByClassAndSpeciesTaxIdAfter(Class clazz, String taxId, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (s:Species{taxId:{taxId}})<-[:species]-(n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN Distinct(n.dbId) as dbId, n.stId as stId, n.displayName as displayName, labels(n) as labels ORDER BY displayName, dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        map.put("taxId", taxId);
+        Result result = neo4jTemplate.query(query, map);
+        return parseResult(result);
+    }
+
+    public Collection<SimpleDatabaseObject> getSimpleDatabaseObjectByClassAndSpeciesNameAfter(Class clazz, String speciesName, String afterName, Long afterDbId, Integer limit) {
+        String query = "MATCH (s:Species{displayName:{speciesName}})<-[:species]-(n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.displayName", afterName) + " RETURN Distinct(n.dbId) as dbId, n.stId as stId, n.displayName as displayName, labels(n) as labels ORDER BY displayName, dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterName, afterDbId, limit);
+        map.put("speciesName", speciesName);
+        Result result = neo4jTemplate.query(query, map);
+        return parseResult(result);
+    }
+
     // ---------------------------------------- Query by Class for SimpleReferenceObject ------------------------------------------------
 
     public Collection<SimpleReferenceObject> getSimpleReferencesObjectsByClass(Class clazz) {
@@ -156,6 +203,13 @@ public class SchemaRepository {
         return parseReferenceResult(result);
     }
 
+    public Collection<SimpleReferenceObject> getSimpleReferencesObjectsByClassAfter(Class clazz, String afterIdentifier, Long afterDbId, Integer limit) {
+        String query = "Match (n:" + clazz.getSimpleName() + ")" + getKeysetCondition("n.identifier", afterIdentifier) + " RETURN n.dbId AS dbId, n.databaseName AS databaseName, n.identifier AS identifier ORDER BY n.identifier, n.dbId LIMIT {limit}";
+        Map<String,Object> map = getKeysetParameters(afterIdentifier, afterDbId, limit);
+        Result result = neo4jTemplate.query(query, map);
+        return parseReferenceResult(result);
+    }
+
     // ---------------------------------------- Query by Class for ids ------------------------------------------------
 
     public Collection<String> getStIdsByClass (Class clazz) {
@@ -168,6 +222,26 @@ public class SchemaRepository {
         return (Collection<Long>) neo4jTemplate.queryForObjects(Long.class, query, Collections.emptyMap());
     }
 
+    public Collection<String> getStIdsByClassAfter(Class clazz, String afterStId, Integer limit) {
+        String query = "Match (n:" + clazz.getSimpleName() + ")" + (afterStId == null ? " WHERE n.stId IS NOT NULL" : " WHERE n.stId > {afterStId}") + " RETURN n.stId ORDER BY n.stId LIMIT {limit}";
+        Map<String,Object> map = new HashMap<>();
+        map.put("afterStId", afterStId);
+        map.put("limit", limit);
+        return (Collection<String>) neo4jTemplate.queryForObjects(String.class, query, map);
+    }
+
+    public Collection<Long> getDbIdsByClassAfter(Class clazz, Long afterDbId, Integer limit) {
+        String query = "Match (n:" + clazz.getSimpleName() + ")" + (afterDbId == null ? "" : " WHERE n.dbId > {afterDbId}") + " RETURN n.dbId AS dbId ORDER BY n.dbId LIMIT {limit}";
+        Map<String,Object> map = new HashMap<>();
+        map.put("afterDbId", afterDbId);
+        map.put("limit", limit);
+        Collection<Long> dbIds = new ArrayList<>();
+        for (Map<String, Object> row : neo4jTemplate.query(query, map)) {
+            dbIds.add(((Number) row.get("dbId")).longValue());
+        }
+        return dbIds;
+    }
+
     // ---------------------------------------- Count by Class ------------------------------------------------
 
     public Long countEntries(Class<?> clazz) {
@@ -192,6 +266,23 @@ public class SchemaRepository {
 
     // ---------------------------------------- private methods ------------------------------------------------
 
+    /**
+     * Objects sorted by the given property (and dbId to break the ties) that come after the last one of the previous page.
+     * Objects without a value for the property cannot be positioned, so they are not part of any page.
+     */
+    private String getKeysetCondition(String property, String after) {
+        if (after == null) return " WHERE " + property + " IS NOT NULL";
+        return " WHERE " + property + " > {afterKey} OR (" + property + " = {afterKey} AND n.dbId > {afterDbId})";
+    }
+
+    private Map<String,Object> getKeysetParameters(String after, Long afterDbId, Integer limit) {
+        Map<String,Object> map = new HashMap<>();
+        map.put("afterKey", after);
+        map.put("afterDbId", afterDbId);
+        map.put("limit", limit);
+        return map;
+    }
+
     private Collection<SimpleDatabaseObject> parseResult(Result result) {
         Collection<SimpleDatabaseObject> simpleDatabaseObjects = new ArrayList<>();
         for (Map<String, Object> stringObjectMap : result) {
@@ -0,0 +1,214 @@
+package org.reactome.server.graph.repository.util;
+
+import jodd.typeconverter.TypeConverter;
+import jodd.typeconverter.TypeConverterManager;
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
+
+/**
+ * Maps the rows of a custom query to instances of a custom class. The attributes of the class, their setters (as
+ * MethodHandles) and the conversion needed for each one of them are worked out once per class, so mapping a row
+ * only means reading the values from the row and invoking the precomputed setters.
+ * <p>
+ * The attributes are handled in different ways depending on their type: arrays of primitives, collections of
+ * String, Number or primitives, collections of custom objects, String, Number or arrays and custom objects. For the
+ * custom objects the mapper of the nested class is used, so they are also populated recursively (it is only
+ * retrieved once a value for the attribute is found, so classes can contain attributes of their own type).
+ * Collections whose element type is unknown (raw or unbounded wildcard) get the values as they come in the row.
+ *
+ * @author Guilherme Viteri (gviteri@ebi.ac.uk)
+ */
+@SuppressWarnings("unchecked")
+public class CustomObjectMapper<T> {
+
+    private static final Map<Class<?>, CustomObjectMapper<?>> mappers = new ConcurrentHashMap<>();
+
+    private final MethodHandle constructor;
+    private final AttributeMapper[] attributes;
+
+    private CustomObjectMapper(Class<T> clazz) throws Exception {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Constructor<T> c = clazz.getDeclaredConstructor();
+        c.setAccessible(true);
+        constructor = lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+
+        List<AttributeMapper> attributes = new ArrayList<>();
+        for (Field field : getAllFields(clazz)) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            field.setAccessible(true);
+            MethodHandle setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            attributes.add(new AttributeMapper(field.getName(), setter, getConverter(field)));
+        }
+        this.attributes = attributes.toArray(new AttributeMapper[attributes.size()]);
+    }
+
+    /**
+     * @return the (cached) mapper for the given class
+     * @throws Exception if the class cannot be instantiated or its attributes cannot be set
+     */
+    public static <T> CustomObjectMapper<T> getMapper(Class<T> clazz) throws Exception {
+        CustomObjectMapper<T> mapper = (CustomObjectMapper<T>) mappers.get(clazz);
+        if (mapper == null) {
+            mapper = new CustomObjectMapper<>(clazz);
+            mappers.put(clazz, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * @param row result map of the cypher query, key=String(name of attribute) value=object result of the given attribute
+     * @return a new instance populated with the content of the row
+     */
+    public T map(Map<String, Object> row) throws Exception {
+        try {
+            T instance = (T) constructor.invokeExact();
+            for (AttributeMapper attribute : attributes) {
+                Object value = row.get(attribute.name);
+                if (value != null) attribute.setter.invokeExact((Object) instance, attribute.converter.convert(value));
+            }
+            return instance;
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new Exception(t);
+        }
+    }
+
+    private static Converter getConverter(Field field) {
+        Class<?> type = field.getType();
+
+        // An array of primitives do not box automatically then we cast it manually using ArrayUtils and the attribute type
+        if (type.isArray() && type.getComponentType().isPrimitive()) {
+            return value -> toPrimitiveArray(value, type);
+        }
+
+        if (Collection.class.isAssignableFrom(type)) {
+            //The returned results are normally stored in an Array, then we need to convert in case the attribute is a Collection
+            Class<?> listClass = getElementClass(field);
+
+            // Collections of an unknown element type (raw, unbounded wildcard or nested generics) keep the values as they come
+            if (listClass == null) {
+                return value -> {
+                    Collection<Object> collection = createCollection(type);
+                    if (value instanceof Object[]) Collections.addAll(collection, (Object[]) value);
+                    else if (value instanceof Collection) collection.addAll((Collection<?>) value);
+                    else collection.add(value);
+                    return collection;
+                };
+            }
+
+            // Parametrised type is String and the convertToCollection is able to convert that
+            if (listClass.isAssignableFrom(String.class) || Number.class.isAssignableFrom(listClass) || listClass.isPrimitive()) {
+                return value -> TypeConverterManager.convertToCollection(value, (Class<? extends Collection>) type, listClass);
+            }
+
+            // Parametrised type is a Custom Object so we have to create the collection and the objects it contains
+            return value -> {
+                Collection<Object> collection = createCollection(type);
+                if (value instanceof Map[]) {
+                    // The object returned by Neo4j is an array of LinkedHashMap.
+                    CustomObjectMapper<?> mapper = getMapper(listClass);
+                    for (Map<String, Object> entry : (Map<String, Object>[]) value) {
+                        collection.add(mapper.map(entry));
+                    }
+                }
+                return collection;
+            };
+        }
+
+        if (type.isAssignableFrom(String.class) || Number.class.isAssignableFrom(type) || type.isArray()) {
+            // The attribute is String, Number or an array we know how to convert
+            TypeConverter<?> converter = TypeConverterManager.lookup(type);
+            return value -> {
+                try {
+                    if (converter != null) return converter.convert(value);
+                    return TypeConverterManager.convertType(value, type);
+                } catch (Exception ex) {
+                    return null;
+                }
+            };
+        }
+
+        // The attribute is a Custom Object that needs to be instantiated (the mapper is not retrieved until it
+        // is needed because the custom class might contain attributes of the same type)
+        return value -> getMapper(type).map((Map<String, Object>) value);
+    }
+
+    /**
+     * @return the class of the elements of the collection attribute (the upper bound for wildcards such as
+     * List&lt;? extends Number&gt;) or null when it is not a plain class (raw collections, unbounded wildcards or
+     * nested generics such as List&lt;List&lt;String&gt;&gt;)
+     */
+    private static Class<?> getElementClass(Field field) {
+        Type genericType = field.getGenericType();
+        if (!(genericType instanceof ParameterizedType)) return null;
+        Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        if (argument instanceof WildcardType) {
+            WildcardType wildcard = (WildcardType) argument;
+            if (wildcard.getLowerBounds().length > 0) return null;
+            argument = wildcard.getUpperBounds()[0];
+        }
+        return argument instanceof Class && argument != Object.class ? (Class<?>) argument : null;
+    }
+
+    private static Collection<Object> createCollection(Class<?> type) throws Exception {
+        if (type.isAssignableFrom(List.class)) return new ArrayList<>();
+        if (type.isAssignableFrom(Set.class)) return new HashSet<>();
+        throw new Exception("Couldn't get the class name of the given collection [" + type + "]");
+    }
+
+    /**
+     * Neo4j results always return the Object (wrapper) as an Array (if it is collection). However if we are mapping
+     * an object which attribute is a int[] e.g then it does not 'boxing', then this method checks the type and
+     * return the proper Array of primitive.
+     */
+    private static Object toPrimitiveArray(Object value, Class type) {
+        if (type == byte[].class) {
+            return ArrayUtils.toPrimitive((Byte[]) value);
+        } else if (type == short[].class) {
+            return ArrayUtils.toPrimitive((Short[]) value);
+        } else if (type == int[].class) {
+            return ArrayUtils.toPrimitive((Integer[]) value);
+        } else if (type == float[].class) {
+            return ArrayUtils.toPrimitive((Float[]) value);
+        } else if (type == double[].class) {
+            return ArrayUtils.toPrimitive((Double[]) value);
+        } else if (type == char[].class) {
+            return ArrayUtils.toPrimitive((Character[]) value);
+        } else if (type == long[].class) {
+            return ArrayUtils.toPrimitive((Long[]) value);
+        } else if (type == boolean[].class) {
+            return ArrayUtils.toPrimitive((Boolean[]) value);
+        }
+        return null;
+    }
+
+    private interface Converter {
+        Object convert(Object value) throws Exception;
+    }
+
+    private static class AttributeMapper {
+        final String name;
+        final MethodHandle setter;
+        final Converter converter;
+
+        AttributeMapper(String name, MethodHandle setter, Converter converter) {
+            this.name = name;
+            this.setter = setter;
+            this.converter = converter;
+        }
+    }
+}
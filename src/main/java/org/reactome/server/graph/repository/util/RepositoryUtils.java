@@ -2,6 +2,8 @@ package org.reactome.server.graph.repository.util;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.regex.Pattern;
+
 /**
  * Created by:
  *
@@ -10,6 +12,8 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class RepositoryUtils {
 
+    private static final Pattern WRITE_CLAUSE = Pattern.compile("\\b(CREATE|MERGE|SET|DELETE|REMOVE|DETACH|LOAD\\s+CSV)\\b", Pattern.CASE_INSENSITIVE);
+
     public static String getRelationshipAsString (String... relationships) {
         String result = "";
         if (relationships != null && relationships.length > 0) {
@@ -17,4 +21,11 @@ public class RepositoryUtils {
         }
         return result;
     }
+
+    /**
+     * @return true if the query contains a clause modifying the database
+     */
+    public static boolean isWriteQuery(String query) {
+        return WRITE_CLAUSE.matcher(query).find();
+    }
 }
@@ -3,6 +3,7 @@ package org.reactome.server.graph.service;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.exception.CustomQueryException;
 import org.reactome.server.graph.repository.AdvancedDatabaseObjectRepository;
+import org.reactome.server.graph.service.helper.FetchPlan;
 import org.reactome.server.graph.service.helper.RelationshipDirection;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,25 @@ public class AdvancedDatabaseObjectService {
         return null;
     }
 
+    // --------------------------------------- Fetch Plan Finder Methods -----------------------------------------------
+
+    /**
+     * Retrieves the object with the given identifier together with the part of the graph declared in the plan
+     * in one single query. By default lazy loading is disabled for all the retrieved objects.
+     *
+     * @param identifier stId or dbId
+     * @param plan       the relationships to be retrieved, e.g. <code>new FetchPlan().fetch("hasEvent", "input|output").fetch("species")</code>
+     */
+    public <T extends DatabaseObject> T findById(Object identifier, FetchPlan plan) {
+        String id = DatabaseObjectUtils.getIdentifier(identifier);
+        if (DatabaseObjectUtils.isStId(id)) {
+            return advancedDatabaseObjectRepository.findById(id, plan);
+        } else if (DatabaseObjectUtils.isDbId(id)) {
+            return advancedDatabaseObjectRepository.findById(Long.parseLong(id), plan);
+        }
+        return null;
+    }
+
     // --------------------------------------- Generic Finder Methods --------------------------------------------------
 
     public <T extends DatabaseObject> T findByProperty(Class<T> clazz, String property, Object value, Integer depth) {
@@ -113,6 +133,14 @@ public class AdvancedDatabaseObjectService {
         return advancedDatabaseObjectRepository.findByRelationship(dbId, clazz, direction, relationships);
     }
 
+    public Map<Long, Collection<DatabaseObject>> findCollectionsByRelationship(Collection<Long> dbIds, String clazz, Class<?> collectionClazz, RelationshipDirection direction, String... relationships) {
+        return advancedDatabaseObjectRepository.findCollectionsByRelationship(dbIds, clazz, collectionClazz, direction, relationships);
+    }
+
+    public Map<Long, DatabaseObject> findByRelationship(Collection<Long> dbIds, String clazz, RelationshipDirection direction, String... relationships) {
+        return advancedDatabaseObjectRepository.findByRelationship(dbIds, clazz, direction, relationships);
+    }
+
     // ----------------------------------------- Custom Query Methods --------------------------------------------------
 
     /**
@@ -0,0 +1,68 @@
+package org.reactome.server.graph.service;
+
+import org.reactome.server.graph.repository.GeneralRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+/**
+ * Keeps track of the version of the database (DBInfo) so the content that is kept in memory (caches and indexes)
+ * can be invalidated when a new release is deployed. The database is queried at most once every check interval,
+ * so the version can be checked on every request without hitting the database.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class DatabaseVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseVersionService.class);
+
+    @Autowired
+    private GeneralRepository generalRepository;
+
+    /**
+     * Time (in milliseconds) between two checks of the database version
+     */
+    private long checkInterval = 60_000;
+
+    private volatile Integer dbVersion = null;
+    private volatile long lastCheck = 0;
+
+    /**
+     * @return the version of the database as it was in the last check
+     */
+    public Integer getDBVersion() {
+        if (System.currentTimeMillis() - lastCheck >= checkInterval) {
+            synchronized (this) {
+                if (System.currentTimeMillis() - lastCheck >= checkInterval) {
+                    Integer version = generalRepository.getDBVersion();
+                    if (dbVersion != null && !Objects.equals(version, dbVersion)) {
+                        logger.info("Database version changed from " + dbVersion + " to " + version);
+                    }
+                    dbVersion = version;
+                    lastCheck = System.currentTimeMillis();
+                }
+            }
+        }
+        return dbVersion;
+    }
+
+    /**
+     * Forces the version to be checked again in the next call to getDBVersion
+     */
+    public void reset() {
+        lastCheck = 0;
+    }
+
+    public long getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(long checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
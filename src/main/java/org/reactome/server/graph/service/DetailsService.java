@@ -1,15 +1,24 @@
 package org.reactome.server.graph.service;
 
 import org.reactome.server.graph.domain.model.*;
+import org.reactome.server.graph.domain.result.ComponentOf;
 import org.reactome.server.graph.repository.DetailsRepository;
+import org.reactome.server.graph.service.async.AsyncServiceExecutor;
 import org.reactome.server.graph.service.helper.ContentDetails;
 import org.reactome.server.graph.service.helper.PathwayBrowserNode;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.reactome.server.graph.service.util.PathwayBrowserLocationsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
@@ -19,6 +28,8 @@ import java.util.Set;
 @SuppressWarnings("WeakerAccess")
 public class DetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DetailsService.class);
+
     @Autowired
     private DetailsRepository detailsRepository;
     @Autowired
@@ -27,6 +38,15 @@ public class DetailsService {
     private PhysicalEntityService physicalEntityService;
     @Autowired
     private HierarchyService hierarchyService;
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    /**
+     * When enabled, the locations in the Pathway Browser, the components of and the other forms of the object are
+     * retrieved concurrently (they only depend on the identifier) in the AsyncServiceExecutor
+     */
+    private boolean asyncMode = false;
+    private long branchTimeout = 30_000;
 
 //    @Transactional
     public ContentDetails getContentDetails(Object identifier, Boolean directParticipants) {
@@ -44,6 +64,10 @@ public class DetailsService {
         contentDetails.setDatabaseObject(databaseObject);
         if (databaseObject instanceof Event || databaseObject instanceof PhysicalEntity || databaseObject instanceof Regulation) {
             if (directParticipants == null) directParticipants = false;
+            if (asyncMode) {
+                setContentDetailsAsync(contentDetails, databaseObject, directParticipants);
+                return contentDetails;
+            }
             Set<PathwayBrowserNode> leaves = getLocationsInThePathwayBrowserHierarchy(databaseObject, directParticipants);
             contentDetails.setNodes(leaves);
             contentDetails.setComponentOf(advancedLinkageService.getComponentsOf(databaseObject.getStId()));
@@ -52,6 +76,74 @@ public class DetailsService {
         return contentDetails;
     }
 
+    /**
+     * Runs the three sub-queries in the AsyncServiceExecutor and waits for all of them. A branch failing makes the
+     * whole call fail, as it does in the sync mode. A branch that does not finish in time is cancelled and its part
+     * of the ContentDetails is left empty (an empty collection).
+     * Calls made from a thread of the executor (e.g. through the AsyncDetailsService) run the branches in the current
+     * thread instead, so they cannot exhaust the pool waiting for branches that are queued behind them.
+     */
+    private void setContentDetailsAsync(ContentDetails contentDetails, DatabaseObject databaseObject, boolean directParticipants) {
+        Supplier<Set<PathwayBrowserNode>> nodes = () -> getLocationsInThePathwayBrowserHierarchy(databaseObject, directParticipants);
+        Supplier<Collection<ComponentOf>> componentOf = () -> advancedLinkageService.getComponentsOf(databaseObject.getStId());
+        Supplier<Collection<PhysicalEntity>> otherForms = () -> physicalEntityService.getOtherFormsOf(databaseObject.getDbId());
+        if (AsyncServiceExecutor.inExecutorThread()) {
+            contentDetails.setNodes(nodes.get());
+            contentDetails.setComponentOf(componentOf.get());
+            contentDetails.setOtherFormsOfThisMolecule(otherForms.get());
+            return;
+        }
+
+        // The timeout is applied here, so the executor does not apply its own
+        Future<Set<PathwayBrowserNode>> nodesFuture = asyncServiceExecutor.supply(nodes::get, 0);
+        Future<Collection<ComponentOf>> componentOfFuture = asyncServiceExecutor.supply(componentOf::get, 0);
+        Future<Collection<PhysicalEntity>> otherFormsFuture = asyncServiceExecutor.supply(otherForms::get, 0);
+
+        // All the branches run concurrently, so the timeout is measured from the same starting point
+        long deadline = System.currentTimeMillis() + branchTimeout;
+        contentDetails.setNodes(get(nodesFuture, nodes, deadline, "locations in the Pathway Browser", databaseObject, new HashSet<>()));
+        contentDetails.setComponentOf(get(componentOfFuture, componentOf, deadline, "components of", databaseObject, new ArrayList<>()));
+        contentDetails.setOtherFormsOfThisMolecule(get(otherFormsFuture, otherForms, deadline, "other forms of", databaseObject, new ArrayList<>()));
+    }
+
+    /**
+     * @return the result of the branch, or the given empty value if it did not finish in time
+     */
+    private <T> T get(Future<T> future, Supplier<T> branch, long deadline, String name, DatabaseObject databaseObject, T empty) {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Timeout retrieving the " + name + " " + databaseObject.getStId());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // The executor is saturated and set to reject the calls, so the branch runs in the caller thread
+            if (cause instanceof RejectedExecutionException) return branch.get();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Error retrieving the " + name + " " + databaseObject.getStId(), cause);
+        }
+        return empty;
+    }
+
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    public void setAsyncMode(boolean asyncMode) {
+        this.asyncMode = asyncMode;
+    }
+
+    /**
+     * @param branchTimeout maximum time (in milliseconds) to wait for the sub-queries in the async mode
+     */
+    public void setBranchTimeout(long branchTimeout) {
+        this.branchTimeout = branchTimeout;
+    }
+
     private Set<PathwayBrowserNode> getLocationsInThePathwayBrowserHierarchy(DatabaseObject databaseObject, boolean directParticipants) {
         PathwayBrowserNode root = getLocationsInThePathwayBrowser(databaseObject, directParticipants);
         if (root!=null) {
@@ -0,0 +1,145 @@
+package org.reactome.server.graph.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.reactome.server.graph.domain.model.Species;
+import org.reactome.server.graph.repository.EventHierarchyIndexRepository;
+import org.reactome.server.graph.service.helper.EventHierarchyIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps the EventHierarchyIndex of the species that have been requested. The event hierarchy does not change
+ * between releases, so every index is loaded once and kept until the database version changes. Loading the index of
+ * one species does not hold back the calls for the other ones.
+ * <p>
+ * The index is disabled by default. When enabled, HierarchyService and EventsService answer getEventHierarchy,
+ * getSubHierarchy and getEventAncestors from the index, falling back to the database for the objects that are
+ * not part of any of the loaded indexes.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class EventHierarchyIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventHierarchyIndexService.class);
+
+    @Autowired
+    private EventHierarchyIndexRepository eventHierarchyIndexRepository;
+
+    @Autowired
+    private DatabaseVersionService databaseVersionService;
+
+    // Indexes by taxId. Every index is loaded once by the first caller while the others wait for that one only
+    private final Map<String, FutureTask<EventHierarchyIndex>> indexes = new ConcurrentHashMap<>();
+
+    // Species names already resolved to their taxId (NONE for the names that do not belong to any species)
+    private final Map<String, String> taxIds = new ConcurrentHashMap<>();
+    private static final String NONE = "";
+
+    private boolean enabled = false;
+
+    private volatile Integer dbVersion = null;
+
+    /**
+     * Retrieves the index of the given species, loading it when needed. The index is kept per taxId, so the
+     * species name and the taxId share the same one.
+     *
+     * @param species taxId, species name or Species
+     * @return the index of the species or null if the species does not have TopLevelPathways
+     */
+    public EventHierarchyIndex getIndex(Object species) {
+        checkDBVersion();
+        String taxId = getTaxId(species);
+        if (taxId == null) return null;
+        FutureTask<EventHierarchyIndex> task = indexes.computeIfAbsent(taxId, k -> new FutureTask<>(() -> loadIndex(k)));
+        task.run(); // Nothing is done when it has already been run (or it is being run by another thread)
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the event hierarchy index of '" + taxId + "'", e);
+        } catch (ExecutionException e) {
+            indexes.remove(taxId, task); // So the next call tries again
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("The event hierarchy index of '" + taxId + "' could not be loaded", e.getCause());
+        }
+    }
+
+    /**
+     * Looks for the given identifier in the indexes that have already been loaded
+     *
+     * @param identifier stId or dbId
+     * @return the index containing the object or null if none of the loaded indexes contains it
+     */
+    public EventHierarchyIndex findIndex(Object identifier) {
+        checkDBVersion();
+        for (FutureTask<EventHierarchyIndex> task : indexes.values()) {
+            EventHierarchyIndex index = getLoaded(task);
+            if (index != null && index.contains(identifier)) return index;
+        }
+        return null;
+    }
+
+    public void clear() {
+        indexes.clear();
+        taxIds.clear();
+    }
+
+    private EventHierarchyIndex loadIndex(String taxId) {
+        long start = System.currentTimeMillis();
+        EventHierarchyIndex index = eventHierarchyIndexRepository.getEventHierarchyIndexByTaxId(taxId);
+        if (index != null) {
+            logger.info("Event hierarchy index for '" + taxId + "' loaded in " + (System.currentTimeMillis() - start) + "ms (" + index.size() + " objects)");
+        } else {
+            logger.info("There is no event hierarchy index for '" + taxId + "' (no TopLevelPathways)");
+        }
+        return index;
+    }
+
+    private EventHierarchyIndex getLoaded(FutureTask<EventHierarchyIndex> task) {
+        if (!task.isDone()) return null;
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    private String getTaxId(Object species) {
+        String speciesString = species instanceof Species ? ((Species) species).getTaxId() : species.toString();
+        if (StringUtils.isNumeric(speciesString)) return speciesString;
+        String taxId = taxIds.computeIfAbsent(speciesString, name -> {
+            String aux = eventHierarchyIndexRepository.getTaxId(name);
+            return aux != null ? aux : NONE;
+        });
+        return NONE.equals(taxId) ? null : taxId;
+    }
+
+    private void checkDBVersion() {
+        Integer version = databaseVersionService.getDBVersion();
+        if (Objects.equals(version, dbVersion)) return;
+        synchronized (this) {
+            if (!Objects.equals(version, dbVersion)) {
+                clear();
+                dbVersion = version;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
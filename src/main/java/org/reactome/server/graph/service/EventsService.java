@@ -1,12 +1,15 @@
 package org.reactome.server.graph.service;
 
+import org.reactome.server.graph.domain.model.Event;
 import org.reactome.server.graph.domain.model.Pathway;
+import org.reactome.server.graph.repository.EventHierarchyIndexRepository;
 import org.reactome.server.graph.repository.EventsRepository;
+import org.reactome.server.graph.service.helper.EventHierarchyIndex;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
+import java.util.*;
 
 /**
  * @author Antonio Fabregat <fabregat@ebi.ac.uk>
@@ -18,7 +21,18 @@ public class EventsService {
     @Autowired
     private EventsRepository eventsRepository;
 
+    @Autowired
+    private EventHierarchyIndexRepository eventHierarchyIndexRepository;
+
+    @Autowired
+    private EventHierarchyIndexService eventHierarchyIndexService;
+
     public Collection<Collection<Pathway>> getEventAncestors(Object identifier){
+        if (eventHierarchyIndexService.isEnabled()) {
+            EventHierarchyIndex index = eventHierarchyIndexService.findIndex(identifier);
+            if (index != null) return getEventAncestors(index.getAncestors(identifier));
+        }
+
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         if (DatabaseObjectUtils.isStId(id)) {
             return eventsRepository.getEventAncestorsByStId(id);
@@ -28,4 +42,22 @@ public class EventsService {
         return null;
     }
 
+    /**
+     * The paths are calculated in the index, so only the events have to be retrieved (in one query)
+     */
+    @SuppressWarnings("unchecked")
+    private Collection<Collection<Pathway>> getEventAncestors(Collection<List<Long>> ancestors) {
+        Set<Long> dbIds = new HashSet<>();
+        for (List<Long> path : ancestors) dbIds.addAll(path);
+        Map<Long, Event> events = eventHierarchyIndexRepository.getEventsByDbIds(dbIds);
+
+        Collection<Collection<Pathway>> rtn = new ArrayList<>();
+        for (List<Long> path : ancestors) {
+            // The first element of the path is the requested event, which might not be a Pathway
+            List aux = new ArrayList<>(path.size());
+            for (Long dbId : path) aux.add(events.get(dbId));
+            rtn.add(aux);
+        }
+        return rtn;
+    }
 }
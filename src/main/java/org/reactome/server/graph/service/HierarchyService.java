@@ -2,6 +2,7 @@ package org.reactome.server.graph.service;
 
 import org.apache.commons.lang3.StringUtils;
 import org.reactome.server.graph.repository.HierarchyRepository;
+import org.reactome.server.graph.service.helper.EventHierarchyIndex;
 import org.reactome.server.graph.service.helper.PathwayBrowserNode;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class HierarchyService {
     @Autowired
     private HierarchyRepository hierarchyRepository;
 
+    @Autowired
+    private EventHierarchyIndexService eventHierarchyIndexService;
+
     // -------------------------------- Locations in the Pathway Browser -----------------------------------------------
 
     public PathwayBrowserNode getLocationsInPathwayBrowser(Object identifier, Boolean showDirectParticipants, Boolean omitNonDisplayableItems) {
@@ -47,6 +51,11 @@ public class HierarchyService {
 
     public PathwayBrowserNode getSubHierarchy(Object identifier) {
 
+        if (eventHierarchyIndexService.isEnabled()) {
+            EventHierarchyIndex index = eventHierarchyIndexService.findIndex(identifier);
+            if (index != null) return index.getSubHierarchy(identifier);
+        }
+
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         if (DatabaseObjectUtils.isStId(id)) {
             return hierarchyRepository.getSubHierarchy(id);
@@ -59,6 +68,11 @@ public class HierarchyService {
     // ------------------------------------------- Event Hierarchy -----------------------------------------------------
 
     public Collection<PathwayBrowserNode> getEventHierarchy(Object species) {
+        if (eventHierarchyIndexService.isEnabled()) {
+            EventHierarchyIndex index = eventHierarchyIndexService.getIndex(species);
+            return index != null ? index.getEventHierarchy() : null;
+        }
+
         String speciesString = species.toString();
         if (StringUtils.isNumeric(speciesString)) {
             return hierarchyRepository.getEventHierarchyByTaxId(speciesString);
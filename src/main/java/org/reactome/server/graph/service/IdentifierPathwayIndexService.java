@@ -0,0 +1,85 @@
+package org.reactome.server.graph.service;
+
+import org.reactome.server.graph.repository.IdentifierPathwayIndexRepository;
+import org.reactome.server.graph.service.helper.IdentifierPathwayIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps the IdentifierPathwayIndex for the species that have been requested (plus the one for all species). Every
+ * index is loaded the first time it is needed and kept until the database version changes.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class IdentifierPathwayIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentifierPathwayIndexService.class);
+
+    private static final String ALL_SPECIES = "ALL";
+
+    @Autowired
+    private IdentifierPathwayIndexRepository identifierPathwayIndexRepository;
+
+    @Autowired
+    private DatabaseVersionService databaseVersionService;
+
+    // Indexes by taxId. Every index is loaded once by the first caller while the others wait for that one only
+    private final Map<String, FutureTask<IdentifierPathwayIndex>> indexes = new ConcurrentHashMap<>();
+
+    private volatile Integer dbVersion = null;
+
+    /**
+     * Retrieves the index of the given species, loading it when needed. Loading the index of one species does not
+     * hold back the calls for the other ones.
+     *
+     * @param taxId the species taxId or null for the index containing all the species
+     */
+    public IdentifierPathwayIndex getIndex(String taxId) {
+        checkDBVersion();
+        String key = taxId == null ? ALL_SPECIES : taxId;
+        FutureTask<IdentifierPathwayIndex> task = indexes.computeIfAbsent(key, k -> new FutureTask<>(() -> loadIndex(taxId)));
+        task.run(); // Nothing is done when it has already been run (or it is being run by another thread)
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the identifier pathway index of '" + key + "'", e);
+        } catch (ExecutionException e) {
+            indexes.remove(key, task); // So the next call tries again
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("The identifier pathway index of '" + key + "' could not be loaded", e.getCause());
+        }
+    }
+
+    public void clear() {
+        indexes.clear();
+    }
+
+    private IdentifierPathwayIndex loadIndex(String taxId) {
+        long start = System.currentTimeMillis();
+        IdentifierPathwayIndex index = identifierPathwayIndexRepository.getIdentifierPathwayIndex(taxId);
+        logger.info("Identifier pathway index for '" + (taxId == null ? ALL_SPECIES : taxId) + "' loaded in " + (System.currentTimeMillis() - start) + "ms (" + index.size() + " identifiers)");
+        return index;
+    }
+
+    private void checkDBVersion() {
+        Integer version = databaseVersionService.getDBVersion();
+        if (Objects.equals(version, dbVersion)) return;
+        synchronized (this) {
+            if (!Objects.equals(version, dbVersion)) {
+                indexes.clear();
+                dbVersion = version;
+            }
+        }
+    }
+}
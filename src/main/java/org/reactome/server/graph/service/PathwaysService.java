@@ -1,17 +1,18 @@
 package org.reactome.server.graph.service;
 
+import org.reactome.server.graph.aop.Cached;
 import org.reactome.server.graph.domain.model.Event;
 import org.reactome.server.graph.domain.model.Pathway;
 import org.reactome.server.graph.domain.model.Species;
 import org.reactome.server.graph.domain.result.SimpleDatabaseObject;
+import org.reactome.server.graph.repository.IdentifierPathwayIndexRepository;
 import org.reactome.server.graph.repository.PathwaysRepository;
+import org.reactome.server.graph.service.helper.IdentifierPathwayIndex;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.*;
 
 /**
  * @author Antonio Fabregat <fabregat@ebi.ac.uk>
@@ -26,6 +27,12 @@ public class PathwaysService {
     @Autowired
     public SpeciesService speciesService;
 
+    @Autowired
+    private IdentifierPathwayIndexService identifierPathwayIndexService;
+
+    @Autowired
+    private IdentifierPathwayIndexRepository identifierPathwayIndexRepository;
+
     public Collection<Event> getContainedEvents(Object identifier) {
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         if (DatabaseObjectUtils.isStId(id)) {
@@ -36,6 +43,7 @@ public class PathwaysService {
         return null;
     }
 
+    @Cached
     public Collection<Pathway> getPathwaysFor(String identifier, Object species) {
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         Species s = speciesService.getSpecies(species);
@@ -56,6 +64,7 @@ public class PathwaysService {
         return null;
     }
 
+    @Cached
     public Collection<Pathway> getPathwaysForAllFormsOf(String identifier, Object species) {
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         Species s = speciesService.getSpecies(species);
@@ -76,6 +85,7 @@ public class PathwaysService {
         return null;
     }
 
+    @Cached
     public Collection<Pathway> getPathwaysWithDiagramFor(String identifier, Object species) {
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         Species s = speciesService.getSpecies(species);
@@ -97,6 +107,7 @@ public class PathwaysService {
         return null;
     }
 
+    @Cached
     public Collection<Pathway> getPathwaysWithDiagramForAllFormsOf(String identifier, Object species) {
         String id = DatabaseObjectUtils.getIdentifier(identifier);
         Species s = speciesService.getSpecies(species);
@@ -126,6 +137,33 @@ public class PathwaysService {
         }
     }
 
+    /**
+     * Bulk version of getLowerLevelPathwaysForIdentifier. The identifiers are mapped using an inverted index that is
+     * built once per species and release, so the cost of every identifier does not involve the database.
+     *
+     * @return the lower level pathways for every identifier found (identifiers not found are not part of the result)
+     */
+    public Map<String, Collection<Pathway>> getLowerLevelPathwaysForIdentifiers(Collection<String> identifiers, Object species) {
+        Species s = speciesService.getSpecies(species);
+        IdentifierPathwayIndex index = identifierPathwayIndexService.getIndex(s != null ? s.getTaxId() : null);
+        Map<String, long[]> mapping = index.getPathways(identifiers);
+
+        Set<Long> dbIds = new HashSet<>();
+        for (long[] aux : mapping.values()) for (long dbId : aux) dbIds.add(dbId);
+        Map<Long, Pathway> pathways = identifierPathwayIndexRepository.getPathwaysByDbIds(dbIds);
+
+        Map<String, Collection<Pathway>> rtn = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : mapping.entrySet()) {
+            Collection<Pathway> aux = new ArrayList<>(entry.getValue().length);
+            for (long dbId : entry.getValue()) {
+                Pathway pathway = pathways.get(dbId);
+                if (pathway != null) aux.add(pathway);
+            }
+            rtn.put(entry.getKey(), aux);
+        }
+        return rtn;
+    }
+
     public Collection<SimpleDatabaseObject> getPathwaysForIdentifier(String identifier, String... pathways) {
         return getPathwaysForIdentifier(identifier, Arrays.asList(pathways));
     }
@@ -1,18 +1,26 @@
 package org.reactome.server.graph.service;
 
 import org.apache.commons.lang3.StringUtils;
+import org.reactome.server.graph.config.SessionScope;
+import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.domain.model.ExternalOntology;
 import org.reactome.server.graph.domain.model.ReferenceEntity;
 import org.reactome.server.graph.domain.model.Species;
 import org.reactome.server.graph.domain.result.SimpleDatabaseObject;
 import org.reactome.server.graph.domain.result.SimpleReferenceObject;
 import org.reactome.server.graph.repository.SchemaRepository;
+import org.reactome.server.graph.service.helper.ChunkedIterator;
+import org.reactome.server.graph.service.helper.KeysetPage;
 import org.reactome.server.graph.service.util.DatabaseObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
@@ -25,6 +33,8 @@ public class SchemaService {
     @Autowired
     private SchemaRepository schemaRepository;
 
+    private int streamChunkSize = 1000;
+
     // ---------------------------------------- Query by Class --------------------------------------------------
 
     public <T> Collection<T> getByClass(Class<T> clazz) {
@@ -77,6 +87,43 @@ public class SchemaService {
         return null;
     }
 
+    // ------------------------------------ Query by Class (keyset paging) -----------------------------------------
+
+    /**
+     * Retrieves the objects sorted by displayName one page at a time. Unlike page/offset, the cost of a page does not
+     * depend on how deep it is, so this is the way to go through a whole class. Objects without displayName are not
+     * part of the pages (the condition on the sorting property is what lets the database seek to the position).
+     *
+     * @param token the token of the previous page (KeysetPage.getNext) or null for the first page
+     * @param limit the number of objects per page
+     * @throws IllegalArgumentException if the token is not valid or the limit is not greater than 0
+     */
+    public <T> KeysetPage<T> getPageByClass(Class<T> clazz, String token, Integer limit) {
+        KeysetPage.Cursor after = KeysetPage.Cursor.fromToken(token);
+        Collection<T> result = schemaRepository.getByClassAfter(clazz, getKey(after), getDbId(after), getQueryLimit(limit));
+        return getKeysetPage(result, limit, o -> new KeysetPage.Cursor(((DatabaseObject) o).getDisplayName(), ((DatabaseObject) o).getDbId()));
+    }
+
+    public <T> KeysetPage<T> getPageByClass(Class<T> clazz, Object species, String token, Integer limit) {
+        if (isValidSpeciesClass(clazz)) {
+            return getPageByClassAndSpecies(clazz, species, token, limit);
+        }
+        return null;
+    }
+
+    public <T> KeysetPage<T> getPageByClassName(String className, String token, Integer limit) throws ClassNotFoundException {
+        Class clazz = DatabaseObjectUtils.getClassForName(className);
+        return getPageByClass(clazz, token, limit);
+    }
+
+    public <T> KeysetPage<T> getPageByClassName(String className, Object species, String token, Integer limit) throws ClassNotFoundException {
+        Class clazz = DatabaseObjectUtils.getClassForName(className);
+        if (isValidSpeciesClass(clazz)) {
+            return getPageByClassAndSpecies(clazz, species, token, limit);
+        }
+        return null;
+    }
+
     public Integer countByClassAndSpecies(String className, Object species) throws ClassNotFoundException {
         Class clazz = DatabaseObjectUtils.getClassForName(className);
         if (isValidSpeciesClass(clazz)) {
@@ -137,6 +184,37 @@ public class SchemaService {
         return null;
     }
 
+    // ---------------------------------------- Query by Class for SimpleObject (keyset paging) ------------------------------------------------
+
+    /**
+     * Objects without displayName are not part of the pages (see getPageByClass)
+     */
+    public KeysetPage<SimpleDatabaseObject> getSimpleDatabaseObjectPageByClass(Class clazz, String token, Integer limit) {
+        KeysetPage.Cursor after = KeysetPage.Cursor.fromToken(token);
+        Collection<SimpleDatabaseObject> result = schemaRepository.getSimpleDatabaseObjectByClassAfter(clazz, getKey(after), getDbId(after), getQueryLimit(limit));
+        return getKeysetPage(result, limit, o -> new KeysetPage.Cursor(o.getDisplayName(), o.getDbId()));
+    }
+
+    public KeysetPage<SimpleDatabaseObject> getSimpleDatabaseObjectPageByClass(Class clazz, Object species, String token, Integer limit) {
+        if (isValidSpeciesClass(clazz)) {
+            return getSimpleDatabaseObjectPageByClassAndSpecies(clazz, species, token, limit);
+        }
+        return null;
+    }
+
+    public KeysetPage<SimpleDatabaseObject> getSimpleDatabaseObjectPageByClassName(String className, String token, Integer limit) throws ClassNotFoundException {
+        Class clazz = DatabaseObjectUtils.getClassForName(className);
+        return getSimpleDatabaseObjectPageByClass(clazz, token, limit);
+    }
+
+    public KeysetPage<SimpleDatabaseObject> getSimpleDatabaseObjectPageByClassName(String className, Object species, String token, Integer limit) throws ClassNotFoundException {
+        Class clazz = DatabaseObjectUtils.getClassForName(className);
+        if (isValidSpeciesClass(clazz)) {
+            return getSimpleDatabaseObjectPageByClassAndSpecies(clazz, species, token, limit);
+        }
+        return null;
+    }
+
     // ---------------------------------------- Query by Class for SimpleReferenceObject ------------------------------------------------
 
     public Collection<SimpleReferenceObject> getSimpleReferencesObjectsByClass(Class clazz) {
@@ -169,6 +247,30 @@ public class SchemaService {
         return null;
     }
 
+    // ---------------------------------------- Query by Class for SimpleReferenceObject (keyset paging) ------------------------------------------------
+
+    /**
+     * Retrieves the reference objects sorted by identifier one page at a time. Objects without identifier are not
+     * part of the pages.
+     *
+     * @param token the token of the previous page (KeysetPage.getNext) or null for the first page
+     * @param limit the number of objects per page
+     * @throws IllegalArgumentException if the token is not valid or the limit is not greater than 0
+     */
+    public KeysetPage<SimpleReferenceObject> getSimpleReferencesObjectsPageByClass(Class clazz, String token, Integer limit) {
+        if (isValidReferenceClass(clazz)) {
+            KeysetPage.Cursor after = KeysetPage.Cursor.fromToken(token);
+            Collection<SimpleReferenceObject> result = schemaRepository.getSimpleReferencesObjectsByClassAfter(clazz, getKey(after), getDbId(after), getQueryLimit(limit));
+            return getKeysetPage(result, limit, o -> new KeysetPage.Cursor(o.getIdentifier(), o.getDbId()));
+        }
+        return null;
+    }
+
+    public KeysetPage<SimpleReferenceObject> getSimpleReferencesObjectsPageByClassName(String className, String token, Integer limit) throws ClassNotFoundException {
+        Class clazz = DatabaseObjectUtils.getClassForName(className);
+        return getSimpleReferencesObjectsPageByClass(clazz, token, limit);
+    }
+
     // ---------------------------------------- Query by Class for single value ------------------------------------------------
 
     public Collection<String> getStIdsByClass (Class clazz) {
@@ -189,6 +291,64 @@ public class SchemaService {
         return schemaRepository.getDbIdsByClass(clazz);
     }
 
+    // ---------------------------------------- Query by Class (streaming) ------------------------------------------------
+
+    /**
+     * Lazily retrieves the objects of the given class sorted by displayName (and dbId). The content is requested in
+     * chunks of streamChunkSize as it is consumed, so the whole class is never kept in memory. Every chunk is mapped
+     * in a session of its own, even within a SessionScope, so the objects already consumed are not kept by it.
+     * As for the keyset pages, objects without displayName are not part of the stream.
+     */
+    public <T> Stream<T> streamByClass(Class<T> clazz) {
+        return stream((last, limit) -> {
+            DatabaseObject aux = (DatabaseObject) last;
+            return schemaRepository.getByClassAfter(clazz, aux == null ? null : aux.getDisplayName(), aux == null ? null : aux.getDbId(), limit);
+        }, streamChunkSize);
+    }
+
+    public <T> Stream<T> streamByClass(Class<T> clazz, Object species) {
+        if (!isValidSpeciesClass(clazz)) return null;
+        String speciesString = species instanceof Species ? ((Species) species).getTaxId() : species.toString();
+        boolean taxId = StringUtils.isNumeric(speciesString);
+        return stream((last, limit) -> {
+            DatabaseObject aux = (DatabaseObject) last;
+            String afterName = aux == null ? null : aux.getDisplayName();
+            Long afterDbId = aux == null ? null : aux.getDbId();
+            if (taxId) {
+                return schemaRepository.getByClassAndSpeciesTaxIdAfter(clazz, speciesString, afterName, afterDbId, limit);
+            } else {
+                return schemaRepository.getByClassAndSpeciesNameAfter(clazz, speciesString, afterName, afterDbId, limit);
+            }
+        }, streamChunkSize);
+    }
+
+    public Stream<SimpleDatabaseObject> streamSimpleDatabaseObjectByClass(Class clazz) {
+        return stream((last, limit) -> schemaRepository.getSimpleDatabaseObjectByClassAfter(clazz,
+                last == null ? null : last.getDisplayName(),
+                last == null ? null : last.getDbId(), limit), streamChunkSize);
+    }
+
+    /**
+     * Objects without identifier are not part of the stream
+     */
+    public Stream<SimpleReferenceObject> streamSimpleReferencesObjectsByClass(Class clazz) {
+        if (!isValidReferenceClass(clazz)) return null;
+        return stream((last, limit) -> schemaRepository.getSimpleReferencesObjectsByClassAfter(clazz,
+                last == null ? null : last.getIdentifier(),
+                last == null ? null : last.getDbId(), limit), streamChunkSize);
+    }
+
+    /**
+     * Objects without stId are not part of the stream
+     */
+    public Stream<String> streamStIdsByClass(Class clazz) {
+        return stream((last, limit) -> schemaRepository.getStIdsByClassAfter(clazz, last, limit), streamChunkSize);
+    }
+
+    public Stream<Long> streamDbIdsByClass(Class clazz) {
+        return stream((last, limit) -> schemaRepository.getDbIdsByClassAfter(clazz, last, limit), streamChunkSize);
+    }
+
     // ---------------------------------------- Count by Class ------------------------------------------------
 
     public Long countEntries(Class<?> clazz){
@@ -215,8 +375,27 @@ public class SchemaService {
         return null;
     }
 
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    /**
+     * @param streamChunkSize number of objects retrieved per query by the streaming methods
+     */
+    public void setStreamChunkSize(int streamChunkSize) {
+        this.streamChunkSize = streamChunkSize;
+    }
+
     // ---------------------------------------- private methods ------------------------------------------------
 
+    private <T> Stream<T> stream(ChunkedIterator.Fetcher<T> fetcher, int chunkSize) {
+        return ChunkedIterator.stream((last, limit) -> {
+            try (SessionScope.Suspension ignored = SessionScope.suspend()) {
+                return fetcher.fetch(last, limit);
+            }
+        }, chunkSize);
+    }
+
     private Boolean isValidSpeciesClass(Class clazz) {
         try {
             //noinspection unused,unchecked
@@ -277,6 +456,53 @@ public class SchemaService {
         }
     }
 
+    private <T> KeysetPage<T> getPageByClassAndSpecies(Class clazz, Object species, String token, Integer limit) {
+        String speciesString = species instanceof Species ? ((Species) species).getTaxId() : species.toString();
+        KeysetPage.Cursor after = KeysetPage.Cursor.fromToken(token);
+        Collection<T> result;
+        if (StringUtils.isNumeric(speciesString)) {
+            result = schemaRepository.getByClassAndSpeciesTaxIdAfter(clazz, speciesString, getKey(after), getDbId(after), getQueryLimit(limit));
+        } else {
+            result = schemaRepository.getByClassAndSpeciesNameAfter(clazz, speciesString, getKey(after), getDbId(after), getQueryLimit(limit));
+        }
+        return getKeysetPage(result, limit, o -> new KeysetPage.Cursor(((DatabaseObject) o).getDisplayName(), ((DatabaseObject) o).getDbId()));
+    }
+
+    private KeysetPage<SimpleDatabaseObject> getSimpleDatabaseObjectPageByClassAndSpecies(Class clazz, Object species, String token, Integer limit) {
+        String speciesString = species instanceof Species ? ((Species) species).getTaxId() : species.toString();
+        KeysetPage.Cursor after = KeysetPage.Cursor.fromToken(token);
+        Collection<SimpleDatabaseObject> result;
+        if (StringUtils.isNumeric(speciesString)) {
+            result = schemaRepository.getSimpleDatabaseObjectByClassAndSpeciesTaxIdAfter(clazz, speciesString, getKey(after), getDbId(after), getQueryLimit(limit));
+        } else {
+            result = schemaRepository.getSimpleDatabaseObjectByClassAndSpeciesNameAfter(clazz, speciesString, getKey(after), getDbId(after), getQueryLimit(limit));
+        }
+        return getKeysetPage(result, limit, o -> new KeysetPage.Cursor(o.getDisplayName(), o.getDbId()));
+    }
+
+    /**
+     * The queries retrieve one object more than requested to know whether there is a next page
+     */
+    private int getQueryLimit(Integer limit) {
+        if (limit == null || limit < 1) throw new IllegalArgumentException("The limit has to be greater than 0");
+        return limit + 1;
+    }
+
+    private <T> KeysetPage<T> getKeysetPage(Collection<T> result, Integer limit, Function<T, KeysetPage.Cursor> cursor) {
+        List<T> content = result == null ? new ArrayList<>() : new ArrayList<>(result);
+        if (content.size() <= limit) return new KeysetPage<>(content, null);
+        content = new ArrayList<>(content.subList(0, limit));
+        return new KeysetPage<>(content, cursor.apply(content.get(limit - 1)).toToken());
+    }
+
+    private String getKey(KeysetPage.Cursor cursor) {
+        return cursor == null ? null : cursor.getKey();
+    }
+
+    private Long getDbId(KeysetPage.Cursor cursor) {
+        return cursor == null ? null : cursor.getDbId();
+    }
+
     private Long countEntriesWithSpecies(Class clazz, Object species) {
         String speciesString = species instanceof Species ? ((Species) species).getTaxId() : species.toString();
         if (StringUtils.isNumeric(speciesString)) {
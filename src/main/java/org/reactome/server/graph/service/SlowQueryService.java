@@ -0,0 +1,65 @@
+package org.reactome.server.graph.service;
+
+import org.aspectj.lang.Aspects;
+import org.reactome.server.graph.aop.LoggingAspect;
+import org.reactome.server.graph.service.helper.SlowQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives access to the slow queries (and their plans when profiling is enabled) kept by the LoggingAspect. The slow
+ * query log is disabled by default:
+ * <p>
+ * <code>
+ * LoggingAspect loggingAspect = Aspects.aspectOf(LoggingAspect.class);
+ * loggingAspect.setSlowQueryThreshold(500);
+ * loggingAspect.setEnableSlowQueryLog(true);
+ * loggingAspect.setEnableProfiling(true);
+ * </code>
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class SlowQueryService {
+
+    /**
+     * @return the slow queries kept in the log, the most recent first
+     */
+    public List<SlowQuery> getSlowQueries() {
+        return getLoggingAspect().getSlowQueryLog().getEntries();
+    }
+
+    /**
+     * @param name ClassName.methodName of the repository method executing the queries
+     * @return the slow queries executed by the given method, the most recent first
+     */
+    public List<SlowQuery> getSlowQueries(String name) {
+        List<SlowQuery> rtn = new ArrayList<>();
+        for (SlowQuery slowQuery : getSlowQueries()) {
+            if (slowQuery.getName().equals(name)) rtn.add(slowQuery);
+        }
+        return rtn;
+    }
+
+    /**
+     * @return the slowest query kept in the log or null if there is none
+     */
+    public SlowQuery getSlowestQuery() {
+        SlowQuery rtn = null;
+        for (SlowQuery slowQuery : getSlowQueries()) {
+            if (rtn == null || slowQuery.getElapsed() > rtn.getElapsed()) rtn = slowQuery;
+        }
+        return rtn;
+    }
+
+    public void clear() {
+        getLoggingAspect().getSlowQueryLog().clear();
+    }
+
+    private LoggingAspect getLoggingAspect() {
+        return Aspects.aspectOf(LoggingAspect.class);
+    }
+}
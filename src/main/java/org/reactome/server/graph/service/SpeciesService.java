@@ -1,6 +1,7 @@
 package org.reactome.server.graph.service;
 
 import org.apache.commons.lang3.StringUtils;
+import org.reactome.server.graph.aop.Cached;
 import org.reactome.server.graph.domain.model.Species;
 import org.reactome.server.graph.repository.SpeciesRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +18,7 @@ public class SpeciesService {
     @Autowired
     SpeciesRepository speciesRepository;
 
+    @Cached(maxSize = 1)
     public List<Species> getSpecies() {
         List<Species> species = speciesRepository.getSpecies();
         int humanPos = -1;
@@ -34,10 +36,12 @@ public class SpeciesService {
         return species;
     }
 
+    @Cached(maxSize = 1)
     public List<Species> getAllSpecies() {
         return speciesRepository.getAllSpecies();
     }
 
+    @Cached(maxSize = 100)
     public Species getSpeciesByTaxId(String taxId) {
         return speciesRepository.getSpeciesByTaxId(taxId);
     }
@@ -46,6 +50,7 @@ public class SpeciesService {
         return speciesRepository.getSpeciesByDbId(dbId);
     }
 
+    @Cached(maxSize = 100)
     public Species getSpeciesByName(String name) {
         return speciesRepository.getSpeciesByName(name);
     }
@@ -1,6 +1,7 @@
 package org.reactome.server.graph.service;
 
 import org.apache.commons.lang3.StringUtils;
+import org.reactome.server.graph.aop.Cached;
 import org.reactome.server.graph.domain.model.TopLevelPathway;
 import org.reactome.server.graph.repository.TopLevelPathwayRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,10 +22,12 @@ public class TopLevelPathwayService {
     @Autowired
     public TopLevelPathwayRepository topLevelPathwayRepository;
 
+    @Cached(maxSize = 1)
     public Collection<TopLevelPathway> getTopLevelPathways() {
         return topLevelPathwayRepository.getTopLevelPathways();
     }
 
+    @Cached(maxSize = 100)
     public Collection<TopLevelPathway> getTopLevelPathways(Object species) {
         String speciesString = species.toString();
         if (StringUtils.isNumeric(speciesString)) {
@@ -34,10 +37,12 @@ public class TopLevelPathwayService {
         }
     }
 
+    @Cached(maxSize = 1)
     public Collection<TopLevelPathway> getCuratedTopLevelPathways() {
         return topLevelPathwayRepository.getCuratedTopLevelPathways();
     }
 
+    @Cached(maxSize = 100)
     public Collection<TopLevelPathway> getCuratedTopLevelPathways(Object species) {
         String speciesString = species.toString();
         if (StringUtils.isNumeric(speciesString)) {
@@ -0,0 +1,37 @@
+package org.reactome.server.graph.service.async;
+
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.service.DatabaseObjectService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of the DatabaseObjectService (see AsyncServiceExecutor)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class AsyncDatabaseObjectService {
+
+    @Autowired
+    private DatabaseObjectService databaseObjectService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    public <T extends DatabaseObject> CompletableFuture<T> findById(Object identifier) {
+        return asyncServiceExecutor.supply(() -> databaseObjectService.<T>findById(identifier));
+    }
+
+    public <T extends DatabaseObject> CompletableFuture<T> findByIdNoRelations(Object identifier) {
+        return asyncServiceExecutor.supply(() -> databaseObjectService.<T>findByIdNoRelations(identifier));
+    }
+
+    public <T extends DatabaseObject> CompletableFuture<Collection<T>> findByIdsNoRelations(Collection<?> identifiers) {
+        return asyncServiceExecutor.supply(() -> databaseObjectService.<T>findByIdsNoRelations(identifiers));
+    }
+}
@@ -0,0 +1,28 @@
+package org.reactome.server.graph.service.async;
+
+import org.reactome.server.graph.service.DetailsService;
+import org.reactome.server.graph.service.helper.ContentDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of the DetailsService (see AsyncServiceExecutor)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class AsyncDetailsService {
+
+    @Autowired
+    private DetailsService detailsService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    public CompletableFuture<ContentDetails> getContentDetails(Object identifier, Boolean directParticipants) {
+        return asyncServiceExecutor.supply(() -> detailsService.getContentDetails(identifier, directParticipants));
+    }
+}
@@ -0,0 +1,37 @@
+package org.reactome.server.graph.service.async;
+
+import org.reactome.server.graph.service.HierarchyService;
+import org.reactome.server.graph.service.helper.PathwayBrowserNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of the HierarchyService (see AsyncServiceExecutor)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class AsyncHierarchyService {
+
+    @Autowired
+    private HierarchyService hierarchyService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    public CompletableFuture<PathwayBrowserNode> getLocationsInPathwayBrowser(Object identifier, Boolean showDirectParticipants, Boolean omitNonDisplayableItems) {
+        return asyncServiceExecutor.supply(() -> hierarchyService.getLocationsInPathwayBrowser(identifier, showDirectParticipants, omitNonDisplayableItems));
+    }
+
+    public CompletableFuture<PathwayBrowserNode> getSubHierarchy(Object identifier) {
+        return asyncServiceExecutor.supply(() -> hierarchyService.getSubHierarchy(identifier));
+    }
+
+    public CompletableFuture<Collection<PathwayBrowserNode>> getEventHierarchy(Object species) {
+        return asyncServiceExecutor.supply(() -> hierarchyService.getEventHierarchy(species));
+    }
+}
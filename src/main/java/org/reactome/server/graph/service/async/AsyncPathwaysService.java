@@ -0,0 +1,68 @@
+package org.reactome.server.graph.service.async;
+
+import org.reactome.server.graph.domain.model.Event;
+import org.reactome.server.graph.domain.model.Pathway;
+import org.reactome.server.graph.domain.result.SimpleDatabaseObject;
+import org.reactome.server.graph.service.PathwaysService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of the PathwaysService (see AsyncServiceExecutor)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class AsyncPathwaysService {
+
+    @Autowired
+    private PathwaysService pathwaysService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    public CompletableFuture<Collection<Event>> getContainedEvents(Object identifier) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getContainedEvents(identifier));
+    }
+
+    public CompletableFuture<Collection<Pathway>> getPathwaysFor(String identifier, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysFor(identifier, species));
+    }
+
+    public CompletableFuture<Collection<Pathway>> getPathwaysForAllFormsOf(String identifier, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysForAllFormsOf(identifier, species));
+    }
+
+    public CompletableFuture<Collection<Pathway>> getPathwaysWithDiagramFor(String identifier, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysWithDiagramFor(identifier, species));
+    }
+
+    public CompletableFuture<Collection<Pathway>> getPathwaysWithDiagramForAllFormsOf(String identifier, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysWithDiagramForAllFormsOf(identifier, species));
+    }
+
+    public CompletableFuture<Collection<Pathway>> getLowerLevelPathwaysForIdentifier(String identifier, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getLowerLevelPathwaysForIdentifier(identifier, species));
+    }
+
+    public CompletableFuture<Map<String, Collection<Pathway>>> getLowerLevelPathwaysForIdentifiers(Collection<String> identifiers, Object species) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getLowerLevelPathwaysForIdentifiers(identifiers, species));
+    }
+
+    public CompletableFuture<Collection<SimpleDatabaseObject>> getPathwaysForIdentifier(String identifier, String... pathways) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysForIdentifier(identifier, pathways));
+    }
+
+    public CompletableFuture<Collection<SimpleDatabaseObject>> getPathwaysForIdentifier(String identifier, Collection<String> pathways) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getPathwaysForIdentifier(identifier, pathways));
+    }
+
+    public CompletableFuture<Collection<SimpleDatabaseObject>> getDiagramEntitiesForIdentifier(String pathway, String identifier) {
+        return asyncServiceExecutor.supply(() -> pathwaysService.getDiagramEntitiesForIdentifier(pathway, identifier));
+    }
+}
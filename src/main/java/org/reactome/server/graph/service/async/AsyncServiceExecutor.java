@@ -0,0 +1,233 @@
+package org.reactome.server.graph.service.async;
+
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor behind the Async*Service facades. Any other call to the services can be run through it as well, so several
+ * graph lookups are composed without dedicating a caller thread to each one of them:
+ * <p>
+ * <code>
+ * CompletableFuture&lt;ContentDetails&gt; details = asyncServiceExecutor.supply(() -> detailsService.getContentDetails(id, false), 5_000);
+ * </code>
+ * <p>
+ * The pool and its queue are bounded. Once both are full, the calls run in the caller thread, which slows down the
+ * callers (backpressure), unless setRejectWhenSaturated(true) has been set (then the futures complete exceptionally
+ * with a RejectedExecutionException). Note that a call run in the caller thread is completed before supply returns,
+ * so its timeout does not apply: callers relying on the timeout to bound their response time have to set
+ * setRejectWhenSaturated(true) and handle the rejection. A call not finished in time completes its future
+ * exceptionally with a TimeoutException and is cancelled, as it is when the future is cancelled by the caller.
+ * <p>
+ * Reconfiguring the executor (setPoolSize or setRejectWhenSaturated) lets the calls already submitted finish in the
+ * previous pool, while shutting it down completes the ones that did not start exceptionally with a
+ * CancellationException. Calls submitted at the same time as the executor is replaced go to the new one.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Component
+@SuppressWarnings("WeakerAccess")
+public class AsyncServiceExecutor {
+
+    private int poolSize = 16;
+    private int queueSize = 1000;
+    private long timeout = 30_000;
+    private boolean rejectWhenSaturated = false;
+
+    private ThreadPoolExecutor executor = null;
+    private ScheduledThreadPoolExecutor timer = null;
+
+    /**
+     * Runs the task with the default timeout
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        return supply(task, timeout);
+    }
+
+    /**
+     * @param timeout maximum time (in milliseconds) for the task to complete (0 for no timeout). It does not apply
+     *                when the call runs in the caller thread because the executor is saturated
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task, long timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Call<T> running = new Call<>(task, future);
+        try {
+            getExecutor().execute(running);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        if (timeout > 0 && !future.isDone()) {
+            ScheduledFuture<?> expiration = getTimer().schedule(() -> {
+                future.completeExceptionally(new TimeoutException("The call did not complete in " + timeout + "ms"));
+            }, timeout, TimeUnit.MILLISECONDS);
+            future.whenComplete((r, t) -> expiration.cancel(false));
+        }
+        // Either timed out or cancelled by the caller, the thread does not need to keep working on it
+        future.whenComplete((r, t) -> {
+            if (t != null && !running.isDone()) running.cancel(true);
+        });
+        return future;
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    r -> new ServiceThread(r, "async-service-" + count.incrementAndGet()),
+                    getRejectionHandler(rejectWhenSaturated));
+        }
+        return executor;
+    }
+
+    /**
+     * A call can reach an executor that has just been replaced (or shut down) by another thread, in which case it is
+     * handed to the current one instead of being dropped. Otherwise the executor is saturated and the call either
+     * runs in the caller thread or is rejected
+     */
+    private RejectedExecutionHandler getRejectionHandler(boolean rejectWhenSaturated) {
+        return (r, from) -> {
+            if (from.isShutdown()) {
+                getExecutor().execute(r);
+            } else if (rejectWhenSaturated) {
+                throw new RejectedExecutionException("The executor is saturated");
+            } else {
+                r.run();
+            }
+        };
+    }
+
+    private synchronized ScheduledThreadPoolExecutor getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "async-service-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        return timer;
+    }
+
+    /**
+     * Stops the executor. The calls being executed are interrupted and the ones waiting for a thread complete
+     * exceptionally with a CancellationException
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            for (Runnable pending : executor.shutdownNow()) {
+                ((Call<?>) pending).discard();
+            }
+            executor = null;
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * The calls already submitted keep running in the current executor, which ends once they are done. The next ones
+     * go to a new executor with the current settings
+     */
+    private void replaceExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return true if the current thread belongs to the executor, so a call waiting for other calls it submits could
+     * be holding the thread they need
+     */
+    public static boolean inExecutorThread() {
+        return Thread.currentThread() instanceof ServiceThread;
+    }
+
+    /**
+     * @return number of calls waiting for a thread
+     */
+    public synchronized int getQueued() {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    /**
+     * @return number of calls being executed
+     */
+    public synchronized int getActive() {
+        return executor != null ? executor.getActiveCount() : 0;
+    }
+
+    /**
+     * Sets the number of threads and the size of the queue of the executor
+     */
+    public synchronized void setPoolSize(int poolSize, int queueSize) {
+        this.poolSize = poolSize;
+        this.queueSize = queueSize;
+        replaceExecutor();
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout default maximum time (in milliseconds) for every call to complete (0 for no timeout)
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isRejectWhenSaturated() {
+        return rejectWhenSaturated;
+    }
+
+    /**
+     * @param rejectWhenSaturated whether the calls are rejected (instead of run in the caller thread) once the pool
+     *                            and the queue are full
+     */
+    public synchronized void setRejectWhenSaturated(boolean rejectWhenSaturated) {
+        this.rejectWhenSaturated = rejectWhenSaturated;
+        replaceExecutor();
+    }
+
+    private static class ServiceThread extends Thread {
+
+        ServiceThread(Runnable target, String name) {
+            super(target, name);
+            setDaemon(true);
+        }
+    }
+
+    /**
+     * A task submitted to the executor, kept as such (instead of being wrapped by submit) so the ones discarded when
+     * shutting down can be told apart and their futures completed
+     */
+    private static class Call<T> extends FutureTask<Void> {
+
+        private final CompletableFuture<T> future;
+
+        Call(Callable<T> task, CompletableFuture<T> future) {
+            super(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+                return null;
+            });
+            this.future = future;
+        }
+
+        void discard() {
+            cancel(false);
+            future.completeExceptionally(new CancellationException("The executor was shut down before the call started"));
+        }
+    }
+}
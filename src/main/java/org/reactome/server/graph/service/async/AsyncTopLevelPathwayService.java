@@ -0,0 +1,41 @@
+package org.reactome.server.graph.service.async;
+
+import org.reactome.server.graph.domain.model.TopLevelPathway;
+import org.reactome.server.graph.service.TopLevelPathwayService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of the TopLevelPathwayService (see AsyncServiceExecutor)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@Service
+@SuppressWarnings("WeakerAccess")
+public class AsyncTopLevelPathwayService {
+
+    @Autowired
+    private TopLevelPathwayService topLevelPathwayService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    public CompletableFuture<Collection<TopLevelPathway>> getTopLevelPathways() {
+        return asyncServiceExecutor.supply(() -> topLevelPathwayService.getTopLevelPathways());
+    }
+
+    public CompletableFuture<Collection<TopLevelPathway>> getTopLevelPathways(Object species) {
+        return asyncServiceExecutor.supply(() -> topLevelPathwayService.getTopLevelPathways(species));
+    }
+
+    public CompletableFuture<Collection<TopLevelPathway>> getCuratedTopLevelPathways() {
+        return asyncServiceExecutor.supply(() -> topLevelPathwayService.getCuratedTopLevelPathways());
+    }
+
+    public CompletableFuture<Collection<TopLevelPathway>> getCuratedTopLevelPathways(Object species) {
+        return asyncServiceExecutor.supply(() -> topLevelPathwayService.getCuratedTopLevelPathways(species));
+    }
+}
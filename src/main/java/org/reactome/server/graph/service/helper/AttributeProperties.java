@@ -18,6 +18,20 @@ public class AttributeProperties implements Comparable<AttributeProperties> {
     private List<AttributeClass> attributeClasses = new LinkedList<>();
     private Class<? extends DatabaseObject> origin;
 
+    public AttributeProperties() {
+    }
+
+    /**
+     * Creates a copy of the given properties that can be modified without affecting them (AttributeClass is
+     * immutable, so the elements of the list are shared)
+     */
+    public AttributeProperties(AttributeProperties properties) {
+        this.name = properties.name;
+        this.cardinality = properties.cardinality;
+        this.attributeClasses.addAll(properties.attributeClasses);
+        this.origin = properties.origin;
+    }
+
     public String getName() {
         return name;
     }
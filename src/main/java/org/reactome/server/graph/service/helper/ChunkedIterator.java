@@ -0,0 +1,61 @@
+package org.reactome.server.graph.service.helper;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the result of a query that is retrieved in chunks. The next chunk is only requested once the
+ * previous one has been consumed, so no more than one chunk is kept in memory at any time and nothing else is
+ * retrieved when the client stops consuming (e.g. Stream.limit or Stream.findFirst).
+ * <p>
+ * Chunks are requested by position (keyset) giving the last element of the previous chunk to the fetcher.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class ChunkedIterator<T> implements Iterator<T> {
+
+    public interface Fetcher<T> {
+        /**
+         * @param last  the last element of the previous chunk or null for the first one
+         * @param limit the maximum number of elements of the chunk
+         * @return the elements following the last one
+         */
+        Collection<T> fetch(T last, int limit);
+    }
+
+    private final Fetcher<T> fetcher;
+    private final int chunkSize;
+
+    private Iterator<T> current = Collections.emptyIterator();
+    private T last = null;
+    private boolean finished = false;
+
+    public ChunkedIterator(Fetcher<T> fetcher, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("The chunk size has to be greater than 0");
+        this.fetcher = fetcher;
+        this.chunkSize = chunkSize;
+    }
+
+    public static <T> Stream<T> stream(Fetcher<T> fetcher, int chunkSize) {
+        Iterator<T> iterator = new ChunkedIterator<>(fetcher, chunkSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current.hasNext()) return true;
+        if (finished) return false;
+        Collection<T> chunk = fetcher.fetch(last, chunkSize);
+        if (chunk == null || chunk.size() < chunkSize) finished = true;
+        if (chunk == null || chunk.isEmpty()) return false;
+        current = chunk.iterator();
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return last = current.next();
+    }
+}
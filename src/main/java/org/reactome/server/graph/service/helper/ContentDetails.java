@@ -4,6 +4,7 @@ import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.domain.model.PhysicalEntity;
 import org.reactome.server.graph.domain.result.ComponentOf;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Set;
 
@@ -13,7 +14,7 @@ import java.util.Set;
  * @author Florian Korninger (florian.korninger@ebi.ac.uk)
  * @since 14.04.16.
  */
-public class ContentDetails {
+public class ContentDetails implements Serializable {
 
     private DatabaseObject databaseObject;
     private Set<PathwayBrowserNode> nodes;
@@ -0,0 +1,351 @@
+package org.reactome.server.graph.service.helper;
+
+import org.reactome.server.graph.service.util.DatabaseObjectUtils;
+
+import java.util.*;
+
+/**
+ * In-memory index of the event hierarchy of one species. It contains the hasEvent graph starting from the
+ * TopLevelPathways of the species together with the participants of the events (input, output, repeatedUnit,
+ * hasMember, hasCandidate and hasComponent), so the event hierarchy, the sub hierarchy of any of the contained
+ * objects and the ancestors of the events can be calculated without querying the database.
+ * <p>
+ * Nodes are kept sorted by dbId in primitive arrays (so they can be found with a binary search) and relationships
+ * are stored in compressed sparse row (CSR) adjacency arrays: the targets of the node in position i are stored in
+ * targets[offsets[i]] .. targets[offsets[i + 1] - 1]
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class EventHierarchyIndex {
+
+    private static final String TOP_LEVEL_PATHWAY = "TopLevelPathway";
+
+    private static final byte DIAGRAM_UNKNOWN = 0;
+    private static final byte DIAGRAM_FALSE = 1;
+    private static final byte DIAGRAM_TRUE = 2;
+
+    private final long[] dbIds;
+    private final String[] stIds;
+    private final String[] names;
+    private final String[] species;
+    private final String[] types;
+    private final byte[] diagrams;
+    private final Map<String, Integer> stIdIndex;
+
+    private final int[] roots;
+
+    // hasEvent (parent -> child)
+    private final int[] eventOffsets;
+    private final int[] eventTargets;
+    // hasEvent (child -> parent)
+    private final int[] parentOffsets;
+    private final int[] parentTargets;
+    // input|output|repeatedUnit|hasMember|hasCandidate|hasComponent
+    private final int[] participantOffsets;
+    private final int[] participantTargets;
+
+    private EventHierarchyIndex(Builder builder) {
+        int n = builder.nodes.size();
+        dbIds = new long[n];
+        int i = 0;
+        for (Long dbId : builder.nodes.keySet()) dbIds[i++] = dbId;
+        Arrays.sort(dbIds);
+
+        stIds = new String[n];
+        names = new String[n];
+        species = new String[n];
+        types = new String[n];
+        diagrams = new byte[n];
+        stIdIndex = new HashMap<>(n * 2);
+        for (i = 0; i < n; i++) {
+            Node node = builder.nodes.get(dbIds[i]);
+            stIds[i] = node.stId;
+            names[i] = node.name;
+            species[i] = node.species;
+            types[i] = node.type;
+            diagrams[i] = node.diagram == null ? DIAGRAM_UNKNOWN : (node.diagram ? DIAGRAM_TRUE : DIAGRAM_FALSE);
+            if (node.stId != null) stIdIndex.put(node.stId, i);
+        }
+
+        List<Integer> roots = new ArrayList<>();
+        for (Long root : builder.roots) {
+            int pos = indexOf(root);
+            if (pos >= 0 && !roots.contains(pos)) roots.add(pos);
+        }
+        this.roots = new int[roots.size()];
+        for (i = 0; i < this.roots.length; i++) this.roots[i] = roots.get(i);
+
+        int[] from = new int[builder.edgeCount], to = new int[builder.edgeCount];
+        int events = 0, participants = 0;
+        for (int e = 0; e < builder.edgeCount; e++) {
+            from[e] = indexOf(builder.edgeFrom[e]);
+            to[e] = indexOf(builder.edgeTo[e]);
+            if (from[e] < 0 || to[e] < 0) continue;
+            if (builder.edgeEvent[e]) events++; else participants++;
+        }
+        int[] eventFrom = new int[events], eventTo = new int[events];
+        int[] participantFrom = new int[participants], participantTo = new int[participants];
+        int ev = 0, pa = 0;
+        for (int e = 0; e < builder.edgeCount; e++) {
+            if (from[e] < 0 || to[e] < 0) continue;
+            if (builder.edgeEvent[e]) {
+                eventFrom[ev] = from[e];
+                eventTo[ev++] = to[e];
+            } else {
+                participantFrom[pa] = from[e];
+                participantTo[pa++] = to[e];
+            }
+        }
+
+        int[][] csr = csr(n, eventFrom, eventTo);
+        eventOffsets = csr[0];
+        eventTargets = csr[1];
+        csr = csr(n, eventTo, eventFrom);
+        parentOffsets = csr[0];
+        parentTargets = csr[1];
+        csr = csr(n, participantFrom, participantTo);
+        participantOffsets = csr[0];
+        participantTargets = csr[1];
+    }
+
+    /**
+     * @return the position of the object with the given dbId or -1 if it is not part of the index
+     */
+    public int indexOf(long dbId) {
+        int pos = Arrays.binarySearch(dbIds, dbId);
+        return pos >= 0 ? pos : -1;
+    }
+
+    /**
+     * @return the position of the object with the given stId or -1 if it is not part of the index
+     */
+    public int indexOf(String stId) {
+        Integer pos = stIdIndex.get(stId);
+        return pos != null ? pos : -1;
+    }
+
+    /**
+     * @param identifier stId or dbId
+     * @return the position of the object with the given identifier or -1 if it is not part of the index
+     */
+    public int indexOf(Object identifier) {
+        String id = DatabaseObjectUtils.getIdentifier(identifier);
+        if (DatabaseObjectUtils.isStId(id)) {
+            return indexOf(id);
+        } else if (DatabaseObjectUtils.isDbId(id)) {
+            return indexOf(Long.parseLong(id));
+        }
+        return -1;
+    }
+
+    public boolean contains(Object identifier) {
+        return indexOf(identifier) >= 0;
+    }
+
+    public long getDbId(int pos) {
+        return dbIds[pos];
+    }
+
+    public int size() {
+        return dbIds.length;
+    }
+
+    /**
+     * @return one tree per TopLevelPathway containing events, or null if there are none
+     */
+    public Collection<PathwayBrowserNode> getEventHierarchy() {
+        Collection<PathwayBrowserNode> eventHierarchy = new ArrayList<>();
+        for (int root : roots) {
+            // Same as the query, TopLevelPathways without events are not part of the hierarchy
+            if (eventOffsets[root] == eventOffsets[root + 1]) continue;
+            eventHierarchy.add(buildTree(root, false));
+        }
+        return eventHierarchy.isEmpty() ? null : eventHierarchy;
+    }
+
+    /**
+     * @param identifier stId or dbId
+     * @return the tree of events and participants under the given object, or null if it is not part of the index
+     */
+    public PathwayBrowserNode getSubHierarchy(Object identifier) {
+        int pos = indexOf(identifier);
+        return pos >= 0 ? buildTree(pos, true) : null;
+    }
+
+    /**
+     * Every path contains the dbIds from the given event up to a TopLevelPathway (both included)
+     *
+     * @param identifier stId or dbId
+     * @return all the paths from the event to the TopLevelPathways, or null if it is not part of the index
+     */
+    public Collection<List<Long>> getAncestors(Object identifier) {
+        int pos = indexOf(identifier);
+        if (pos < 0) return null;
+        Collection<List<Long>> ancestors = new ArrayList<>();
+        addAncestors(pos, new ArrayDeque<>(), ancestors);
+        return ancestors;
+    }
+
+    private void addAncestors(int pos, Deque<Integer> path, Collection<List<Long>> ancestors) {
+        path.addLast(pos);
+        if (TOP_LEVEL_PATHWAY.equals(types[pos])) {
+            List<Long> ancestor = new ArrayList<>(path.size());
+            for (Integer p : path) ancestor.add(dbIds[p]);
+            ancestors.add(ancestor);
+        }
+        for (int i = parentOffsets[pos]; i < parentOffsets[pos + 1]; i++) {
+            addAncestors(parentTargets[i], path, ancestors);
+        }
+        path.removeLast();
+    }
+
+    private PathwayBrowserNode buildTree(int root, boolean includeParticipants) {
+        Map<Integer, PathwayBrowserNode> nodes = new HashMap<>();
+        PathwayBrowserNode rootNode = createNode(root);
+        // Root by default is clickable and highlighted
+        rootNode.setClickable(true);
+        rootNode.setHighlighted(true);
+        nodes.put(root, rootNode);
+
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            PathwayBrowserNode parent = nodes.get(current);
+            addChildren(parent, eventOffsets[current], eventOffsets[current + 1], eventTargets, nodes, stack);
+            if (includeParticipants) {
+                addChildren(parent, participantOffsets[current], participantOffsets[current + 1], participantTargets, nodes, stack);
+            }
+        }
+        return rootNode;
+    }
+
+    private void addChildren(PathwayBrowserNode parent, int from, int to, int[] targets, Map<Integer, PathwayBrowserNode> nodes, Deque<Integer> stack) {
+        for (int i = from; i < to; i++) {
+            int target = targets[i];
+            PathwayBrowserNode child = nodes.get(target);
+            if (child == null) {
+                child = createNode(target);
+                doHighlighting(child);
+                nodes.put(target, child);
+                stack.push(target);
+            }
+            parent.addChild(child);
+            child.addParent(parent);
+        }
+    }
+
+    private PathwayBrowserNode createNode(int pos) {
+        PathwayBrowserNode node = new PathwayBrowserNode();
+        node.setStId(stIds[pos]);
+        node.setName(names[pos]);
+        node.setDiagram(diagrams[pos] == DIAGRAM_UNKNOWN ? null : diagrams[pos] == DIAGRAM_TRUE);
+        node.setSpecies(species[pos]);
+        node.setType(types[pos]);
+        return node;
+    }
+
+    private void doHighlighting(PathwayBrowserNode node) {
+        if (node.getType().equals(TOP_LEVEL_PATHWAY)) {
+            node.setClickable(true);
+            node.setHighlighted(false);
+        }
+
+        if (node.getType().contains("Reaction") || node.getType().equals("BlackBoxEvent") || node.getType().contains("Polymerisation")) {
+            node.setClickable(true);
+            node.setHighlighted(true);
+        }
+    }
+
+    /**
+     * Builds the CSR adjacency arrays for the given list of relationships, removing duplicates
+     *
+     * @return {offsets, targets}
+     */
+    private static int[][] csr(int n, int[] from, int[] to) {
+        int[] offsets = new int[n + 1];
+        for (int f : from) offsets[f + 1]++;
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+
+        int[] targets = new int[from.length];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < from.length; i++) targets[next[from[i]]++] = to[i];
+
+        // Sorting the targets of every node to remove the duplicates
+        int[] compactOffsets = new int[n + 1];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(targets, offsets[i], offsets[i + 1]);
+            compactOffsets[i] = size;
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (j == offsets[i] || targets[j] != targets[j - 1]) targets[size++] = targets[j];
+            }
+        }
+        compactOffsets[n] = size;
+        return new int[][]{compactOffsets, Arrays.copyOf(targets, size)};
+    }
+
+    /**
+     * Collects the nodes and relationships while they are retrieved from the database
+     */
+    public static class Builder {
+
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private final List<Long> roots = new ArrayList<>();
+
+        private long[] edgeFrom = new long[1024];
+        private long[] edgeTo = new long[1024];
+        private boolean[] edgeEvent = new boolean[1024];
+        private int edgeCount = 0;
+
+        /**
+         * @return true if the node was not previously added
+         */
+        public boolean addNode(Long dbId, String stId, String name, Boolean diagram, String species, String type) {
+            if (nodes.containsKey(dbId)) return false;
+            nodes.put(dbId, new Node(stId, name, diagram, species, type));
+            return true;
+        }
+
+        public Builder addRoot(Long dbId) {
+            roots.add(dbId);
+            return this;
+        }
+
+        /**
+         * @param event true for hasEvent relationships and false for participants
+         */
+        public Builder addRelationship(Long from, Long to, boolean event) {
+            if (edgeCount == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+                edgeEvent = Arrays.copyOf(edgeEvent, edgeCount * 2);
+            }
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeEvent[edgeCount++] = event;
+            return this;
+        }
+
+        public EventHierarchyIndex build() {
+            return new EventHierarchyIndex(this);
+        }
+    }
+
+    private static class Node {
+        private final String stId;
+        private final String name;
+        private final Boolean diagram;
+        private final String species;
+        private final String type;
+
+        Node(String stId, String name, Boolean diagram, String species, String type) {
+            this.stId = stId;
+            this.name = name;
+            this.diagram = diagram;
+            this.species = species;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.reactome.server.graph.service.helper;
+
+import java.util.*;
+
+/**
+ * Declares the part of the graph that has to be retrieved together with a given object, so it can be loaded
+ * in one single query instead of relying on the lazy loading.
+ * <p>
+ * Each call to fetch adds a path of relationships starting from the requested object. Every step of the path
+ * contains one or more relationship types separated by "|" and it can start with "&lt;" to follow the relationship
+ * in the INCOMING direction (OUTGOING by default). Paths sharing the beginning are merged, so the following
+ * <p>
+ * <code>
+ * FetchPlan plan = new FetchPlan()
+ * .fetch("hasEvent", "input|output", "referenceEntity")
+ * .fetch("species");
+ * </code>
+ * <p>
+ * retrieves a Pathway with its events, the inputs and outputs of those events, their reference entities and the
+ * species of the pathway.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class FetchPlan {
+
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    private boolean preventLazyLoading = true;
+
+    public FetchPlan() {
+    }
+
+    /**
+     * Adds a path of relationships to be fetched starting from the requested object
+     *
+     * @param path steps of the path e.g. "hasEvent", "input|output", "&lt;inferredTo"
+     * @return this plan
+     */
+    public FetchPlan fetch(String... path) {
+        if (path == null || path.length == 0) return this;
+        Map<String, Step> current = steps;
+        for (String step : path) {
+            Step s = Step.parse(step);
+            Step existing = current.get(s.getKey());
+            if (existing == null) {
+                current.put(s.getKey(), s);
+                existing = s;
+            }
+            current = existing.children;
+        }
+        return this;
+    }
+
+    /**
+     * By default, all the objects retrieved by the plan will have the lazy loading disabled, so no further queries
+     * are performed when walking the retrieved graph. Set it to false to keep lazy loading for whatever was not
+     * declared in the plan.
+     */
+    public FetchPlan preventLazyLoading(boolean preventLazyLoading) {
+        this.preventLazyLoading = preventLazyLoading;
+        return this;
+    }
+
+    public boolean isPreventLazyLoading() {
+        return preventLazyLoading;
+    }
+
+    public Collection<Step> getSteps() {
+        return steps.values();
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+
+    /**
+     * One step of the plan. It contains the relationship types to follow, the direction and the steps to be
+     * followed from the objects retrieved in this one
+     */
+    public static class Step {
+
+        private final List<String> relationships;
+        private final RelationshipDirection direction;
+        private final Map<String, Step> children = new LinkedHashMap<>();
+
+        public Step(RelationshipDirection direction, String... relationships) {
+            this.direction = direction;
+            this.relationships = Arrays.asList(relationships);
+        }
+
+        private static Step parse(String step) {
+            String aux = step.trim();
+            RelationshipDirection direction = RelationshipDirection.OUTGOING;
+            if (aux.startsWith("<")) {
+                direction = RelationshipDirection.INCOMING;
+                aux = aux.substring(1);
+            }
+            List<String> relationships = new ArrayList<>();
+            for (String relationship : aux.split("\\|")) {
+                if (!relationship.trim().isEmpty()) relationships.add(relationship.trim());
+            }
+            if (relationships.isEmpty()) throw new IllegalArgumentException("Empty step in the fetch plan: '" + step + "'");
+            return new Step(direction, relationships.toArray(new String[relationships.size()]));
+        }
+
+        public String[] getRelationships() {
+            return relationships.toArray(new String[relationships.size()]);
+        }
+
+        public RelationshipDirection getDirection() {
+            return direction;
+        }
+
+        public Collection<Step> getChildren() {
+            return children.values();
+        }
+
+        private String getKey() {
+            return direction + ":" + String.join("|", relationships);
+        }
+    }
+}
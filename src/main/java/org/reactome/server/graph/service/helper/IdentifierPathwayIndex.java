@@ -0,0 +1,195 @@
+package org.reactome.server.graph.service.helper;
+
+import java.util.*;
+
+/**
+ * Inverted index to map identifiers (identifier, name or gene name of the reference objects and stId of the physical
+ * entities) to the lower level pathways containing reactions where they participate.
+ * <p>
+ * The participants graph (from the reactions down to every physical entity) is kept in reverse (child to parents) as
+ * a CSR adjacency over the dbIds sorted in a primitive array. Mapping an identifier means walking up from its
+ * physical entities to the reactions and collecting the lower level pathways of those reactions.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class IdentifierPathwayIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long[] nodes;
+    private final long[] pathways;
+
+    // participants (child -> parents)
+    private final int[] parentOffsets;
+    private final int[] parentTargets;
+    // reaction -> lower level pathways (positions in pathways)
+    private final int[] pathwayOffsets;
+    private final int[] pathwayTargets;
+
+    private final Map<String, int[]> identifiers;
+
+    private IdentifierPathwayIndex(Builder builder) {
+        nodes = toSortedArray(builder.nodes);
+        pathways = toSortedArray(builder.pathways);
+
+        int[] from = new int[builder.relationships.size()], to = new int[builder.relationships.size()];
+        for (int i = 0; i < from.length; i++) {
+            long[] relationship = builder.relationships.get(i);
+            from[i] = indexOf(nodes, relationship[1]);
+            to[i] = indexOf(nodes, relationship[0]);
+        }
+        int[][] csr = csr(nodes.length, from, to);
+        parentOffsets = csr[0];
+        parentTargets = csr[1];
+
+        from = new int[builder.reactions.size()];
+        to = new int[builder.reactions.size()];
+        for (int i = 0; i < from.length; i++) {
+            long[] reaction = builder.reactions.get(i);
+            from[i] = indexOf(nodes, reaction[0]);
+            to[i] = indexOf(pathways, reaction[1]);
+        }
+        csr = csr(nodes.length, from, to);
+        pathwayOffsets = csr[0];
+        pathwayTargets = csr[1];
+
+        identifiers = new HashMap<>(builder.identifiers.size() * 2);
+        for (Map.Entry<String, Set<Long>> entry : builder.identifiers.entrySet()) {
+            int[] aux = new int[entry.getValue().size()];
+            int i = 0;
+            for (Long dbId : entry.getValue()) aux[i++] = indexOf(nodes, dbId);
+            identifiers.put(entry.getKey(), aux);
+        }
+    }
+
+    /**
+     * @return the dbIds of the lower level pathways for every one of the given identifiers that has been found
+     */
+    public Map<String, long[]> getPathways(Collection<String> identifiers) {
+        Map<String, long[]> rtn = new HashMap<>();
+        // Marks are reused from one identifier to the next one, so nothing has to be cleared
+        int[] visited = new int[nodes.length];
+        int[] collected = new int[pathways.length];
+        int[] stack = new int[64];
+        int stamp = 0;
+        for (String identifier : identifiers) {
+            int[] start = this.identifiers.get(identifier);
+            if (start == null) continue;
+            stamp++;
+
+            int top = 0, found = 0;
+            for (int pos : start) {
+                if (visited[pos] == stamp) continue;
+                visited[pos] = stamp;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = pos;
+            }
+            while (top > 0) {
+                int current = stack[--top];
+                for (int i = pathwayOffsets[current]; i < pathwayOffsets[current + 1]; i++) {
+                    int pathway = pathwayTargets[i];
+                    if (collected[pathway] != stamp) {
+                        collected[pathway] = stamp;
+                        found++;
+                    }
+                }
+                for (int i = parentOffsets[current]; i < parentOffsets[current + 1]; i++) {
+                    int parent = parentTargets[i];
+                    if (visited[parent] == stamp) continue;
+                    visited[parent] = stamp;
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = parent;
+                }
+            }
+
+            long[] aux = found == 0 ? EMPTY : new long[found];
+            for (int i = 0, j = 0; j < found; i++) {
+                if (collected[i] == stamp) aux[j++] = pathways[i];
+            }
+            rtn.put(identifier, aux);
+        }
+        return rtn;
+    }
+
+    public boolean contains(String identifier) {
+        return identifiers.containsKey(identifier);
+    }
+
+    public int size() {
+        return identifiers.size();
+    }
+
+    private static int indexOf(long[] array, long dbId) {
+        return Arrays.binarySearch(array, dbId);
+    }
+
+    private static long[] toSortedArray(Set<Long> set) {
+        long[] rtn = new long[set.size()];
+        int i = 0;
+        for (Long dbId : set) rtn[i++] = dbId;
+        Arrays.sort(rtn);
+        return rtn;
+    }
+
+    /**
+     * Builds the CSR adjacency arrays for the given list of relationships
+     *
+     * @return {offsets, targets}
+     */
+    private static int[][] csr(int n, int[] from, int[] to) {
+        int[] offsets = new int[n + 1];
+        for (int f : from) offsets[f + 1]++;
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+        int[] targets = new int[from.length];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < from.length; i++) targets[next[from[i]]++] = to[i];
+        return new int[][]{offsets, targets};
+    }
+
+    /**
+     * Collects the content of the index while it is retrieved from the database
+     */
+    public static class Builder {
+
+        private final Set<Long> nodes = new HashSet<>();
+        private final Set<Long> pathways = new HashSet<>();
+        private final List<long[]> reactions = new ArrayList<>();
+        private final List<long[]> relationships = new ArrayList<>();
+        private final Map<String, Set<Long>> identifiers = new HashMap<>();
+
+        /**
+         * @param pathway a lower level pathway containing the reaction
+         */
+        public Builder addReaction(Long reaction, Long pathway) {
+            nodes.add(reaction);
+            pathways.add(pathway);
+            reactions.add(new long[]{reaction, pathway});
+            return this;
+        }
+
+        /**
+         * @param parent reaction or participant
+         * @param child  participant of the parent
+         */
+        public Builder addRelationship(Long parent, Long child) {
+            nodes.add(parent);
+            nodes.add(child);
+            relationships.add(new long[]{parent, child});
+            return this;
+        }
+
+        public Builder addIdentifier(String identifier, Long physicalEntity) {
+            if (identifier == null || identifier.isEmpty()) return this;
+            nodes.add(physicalEntity);
+            Set<Long> aux = identifiers.get(identifier);
+            if (aux == null) identifiers.put(identifier, aux = new HashSet<>());
+            aux.add(physicalEntity);
+            return this;
+        }
+
+        public IdentifierPathwayIndex build() {
+            return new IdentifierPathwayIndex(this);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.reactome.server.graph.service.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * One page of a class listing retrieved with keyset pagination. Instead of skipping the previous pages, the next page
+ * is retrieved starting right after the last object of this one (sorting key plus dbId to break the ties), so every
+ * page has the same cost no matter how deep it is.
+ * <p>
+ * The position is handed over to the client as an opaque token that has to be sent back to retrieve the next page:
+ * <p>
+ * <code>
+ * KeysetPage&lt;Pathway&gt; page = schemaService.getPageByClass(Pathway.class, null, 1000);
+ * while (page.hasNext()) page = schemaService.getPageByClass(Pathway.class, page.getNext(), 1000);
+ * </code>
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class KeysetPage<T> {
+
+    private final Collection<T> content;
+    private final String next;
+
+    public KeysetPage(Collection<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public Collection<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the token to retrieve the next page or null if this is the last one
+     */
+    public String getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Position of the last object of a page: the value of the sorting property and the dbId
+     */
+    public static class Cursor {
+
+        private static final String SEPARATOR = ":";
+
+        private final String key;
+        private final Long dbId;
+
+        public Cursor(String key, Long dbId) {
+            this.key = key;
+            this.dbId = dbId;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Long getDbId() {
+            return dbId;
+        }
+
+        public String toToken() {
+            String token = dbId + SEPARATOR + (key == null ? "" : key);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param token the token of the next page or null for the first one
+         * @return the cursor contained in the token or null for the first page
+         * @throws IllegalArgumentException if the token has not been generated by toToken
+         */
+        public static Cursor fromToken(String token) {
+            if (token == null || token.isEmpty()) return null;
+            try {
+                String aux = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int pos = aux.indexOf(SEPARATOR);
+                return new Cursor(aux.substring(pos + 1), Long.valueOf(aux.substring(0, pos)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid page token '" + token + "'", e);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.reactome.server.graph.service.helper;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.annotation.Nonnull;
+import java.io.Serializable;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -13,7 +14,7 @@ import java.util.TreeSet;
  * @since 06.04.16.
  */
 @SuppressWarnings("unused")
-public class PathwayBrowserNode implements Comparable<PathwayBrowserNode> {
+public class PathwayBrowserNode implements Serializable, Comparable<PathwayBrowserNode> {
 
     private String stId;
     private String name;
@@ -0,0 +1,69 @@
+package org.reactome.server.graph.service.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One operator of the execution plan of a profiled cypher query (and the operators feeding it)
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class QueryPlan {
+
+    private final String operatorType;
+    private final long rows;
+    private final long dbHits;
+    private final List<String> identifiers;
+    private final List<QueryPlan> children = new ArrayList<>();
+
+    public QueryPlan(String operatorType, long rows, long dbHits, List<String> identifiers) {
+        this.operatorType = operatorType;
+        this.rows = rows;
+        this.dbHits = dbHits;
+        this.identifiers = identifiers == null ? Collections.emptyList() : identifiers;
+    }
+
+    public String getOperatorType() {
+        return operatorType;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDbHits() {
+        return dbHits;
+    }
+
+    public List<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    public List<QueryPlan> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return the db hits of this operator and all the ones below it
+     */
+    public long getTotalDbHits() {
+        long total = dbHits;
+        for (QueryPlan child : children) total += child.getTotalDbHits();
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, 0);
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb, int level) {
+        for (int i = 0; i < level; i++) sb.append("  ");
+        sb.append(operatorType).append(" rows=").append(rows).append(" dbHits=").append(dbHits).append(" ").append(identifiers).append("\n");
+        for (QueryPlan child : children) child.append(sb, level + 1);
+    }
+}
@@ -0,0 +1,122 @@
+package org.reactome.server.graph.service.helper;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * A repository query that took longer than the slow query threshold (see LoggingAspect.setSlowQueryThreshold), either
+ * completed or failed. When profiling is enabled, the plan is added once the query has been re-run with PROFILE in
+ * the background.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("unused")
+public class SlowQuery {
+
+    // Long parameters (e.g. lists of thousands of identifiers) are cut in toString
+    private static final int MAX_ELEMENTS = 10;
+    private static final int MAX_LENGTH = 100;
+
+    private final long timestamp = System.currentTimeMillis();
+    private final String name;
+    private final String query;
+    private final Map<String, Object> parameters;
+    private final long rows;
+    private final long elapsed;
+    private final boolean failed;
+    private final String database;
+    private volatile QueryPlan plan;
+
+    /**
+     * @param name       ClassName.methodName of the repository method executing the query
+     * @param query      the cypher query
+     * @param parameters the parameters of the query
+     * @param rows       number of rows returned (-1 if unknown)
+     * @param elapsed    execution time in milliseconds
+     * @param failed     whether the query threw an exception (e.g. a timeout)
+     * @param database   uri of the database the query was executed in or null if it is the one configured for the OGM
+     */
+    public SlowQuery(String name, String query, Map<String, Object> parameters, long rows, long elapsed, boolean failed, String database) {
+        this.name = name;
+        this.query = query;
+        this.parameters = parameters;
+        this.rows = rows;
+        this.elapsed = elapsed;
+        this.failed = failed;
+        this.database = database;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the profiled plan or null if the query has not been (or could not be) profiled
+     */
+    public QueryPlan getPlan() {
+        return plan;
+    }
+
+    public void setPlan(QueryPlan plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + elapsed + " ms, " + (failed ? "failed" : rows + " rows") + (database != null ? ", " + database : "") + "): "
+                + query.replaceAll("\\s+", " ").trim() + " " + toString(parameters);
+    }
+
+    private static String toString(Object value) {
+        if (value instanceof Map) {
+            StringJoiner sj = new StringJoiner(", ", "{", "}");
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sj.add(entry.getKey() + "=" + toString(entry.getValue()));
+            }
+            return sj.toString();
+        }
+        if (value instanceof Collection || (value != null && value.getClass().isArray())) {
+            int size = value instanceof Collection ? ((Collection) value).size() : Array.getLength(value);
+            Iterator<?> it = value instanceof Collection ? ((Collection<?>) value).iterator() : null;
+            StringJoiner sj = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < Math.min(size, MAX_ELEMENTS); i++) {
+                sj.add(toString(it != null ? it.next() : Array.get(value, i)));
+            }
+            if (size > MAX_ELEMENTS) sj.add("... (" + size + " elements)");
+            return sj.toString();
+        }
+        String rtn = String.valueOf(value);
+        return rtn.length() > MAX_LENGTH ? rtn.substring(0, MAX_LENGTH) + "..." : rtn;
+    }
+}
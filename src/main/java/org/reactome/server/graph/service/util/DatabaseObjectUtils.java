@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -31,7 +32,10 @@ public class DatabaseObjectUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseObjectUtils.class);
 
-    private static Map<String, SchemaNode> map;
+    // The schema does not change while running, so what is derived from it is kept once computed
+    private static final Map<String, Class<?>> schemaClasses = new ConcurrentHashMap<>();
+    private static final Map<String, Set<AttributeProperties>> attributeTables = new ConcurrentHashMap<>();
+    private static final Map<String, Set<AttributeProperties>> referrals = new ConcurrentHashMap<>();
 
     private static DatabaseObjectRepository databaseObjectRepository;
 
@@ -40,20 +44,23 @@ public class DatabaseObjectUtils {
         DatabaseObjectUtils.databaseObjectRepository = databaseObjectRepository;
     }
 
+    /**
+     * The counts come from the database, so the tree is built for every call, but the classes of the labels are only
+     * looked up once
+     */
     @SuppressWarnings("unused")
     public static SchemaNode getGraphModelTree(Collection<SchemaClassCount> schemaClassCounts) throws ClassNotFoundException {
-        map = new HashMap<>();
-        String packageName = DatabaseObject.class.getPackage().getName() + ".";
+        Map<String, SchemaNode> map = new HashMap<>();
         for (SchemaClassCount schemaClassCount : schemaClassCounts) {
             Class<?> lowestClass = Object.class;
             for (String label : schemaClassCount.getLabels()) {
                 if (label.equals("DBInfo")) continue;
-                Class clazz = Class.forName(packageName + label);
+                Class clazz = getSchemaClassForName(label);
                 if (lowestClass.isAssignableFrom(clazz)) {
                     lowestClass = clazz;
                 }
             }
-            recursion(lowestClass, null, schemaClassCount.getCount());
+            recursion(map, lowestClass, null, schemaClassCount.getCount());
         }
         SchemaNode n = map.get(DatabaseObject.class.getSimpleName());
         correctCounts(n);
@@ -101,10 +108,21 @@ public class DatabaseObjectUtils {
         return map;
     }
 
+    /**
+     * @return a copy of the attribute table of the given class (computed only the first time it is requested)
+     */
     @SuppressWarnings("unused")
     public static Set<AttributeProperties> getAttributeTable(String className) throws ClassNotFoundException {
-        String packageName = DatabaseObject.class.getPackage().getName() + ".";
-        Class clazz = Class.forName(packageName + className);
+        Set<AttributeProperties> attributeTable = attributeTables.get(className);
+        if (attributeTable == null) {
+            attributeTable = buildAttributeTable(getSchemaClassForName(className));
+            Set<AttributeProperties> existing = attributeTables.putIfAbsent(className, attributeTable);
+            if (existing != null) attributeTable = existing;
+        }
+        return copy(attributeTable);
+    }
+
+    private static Set<AttributeProperties> buildAttributeTable(Class clazz) {
         Set<AttributeProperties> propertiesList = new TreeSet<>();
 
         while (clazz != null && !clazz.getClass().equals(Object.class)) {
@@ -130,22 +148,39 @@ public class DatabaseObjectUtils {
         return propertiesList;
     }
 
+    /**
+     * @return a copy of the attributes of other classes pointing to the given one (computed only the first time it is
+     * requested)
+     */
     @SuppressWarnings("unused")
     public static Set<AttributeProperties> getReferrals(String className) throws ClassNotFoundException {
-        String packageName = DatabaseObject.class.getPackage().getName();
+        Set<AttributeProperties> rtn = referrals.get(className);
+        if (rtn == null) {
+            rtn = buildReferrals(getSchemaClassForName(className));
+            Set<AttributeProperties> existing = referrals.putIfAbsent(className, rtn);
+            if (existing != null) rtn = existing;
+        }
+        return copy(rtn);
+    }
+
+    /**
+     * The cached sets are never handed out, callers get a deep copy they can modify
+     */
+    private static Set<AttributeProperties> copy(Set<AttributeProperties> attributes) {
+        Set<AttributeProperties> rtn = new TreeSet<>();
+        for (AttributeProperties properties : attributes) rtn.add(new AttributeProperties(properties));
+        return rtn;
+    }
 
-        Class target = Class.forName(packageName + "." + className);
+    private static Set<AttributeProperties> buildReferrals(Class target) {
         Collection<Class> targets = new LinkedList<>();
         while (target != null && !target.getClass().equals(Object.class)) {
             targets.add(target);
             target = target.getSuperclass();
         }
 
-        Reflections reflections = new Reflections(packageName);
-        Set<Class<? extends DatabaseObject>> classes = reflections.getSubTypesOf(DatabaseObject.class);
-
         Set<AttributeProperties> propertiesList = new TreeSet<>();
-        for (Class<? extends DatabaseObject> clazz : classes) {
+        for (Class<? extends DatabaseObject> clazz : getModelClasses()) {
             if (targets.contains(clazz)) continue;
             for (Method method : clazz.getDeclaredMethods()) {
                 String methodName = method.getName();
@@ -206,11 +241,23 @@ public class DatabaseObjectUtils {
         return Class.forName(packageName + className);
     }
 
+    /**
+     * Same as getClassForName but the classes found are kept, so they are looked up only once
+     */
+    private static Class getSchemaClassForName(String className) throws ClassNotFoundException {
+        Class<?> clazz = schemaClasses.get(className);
+        if (clazz == null) {
+            clazz = getClassForName(className);
+            schemaClasses.put(className, clazz);
+        }
+        return clazz;
+    }
+
     public static String getSchemaClass(Collection<String> labels) {
         Class<?> lowestClass = Object.class;
         for (String label : labels) {
             try {
-                Class clazz = getClassForName(label);
+                Class clazz = getSchemaClassForName(label);
                 if (lowestClass.isAssignableFrom(clazz)) {
                     lowestClass = clazz;
                 }
@@ -232,7 +279,7 @@ public class DatabaseObjectUtils {
         return id.trim().split("\\.")[0];
     }
 
-    private static void recursion(Class clazz, SchemaNode oldNode, int count) {
+    private static void recursion(Map<String, SchemaNode> map, Class clazz, SchemaNode oldNode, int count) {
         if (!clazz.equals(Object.class)) {
             SchemaNode node = new SchemaNode(clazz, count);
             if (map.containsKey(clazz.getSimpleName())) {
@@ -247,7 +294,7 @@ public class DatabaseObjectUtils {
                     node.addChild(oldNode);
                 }
                 map.put(clazz.getSimpleName(), node);
-                recursion(clazz.getSuperclass(), node, 0);
+                recursion(map, clazz.getSuperclass(), node, 0);
             }
         }
     }
@@ -261,6 +308,20 @@ public class DatabaseObjectUtils {
         }
     }
 
+    /**
+     * @return all the classes of the model (subclasses of DatabaseObject). They are scanned only once, the first time
+     * they are needed, and shared with the rest of the library (e.g. ModelMetadata)
+     */
+    public static Set<Class<? extends DatabaseObject>> getModelClasses() {
+        return ModelClasses.classes;
+    }
+
+    private static class ModelClasses {
+        private static final Set<Class<? extends DatabaseObject>> classes = Collections.unmodifiableSet(
+                new Reflections(DatabaseObject.class.getPackage().getName()).getSubTypesOf(DatabaseObject.class)
+        );
+    }
+
     private static AttributeProperties getAttributeProperties(Method method) {
         AttributeProperties properties = new AttributeProperties();
         properties.setName(lowerFirst(method.getName().substring(3)));
@@ -0,0 +1,83 @@
+package org.reactome.server.graph.service.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from primitive longs (e.g. dbIds) to objects with open addressing (see LongHashSet). Meant as identity map
+ * when hydrating or walking graphs of objects, where hashing DatabaseObject (dbId, stId and displayName) or boxing
+ * the dbIds for every lookup is noticeable. Entries are iterated in insertion order with keyAt(i) and valueAt(i) for
+ * i in [0, size). The map extends the set of its keys (adding a key without value maps it to null). Not thread
+ * safe.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public class LongHashMap<V> extends LongHashSet {
+
+    private Object[] values;
+
+    public LongHashMap() {
+        this(16);
+    }
+
+    public LongHashMap(int expectedSize) {
+        super(expectedSize);
+        values = new Object[keys.length];
+    }
+
+    public V get(long key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return contains(key);
+    }
+
+    /**
+     * @return the previous value for the key or null if there was none
+     */
+    public V put(long key, V value) {
+        int index = insert(key);
+        if (index < 0) {
+            index = -index - 1;
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        values[index] = value;
+        return null;
+    }
+
+    /**
+     * @return the current value for the key (and then nothing is changed) or null if the given one has been added
+     */
+    public V putIfAbsent(long key, V value) {
+        int index = insert(key);
+        if (index < 0) return (V) values[-index - 1];
+        values[index] = value;
+        return null;
+    }
+
+    /**
+     * @return the value of the entry at the given position (insertion order)
+     */
+    public V valueAt(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (V) values[index];
+    }
+
+    public List<V> values() {
+        List<V> rtn = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) rtn.add((V) values[i]);
+        return rtn;
+    }
+
+    @Override
+    void grow(int capacity) {
+        super.grow(capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,129 @@
+package org.reactome.server.graph.service.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of primitive longs (e.g. dbIds) with open addressing, so keys are neither boxed nor hashed through their
+ * objects. Keys are kept in insertion order in a dense array and the hash table only contains positions in that
+ * array, so iterating (keyAt(i) for i in [0, size)) follows the insertion order. Elements cannot be removed, which
+ * suits the identity maps and visited sets of the graph walks. Not thread safe.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings("WeakerAccess")
+public class LongHashSet {
+
+    long[] keys;
+    private int[] table;    // position in keys + 1 (0 means empty)
+    private int mask;
+    int size = 0;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        keys = new long[Math.max(4, expectedSize)];
+        table = new int[tableSize(keys.length)];
+        mask = table.length - 1;
+    }
+
+    /**
+     * @return true if the key was not present
+     */
+    public boolean add(long key) {
+        return insert(key) >= 0;
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the key at the given position (insertion order)
+     */
+    public long keyAt(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return keys[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * @return the keys boxed (e.g. to be used as a query parameter)
+     */
+    public List<Long> toList() {
+        List<Long> rtn = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) rtn.add(keys[i]);
+        return rtn;
+    }
+
+    /**
+     * @return the position of the key in insertion order or -1 if it is not present
+     */
+    int indexOf(long key) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) return -1;
+            if (keys[entry - 1] == key) return entry - 1;
+        }
+    }
+
+    /**
+     * @return the position of the key if it was added or -(position + 1) if it was already present
+     */
+    int insert(long key) {
+        int slot = hash(key) & mask;
+        for (int entry = table[slot]; entry != 0; entry = table[slot = (slot + 1) & mask]) {
+            if (keys[entry - 1] == key) return -entry;
+        }
+        if (size == keys.length) {
+            grow(keys.length * 2);
+            return insert(key);
+        }
+        keys[size] = key;
+        table[slot] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * Enlarges the storage to the given capacity and rebuilds the hash table
+     */
+    void grow(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        table = new int[tableSize(capacity)];
+        mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * The table is kept at most half full, so probe sequences stay short
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    /**
+     * dbIds are mostly consecutive, so the bits are spread (Fibonacci hashing) before masking
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,6 +1,8 @@
 package org.reactome.server.graph.utils;
 
+import org.reactome.server.graph.config.DriverSettings;
 import org.reactome.server.graph.config.Neo4jConfig;
+import org.reactome.server.graph.service.SchemaService;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,10 @@ import org.springframework.stereotype.Service;
  * //First the class needs to be initialised
  * ReactomeGraphCore.initialise("host","user","password");
  *
+ * //or, to use the Bolt driver and/or tune the connection pool
+ * ReactomeGraphCore.initialise(new DriverSettings().setProtocol(DriverSettings.Protocol.BOLT).setHost("host")
+ *                                  .setUser("user").setPassword("password").setConnectionPoolSize(100), Neo4jConfig.class);
+ *
  * //A certain Service can be retrieved as follows
  * GeneralService genericService = ReactomeGraphCore.getService(GeneralService.class);
  *
@@ -34,6 +40,18 @@ public class ReactomeGraphCore {
         context = new AnnotationConfigApplicationContext(clazz);
     }
 
+    /**
+     * Initialises the connection with the given driver settings (e.g. to use the Bolt driver and tune the pool)
+     */
+    public static void initialise(DriverSettings settings, Class<? extends Neo4jConfig> clazz) {
+        settings.toSystemProperties();
+
+        context = new AnnotationConfigApplicationContext(clazz);
+        if (settings.getFetchSize() != null) {
+            context.getBean(SchemaService.class).setStreamChunkSize(settings.getFetchSize());
+        }
+    }
+
     public static <T> T getService(Class<T> clazz) {
         if (context == null) throw new RuntimeException("ReactomeGraphCore has to be initialised!");
 
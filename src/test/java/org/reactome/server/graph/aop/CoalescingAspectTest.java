@@ -0,0 +1,160 @@
+package org.reactome.server.graph.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The coalesced method is a stub whose first execution does not finish until every other caller is waiting for it,
+ * so the callers are known to overlap without relying on timings.
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class CoalescingAspectTest {
+
+    private static final int CALLERS = 4;
+
+    private CoalescingAspect coalescingAspect;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final List<Thread> callers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        coalescingAspect = new CoalescingAspect();
+        coalescingAspect.setEnableCoalescing(true);
+        executions.set(0);
+        callers.clear();
+        Copies.count.set(0);
+    }
+
+    @Test
+    public void concurrentCallersShareTheExecutionTest() throws Exception {
+        List<Object> results = call(() -> new ArrayList<>(Arrays.asList("R-HSA-1640170", "R-HSA-199420")));
+
+        assertEquals(1, executions.get());
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object result : results) {
+            assertEquals(Arrays.asList("R-HSA-1640170", "R-HSA-199420"), result);
+            instances.add(result);
+        }
+        // Every caller gets a copy of its own
+        assertEquals(CALLERS, instances.size());
+    }
+
+    @Test
+    public void resultIsNotCopiedWithoutFollowersTest() throws Throwable {
+        Copies result = new Copies(false);
+        assertSame(result, coalescingAspect.coalesce(getJoinPoint(() -> result)));
+        assertEquals(0, Copies.count.get());
+    }
+
+    @Test
+    public void failingCopyDoesNotFailTheCallersTest() throws Exception {
+        List<Object> results = call(() -> new Copies(true));
+
+        // The leader gets its result and the followers execute the method themselves
+        assertEquals(CALLERS, executions.get());
+        assertEquals(CALLERS, results.size());
+        for (Object result : results) assertTrue(result instanceof Copies);
+    }
+
+    @Test
+    public void notSerializableResultIsNotSharedTest() throws Exception {
+        List<Object> results = call(Object::new);
+
+        assertEquals(CALLERS, executions.get());
+        assertEquals(CALLERS, new HashSet<>(results).size());
+    }
+
+    /**
+     * Executes the coalesced method from CALLERS threads at the same time
+     */
+    private List<Object> call(Callable<Object> method) throws Exception {
+        ProceedingJoinPoint pjp = getJoinPoint(method);
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(new Thread(() -> {
+                try {
+                    results.add(coalescingAspect.coalesce(pjp));
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            }));
+        }
+        for (Thread caller : callers) caller.start();
+        for (Thread caller : callers) caller.join(10_000);
+        assertTrue(errors.toString(), errors.isEmpty());
+        return results;
+    }
+
+    private ProceedingJoinPoint getJoinPoint(Callable<Object> method) {
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{MethodSignature.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getDeclaringType": return CoalescingAspectTest.class;
+                case "getName": return "findById";
+                case "getParameterTypes": return new Class[]{String.class};
+                default: throw new UnsupportedOperationException(m.getName());
+            }
+        });
+        return (ProceedingJoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ProceedingJoinPoint.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getSignature": return signature;
+                case "getArgs": return new Object[]{"R-HSA-1640170"};
+                case "proceed":
+                    if (executions.incrementAndGet() == 1) awaitFollowers();
+                    return method.call();
+                default: throw new UnsupportedOperationException(m.getName());
+            }
+        });
+    }
+
+    /**
+     * Waits until all the callers but the current one are waiting for the execution in progress
+     */
+    private void awaitFollowers() throws InterruptedException {
+        if (callers.isEmpty()) return;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            int waiting = 0;
+            for (Thread caller : callers) {
+                if (caller != Thread.currentThread() && caller.getState() == Thread.State.TIMED_WAITING) waiting++;
+            }
+            if (waiting == CALLERS - 1) return;
+            Thread.sleep(10);
+        }
+        fail("The followers did not wait for the execution in progress");
+    }
+
+    /**
+     * Serializable result counting how many times it is copied, or failing to be copied
+     */
+    private static class Copies implements Serializable {
+        static final AtomicInteger count = new AtomicInteger();
+
+        private final boolean fail;
+
+        Copies(boolean fail) {
+            this.fail = fail;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            count.incrementAndGet();
+            if (fail) throw new IllegalStateException("Not copyable");
+            out.defaultWriteObject();
+        }
+    }
+}
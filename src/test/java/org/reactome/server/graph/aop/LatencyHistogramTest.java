@@ -0,0 +1,101 @@
+package org.reactome.server.graph.aop;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LatencyHistogramTest {
+
+    private static final long MAX_TRACKED = 1L << 40;
+
+    @Test
+    public void linearBucketsTest() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.getIndex(value));
+            assertEquals(value, LatencyHistogram.getHighestValue((int) value));
+        }
+    }
+
+    @Test
+    public void bucketBoundariesTest() {
+        // 64 and 65 share the first logarithmic bucket, 127 closes the first power of two and 128 opens the next one
+        assertEquals(64, LatencyHistogram.getIndex(64));
+        assertEquals(64, LatencyHistogram.getIndex(65));
+        assertEquals(65, LatencyHistogram.getHighestValue(64));
+        assertEquals(95, LatencyHistogram.getIndex(127));
+        assertEquals(127, LatencyHistogram.getHighestValue(95));
+        assertEquals(96, LatencyHistogram.getIndex(128));
+        assertEquals(131, LatencyHistogram.getHighestValue(96));
+
+        int last = LatencyHistogram.getIndex(MAX_TRACKED - 1);
+        assertEquals(MAX_TRACKED - 1, LatencyHistogram.getHighestValue(last));
+        // Everything above the tracked range goes to one single (overflow) bucket
+        assertEquals(last + 1, LatencyHistogram.getIndex(MAX_TRACKED));
+        assertEquals(last + 1, LatencyHistogram.getIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Every power of two in the tracked range is equally likely
+            int exponent = 6 + random.nextInt(34);
+            long value = (1L << exponent) + (random.nextLong() >>> 1) % (1L << exponent);
+            int index = LatencyHistogram.getIndex(value);
+            long highest = LatencyHistogram.getHighestValue(index);
+            // The value belongs to the bucket: not above its highest value and above the one of the previous bucket
+            assertTrue(value + " in " + index, value <= highest);
+            assertTrue(value + " in " + index, value > LatencyHistogram.getHighestValue(index - 1));
+            // Within the 3% stated precision (32 sub-buckets per power of two)
+            assertTrue(value + " reported as " + highest, highest - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void percentilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (long value = 1; value <= 60; value++) histogram.record(value);
+        assertEquals(60, histogram.getCount());
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(30, histogram.getPercentile(50));
+        assertEquals(45, histogram.getPercentile(75));
+        assertEquals(60, histogram.getPercentile(100));
+        assertEquals(60, histogram.getPercentile(200));
+        assertEquals(30.5, histogram.getMean(), 0.0001);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void percentilesOfLogarithmicBucketsTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) histogram.record(1_000);
+        histogram.record(1_000_000);
+
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 1_000 && p99 <= 1_000 + 1_000 / 32);
+        // The highest value of the bucket is capped by the maximum actually recorded
+        assertEquals(1_000_000, histogram.getPercentile(99.9));
+        assertEquals(1_000_000, histogram.getMax());
+    }
+
+    @Test
+    public void outOfRangeValuesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentile(100));
+        // The overflow bucket has no upper bound, so the maximum recorded is reported
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentile(100));
+        assertEquals(2, histogram.getCount());
+    }
+}
@@ -0,0 +1,87 @@
+package org.reactome.server.graph.aop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void operationsAreKeptPerNameAndTemplateTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        OperationMetrics service = registry.getServiceMetrics("DatabaseObjectService.findById");
+        assertSame(service, registry.getServiceMetrics("DatabaseObjectService.findById"));
+        assertEquals(OperationMetrics.SERVICE, service.getType());
+
+        // The same template executed from another method is reported with the name of the first one
+        String query = "MATCH (d:DatabaseObject{dbId:{dbId}}) RETURN d";
+        OperationMetrics metrics = registry.getQueryMetrics("GeneralRepository.findById", query);
+        assertSame(metrics, registry.getQueryMetrics("AdvancedRepository.findById", query));
+        assertEquals("GeneralRepository.findById", metrics.getName());
+        assertEquals(query, metrics.getQuery());
+        assertEquals(OperationMetrics.QUERY, metrics.getType());
+
+        assertEquals(2, registry.getMetrics().size());
+    }
+
+    @Test
+    public void operationsAboveTheLimitGoToOtherTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setMaxOperations(2);
+        OperationMetrics service = registry.getServiceMetrics("DatabaseObjectService.findById");
+        OperationMetrics query = registry.getQueryMetrics("GeneralRepository.findById", "MATCH (d) RETURN d");
+
+        OperationMetrics otherService = registry.getServiceMetrics("SchemaService.getByClass");
+        assertEquals("(other)", otherService.getName());
+        assertSame(otherService, registry.getServiceMetrics("SpeciesService.getSpecies"));
+        // Services and queries have their own "(other)", which does not keep any template
+        OperationMetrics otherQuery = registry.getQueryMetrics("GeneralRepository.query", "MATCH (n) RETURN n LIMIT 1");
+        assertEquals("(other)", otherQuery.getName());
+        assertNull(otherQuery.getQuery());
+        assertNotSame(otherService, otherQuery);
+        assertSame(otherQuery, registry.getQueryMetrics("GeneralRepository.query", "MATCH (n) RETURN n LIMIT 2"));
+
+        // The operations registered before reaching the limit are kept
+        assertSame(service, registry.getServiceMetrics("DatabaseObjectService.findById"));
+        assertSame(query, registry.getQueryMetrics("GeneralRepository.findById", "MATCH (d) RETURN d"));
+        assertEquals(4, registry.getMetrics().size());
+    }
+
+    @Test
+    public void resetKeepsTheOperationsTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        OperationMetrics service = registry.getServiceMetrics("DatabaseObjectService.findById");
+        service.record(1_000_000, 1, false);
+        service.record(2_000_000, 1, true);
+        assertEquals(2, service.getCount());
+        assertEquals(1, service.getErrors());
+
+        registry.reset();
+        assertEquals(0, service.getCount());
+        assertEquals(0, service.getErrors());
+        assertSame(service, registry.getServiceMetrics("DatabaseObjectService.findById"));
+    }
+
+    @Test
+    public void exportersGetEveryOperationTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.getServiceMetrics("DatabaseObjectService.findById");
+        registry.getQueryMetrics("GeneralRepository.findById", "MATCH (d) RETURN d");
+
+        List<Collection<OperationMetrics>> exported = new ArrayList<>();
+        registry.addExporter(metrics -> {
+            throw new IllegalStateException("A failing exporter does not prevent the others from exporting");
+        });
+        registry.addExporter(exported::add);
+        registry.export();
+        assertEquals(1, exported.size());
+        assertEquals(2, exported.get(0).size());
+    }
+}
@@ -0,0 +1,51 @@
+package org.reactome.server.graph.custom;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * POJO for testing the mapping of custom classes containing attributes of their own type, nested custom objects and
+ * collections without a plain element type
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+@SuppressWarnings({"unused", "rawtypes"})
+public class CustomNode {
+
+    private String stId;
+    private CustomNode parent;
+    private List<CustomNode> children;
+    private CustomReference reference;
+    private Collection names;
+    private Set<?> synonyms;
+    private List<? extends CustomReference> crossReferences;
+
+    public String getStId() {
+        return stId;
+    }
+
+    public CustomNode getParent() {
+        return parent;
+    }
+
+    public List<CustomNode> getChildren() {
+        return children;
+    }
+
+    public CustomReference getReference() {
+        return reference;
+    }
+
+    public Collection getNames() {
+        return names;
+    }
+
+    public Set<?> getSynonyms() {
+        return synonyms;
+    }
+
+    public List<? extends CustomReference> getCrossReferences() {
+        return crossReferences;
+    }
+}
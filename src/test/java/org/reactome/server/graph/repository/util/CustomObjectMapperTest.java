@@ -0,0 +1,80 @@
+package org.reactome.server.graph.repository.util;
+
+import org.junit.Test;
+import org.reactome.server.graph.custom.CustomNode;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The rows are shaped the way Neo4j returns them: arrays for the collections and maps for the custom objects
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class CustomObjectMapperTest {
+
+    @Test
+    public void rowWithoutTheGenericAttributesTest() throws Exception {
+        // Collections without a plain element type do not prevent the class from being mapped
+        CustomNode node = CustomObjectMapper.getMapper(CustomNode.class).map(Collections.singletonMap("stId", "R-HSA-1640170"));
+        assertEquals("R-HSA-1640170", node.getStId());
+        assertNull(node.getParent());
+        assertNull(node.getNames());
+    }
+
+    @Test
+    public void nestedAndSelfReferencingClassesTest() throws Exception {
+        Map<String, Object> reference = new LinkedHashMap<>();
+        reference.put("database", "UniProt");
+        reference.put("identifier", "P60484");
+
+        Map<String, Object> grandParent = new LinkedHashMap<>();
+        grandParent.put("stId", "R-HSA-1643685");
+        Map<String, Object> parent = new LinkedHashMap<>();
+        parent.put("stId", "R-HSA-162582");
+        parent.put("parent", grandParent);
+
+        Map<String, Object> child = new LinkedHashMap<>();
+        child.put("stId", "R-HSA-199420");
+        child.put("reference", reference);
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("stId", "R-HSA-1640170");
+        row.put("parent", parent);
+        row.put("children", new Map[]{child});
+        row.put("reference", reference);
+
+        CustomNode node = CustomObjectMapper.getMapper(CustomNode.class).map(row);
+        assertEquals("R-HSA-1640170", node.getStId());
+        assertEquals("UniProt", node.getReference().getDatabase());
+        assertEquals("P60484", node.getReference().getIdentifier());
+        assertEquals("R-HSA-162582", node.getParent().getStId());
+        assertEquals("R-HSA-1643685", node.getParent().getParent().getStId());
+        assertNull(node.getParent().getParent().getParent());
+
+        assertEquals(1, node.getChildren().size());
+        CustomNode aux = node.getChildren().get(0);
+        assertEquals("R-HSA-199420", aux.getStId());
+        assertEquals("P60484", aux.getReference().getIdentifier());
+        assertNull(aux.getChildren());
+    }
+
+    @Test
+    public void collectionsWithoutPlainElementTypeTest() throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("names", new String[]{"PTEN", "MMAC1"});
+        row.put("synonyms", new String[]{"TEP1", "TEP1"});
+        Map<String, Object> reference = new LinkedHashMap<>();
+        reference.put("database", "UniProt");
+        reference.put("identifier", "P60484");
+        row.put("crossReferences", new Map[]{reference});
+
+        CustomNode node = CustomObjectMapper.getMapper(CustomNode.class).map(row);
+        assertEquals(Arrays.asList("PTEN", "MMAC1"), new ArrayList<Object>(node.getNames()));
+        assertEquals(Collections.singleton("TEP1"), node.getSynonyms());
+        // The upper bound of the wildcard is the class the elements are mapped to
+        assertEquals(1, node.getCrossReferences().size());
+        assertEquals("P60484", node.getCrossReferences().get(0).getIdentifier());
+    }
+}
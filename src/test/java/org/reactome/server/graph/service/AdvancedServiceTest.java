@@ -2,21 +2,20 @@ package org.reactome.server.graph.service;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.reactome.server.graph.config.SessionScope;
 import org.reactome.server.graph.custom.CustomQueryComplex;
 import org.reactome.server.graph.custom.CustomQueryPhysicalEntity;
 import org.reactome.server.graph.custom.CustomQueryResult;
 import org.reactome.server.graph.domain.model.*;
 import org.reactome.server.graph.exception.CustomQueryException;
+import org.reactome.server.graph.service.helper.FetchPlan;
 import org.reactome.server.graph.service.helper.RelationshipDirection;
 import org.reactome.server.graph.util.DatabaseObjectFactory;
 import org.reactome.server.graph.util.JunitHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -34,6 +33,9 @@ public class AdvancedServiceTest extends BaseTest {
     @Autowired
     private AdvancedDatabaseObjectService advancedDatabaseObjectService;
 
+    @Autowired
+    private DatabaseObjectService databaseObjectService;
+
     @BeforeClass
     public static void setUpClass() {
         logger.info(" --- !!! Running " + AdvancedServiceTest.class.getName() + "!!! --- \n");
@@ -85,6 +87,121 @@ public class AdvancedServiceTest extends BaseTest {
         logger.info("Finished");
     }
 
+    // --------------------------------------- Fetch Plan Finder Methods -----------------------------------------------
+
+    @Test
+    public void findByIdWithFetchPlanTest() {
+
+        logger.info("Started testing advancedDatabaseObjectService.findByIdWithFetchPlanTest");
+        long start, time;
+        start = System.currentTimeMillis();
+        FetchPlan plan = new FetchPlan().fetch("hasEvent", "input|output").fetch("species");
+        Pathway databaseObjectObserved = advancedDatabaseObjectService.findById(stId, plan);
+        time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertTrue(databaseObjectObserved.preventLazyLoading);
+        assertFalse(databaseObjectObserved.getSpecies().isEmpty());
+        assertFalse(databaseObjectObserved.getHasEvent().isEmpty());
+        logger.info("Finished");
+    }
+
+    @Test
+    public void preventLazyLoadingWithMaxDepthTest() {
+
+        logger.info("Started testing advancedDatabaseObjectService.preventLazyLoadingWithMaxDepthTest");
+        FetchPlan plan = new FetchPlan().fetch("hasEvent", "input").preventLazyLoading(false);
+        Pathway databaseObjectObserved = advancedDatabaseObjectService.findById(stId, plan);
+        databaseObjectObserved.preventLazyLoading(true, 1);
+
+        assertTrue(databaseObjectObserved.preventLazyLoading);
+        for (Event event : databaseObjectObserved.getHasEvent()) {
+            assertTrue(event.preventLazyLoading);
+            if (event instanceof ReactionLikeEvent && ((ReactionLikeEvent) event).getInput() != null) {
+                for (PhysicalEntity input : ((ReactionLikeEvent) event).getInput()) {
+                    assertFalse(input.preventLazyLoading);
+                }
+            }
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void preventLazyLoadingDuplicatedInstancesTest() {
+
+        logger.info("Started testing advancedDatabaseObjectService.preventLazyLoadingDuplicatedInstancesTest");
+        // Two instances of the same entry (e.g. mapped in different sessions) with different objects under them
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Reaction reaction = new Reaction();
+            reaction.setDbId(dbId2);
+            reaction.setCompartment(Collections.singletonList(new Compartment()));
+            events.add(reaction);
+        }
+        Pathway pathway = new Pathway();
+        pathway.setDbId(dbId);
+        pathway.setHasEvent(events);
+        pathway.preventLazyLoading(true);
+
+        for (Event event : events) {
+            assertTrue(event.preventLazyLoading);
+            for (Compartment compartment : event.getCompartment()) {
+                assertTrue(compartment.preventLazyLoading);
+            }
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void findByIdWithFetchPlanSiblingBranchesTest() {
+
+        logger.info("Started testing advancedDatabaseObjectService.findByIdWithFetchPlanSiblingBranchesTest");
+        Pathway inputs = advancedDatabaseObjectService.findById(stId, new FetchPlan().fetch("hasEvent", "input"));
+        Pathway outputs = advancedDatabaseObjectService.findById(stId, new FetchPlan().fetch("hasEvent", "output"));
+
+        long start, time;
+        start = System.currentTimeMillis();
+        FetchPlan plan = new FetchPlan().fetch("hasEvent", "input").fetch("hasEvent", "output").fetch("species");
+        Pathway databaseObjectObserved = advancedDatabaseObjectService.findById(stId, plan);
+        time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertFalse(databaseObjectObserved.getSpecies().isEmpty());
+        assertEquals(getParticipants(inputs, true), getParticipants(databaseObjectObserved, true));
+        assertEquals(getParticipants(outputs, false), getParticipants(databaseObjectObserved, false));
+        logger.info("Finished");
+    }
+
+    @Test
+    public void findByIdWithFetchPlanInSessionScopeTest() {
+
+        logger.info("Started testing advancedDatabaseObjectService.findByIdWithFetchPlanInSessionScopeTest");
+        try (SessionScope ignored = SessionScope.open()) {
+            Pathway shared = databaseObjectService.findById(stId);
+            Pathway databaseObjectObserved = advancedDatabaseObjectService.findById(stId, new FetchPlan().fetch("hasEvent"));
+            assertTrue(databaseObjectObserved.preventLazyLoading);
+            // The objects of the scope are not affected by the plan
+            assertFalse(shared.preventLazyLoading);
+        }
+        logger.info("Finished");
+    }
+
+    /**
+     * @return dbId of every event in the pathway mapped to the dbIds of its inputs (or outputs)
+     */
+    private Map<Long, List<Long>> getParticipants(Pathway pathway, boolean inputs) {
+        Map<Long, List<Long>> rtn = new HashMap<>();
+        for (Event event : pathway.getHasEvent()) {
+            if (!(event instanceof ReactionLikeEvent)) continue;
+            ReactionLikeEvent rle = (ReactionLikeEvent) event;
+            List<PhysicalEntity> participants = inputs ? rle.getInput() : rle.getOutput();
+            List<Long> dbIds = new ArrayList<>();
+            if (participants != null) for (PhysicalEntity participant : participants) dbIds.add(participant.getDbId());
+            Collections.sort(dbIds);
+            rtn.put(event.getDbId(), dbIds);
+        }
+        return rtn;
+    }
 
     // --------------------------------------- Generic Finder Methods --------------------------------------------------
 
@@ -0,0 +1,119 @@
+package org.reactome.server.graph.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reactome.server.graph.domain.model.DatabaseObject;
+import org.reactome.server.graph.domain.model.TopLevelPathway;
+import org.reactome.server.graph.service.async.AsyncDatabaseObjectService;
+import org.reactome.server.graph.service.async.AsyncServiceExecutor;
+import org.reactome.server.graph.service.async.AsyncTopLevelPathwayService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class AsyncServicesTest extends BaseTest {
+
+    @Autowired
+    private AsyncTopLevelPathwayService asyncTopLevelPathwayService;
+
+    @Autowired
+    private AsyncDatabaseObjectService asyncDatabaseObjectService;
+
+    @Autowired
+    private AsyncServiceExecutor asyncServiceExecutor;
+
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info(" --- !!! Running " + AsyncServicesTest.class.getName() + "!!! --- \n");
+    }
+
+    @Test
+    public void composedLookupsTest() throws Exception {
+        logger.info("Started testing asyncServices composing lookups");
+        long start = System.currentTimeMillis();
+        CompletableFuture<Collection<TopLevelPathway>> tlps = asyncTopLevelPathwayService.getTopLevelPathways("Homo sapiens");
+        CompletableFuture<DatabaseObject> object = asyncDatabaseObjectService.findById("R-HSA-1640170");
+        CompletableFuture.allOf(tlps, object).get();
+        long time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertFalse(tlps.get().isEmpty());
+        assertEquals("R-HSA-1640170", object.get().getStId());
+        logger.info("Finished");
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        logger.info("Started testing asyncServiceExecutor timeout");
+        CompletableFuture<Object> future = asyncServiceExecutor.supply(() -> {
+            Thread.sleep(1_000);
+            return null;
+        }, 10);
+        try {
+            future.get();
+            fail("The call should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void reconfigurationKeepsSubmittedCallsTest() throws Exception {
+        logger.info("Started testing asyncServiceExecutor reconfiguration");
+        asyncServiceExecutor.setPoolSize(1, 10);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                final int n = i;
+                futures.add(asyncServiceExecutor.supply(() -> {
+                    Thread.sleep(100);
+                    return n;
+                }, 0));
+            }
+        } finally {
+            asyncServiceExecutor.setPoolSize(16, 1000);
+        }
+        // The calls waiting in the previous executor are not discarded by the reconfiguration
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void callsSubmittedWhileReconfiguringCompleteTest() throws Exception {
+        logger.info("Started testing asyncServiceExecutor submission during reconfiguration");
+        List<CompletableFuture<Integer>> futures = Collections.synchronizedList(new ArrayList<>());
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                final int n = i;
+                futures.add(asyncServiceExecutor.supply(() -> n, 0));
+            }
+        });
+        submitter.start();
+        try {
+            while (submitter.isAlive()) asyncServiceExecutor.setPoolSize(4, 100);
+        } finally {
+            submitter.join();
+            asyncServiceExecutor.setPoolSize(16, 1000);
+        }
+        // None of them is lost in an executor being replaced (they have no timeout to complete them otherwise)
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        logger.info("Finished");
+    }
+}
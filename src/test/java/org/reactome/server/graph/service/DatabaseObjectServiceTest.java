@@ -2,6 +2,7 @@ package org.reactome.server.graph.service;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.reactome.server.graph.config.SessionScope;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.repository.AdvancedDatabaseObjectRepository;
 import org.reactome.server.graph.service.helper.RelationshipDirection;
@@ -15,6 +16,8 @@ import java.util.Collection;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Created by:
@@ -64,6 +67,24 @@ public class DatabaseObjectServiceTest extends BaseTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void findByIdInSessionScopeTest() {
+
+        logger.info("Started testing databaseObjectService.findByIdInSessionScopeTest");
+        long start, time;
+        start = System.currentTimeMillis();
+        try (SessionScope ignored = SessionScope.open()) {
+            DatabaseObject first = databaseObjectService.findById(dbId);
+            DatabaseObject second = databaseObjectService.findById(stId);
+            assertSame("Objects loaded in the same scope are mapped once", first, second);
+        }
+        time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertNotSame(databaseObjectService.findById(dbId), databaseObjectService.findById(dbId));
+        logger.info("Finished");
+    }
+
     @Test
     public void findHomoSapiensTest() throws Exception {
 
@@ -2,6 +2,7 @@ package org.reactome.server.graph.service;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.reactome.server.graph.service.async.AsyncDetailsService;
 import org.reactome.server.graph.service.helper.ContentDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -21,6 +22,9 @@ public class DetailsServiceTest extends BaseTest {
     @Autowired
     private DetailsService detailsService;
 
+    @Autowired
+    private AsyncDetailsService asyncDetailsService;
+
     @BeforeClass
     public static void setUpClass() {
         logger.info(" --- !!! Running " + DetailsServiceTest.class.getName() + " !!! --- \n");
@@ -43,5 +47,31 @@ public class DetailsServiceTest extends BaseTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void getContentDetailsAsyncTest() throws Exception {
+
+        logger.info("Started testing detailsService.getContentDetailsAsync");
+        ContentDetails expected = detailsService.getContentDetails(stId, false);
+        detailsService.setAsyncMode(true);
+        try {
+            long start, time;
+            start = System.currentTimeMillis();
+            ContentDetails contentDetails = detailsService.getContentDetails(stId, false);
+            time = System.currentTimeMillis() - start;
+            logger.info("getContentDetails (async) execution time: " + time + "ms");
 
-}
\ No newline at end of file
+            assertEquals(expected.getNodes().size(), contentDetails.getNodes().size());
+            assertEquals(expected.getOtherFormsOfThisMolecule().size(), contentDetails.getOtherFormsOfThisMolecule().size());
+            assertEquals(expected.getComponentOf().size(), contentDetails.getComponentOf().size());
+
+            // From a thread of the executor the branches run in that same thread
+            contentDetails = asyncDetailsService.getContentDetails(stId, false).get();
+            assertEquals(expected.getNodes().size(), contentDetails.getNodes().size());
+            assertEquals(expected.getOtherFormsOfThisMolecule().size(), contentDetails.getOtherFormsOfThisMolecule().size());
+            assertEquals(expected.getComponentOf().size(), contentDetails.getComponentOf().size());
+        } finally {
+            detailsService.setAsyncMode(false);
+        }
+        logger.info("Finished");
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.reactome.server.graph.config.Neo4jConfig;
+import org.reactome.server.graph.repository.HierarchyRepository;
 import org.reactome.server.graph.service.helper.PathwayBrowserNode;
 import org.reactome.server.graph.util.DatabaseObjectFactory;
 import org.slf4j.Logger;
@@ -14,9 +15,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
@@ -41,6 +44,12 @@ public class HierarchyServiceTest {
     @Autowired
     private GeneralService generalService;
 
+    @Autowired
+    private EventHierarchyIndexService eventHierarchyIndexService;
+
+    @Autowired
+    private HierarchyRepository hierarchyRepository;
+
     @BeforeClass
     public static void setUpClass() {
         logger.info(" --- !!! Running " + DetailsServiceTest.class.getName() + " !!! --- \n");
@@ -131,4 +140,129 @@ public class HierarchyServiceTest {
         assertTrue(eventHierarchy.size() > 20);
         logger.info("Finished");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getEventHierarchyFromIndexTest() {
+        logger.info("Started testing eventService.getEventHierarchyFromIndexTest");
+        Collection<PathwayBrowserNode> expected = hierarchyService.getEventHierarchy(9606);
+        PathwayBrowserNode expectedSubHierarchy = hierarchyService.getSubHierarchy("R-HSA-109581");
+        eventHierarchyIndexService.setEnabled(true);
+        try {
+            long start, time;
+            start = System.currentTimeMillis();
+            Collection<PathwayBrowserNode> eventHierarchy = hierarchyService.getEventHierarchy(9606);
+            time = System.currentTimeMillis() - start;
+            logger.info("GraphDb execution time (including index loading): " + time + "ms");
+
+            assertEquals(expected.size(), eventHierarchy.size());
+
+            start = System.currentTimeMillis();
+            PathwayBrowserNode subHierarchy = hierarchyService.getSubHierarchy("R-HSA-109581");
+            time = System.currentTimeMillis() - start;
+            logger.info("Index execution time: " + time + "ms");
+
+            assertEquals(getStIds(expectedSubHierarchy), getStIds(subHierarchy));
+            // The species name and the taxId share the same index
+            assertSame(eventHierarchyIndexService.getIndex(9606), eventHierarchyIndexService.getIndex("Homo sapiens"));
+        } finally {
+            eventHierarchyIndexService.setEnabled(false);
+        }
+        logger.info("Finished");
+    }
+
+    // ------------------------------------------- Edge List Mode ------------------------------------------------------
+
+    @Test
+    public void getLocationsInPathwayBrowserEdgeListModeTest() {
+        logger.info("Started testing hierarchyService.getLocationsInPathwayBrowserEdgeListModeTest");
+        for (String stId : Arrays.asList("R-HSA-5205630", "R-HSA-199420", "R-HSA-5205685")) {
+            for (boolean directParticipants : new boolean[]{false, true}) {
+                for (boolean omitNonDisplayableItems : new boolean[]{false, true}) {
+                    PathwayBrowserNode expected = hierarchyService.getLocationsInPathwayBrowser(stId, directParticipants, omitNonDisplayableItems);
+                    PathwayBrowserNode observed = withEdgeList(() -> hierarchyService.getLocationsInPathwayBrowser(stId, directParticipants, omitNonDisplayableItems));
+                    assertEquals(stId, toString(expected), toString(observed));
+                }
+            }
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void getSubHierarchyEdgeListModeTest() {
+        logger.info("Started testing hierarchyService.getSubHierarchyEdgeListModeTest");
+        for (String stId : Arrays.asList("R-HSA-109581", "R-HSA-5205685", "R-HSA-69620")) {
+            PathwayBrowserNode expected = hierarchyService.getSubHierarchy(stId);
+            PathwayBrowserNode observed = withEdgeList(() -> hierarchyService.getSubHierarchy(stId));
+            assertEquals(stId, toString(expected), toString(observed));
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void getEventHierarchyEdgeListModeTest() {
+        logger.info("Started testing hierarchyService.getEventHierarchyEdgeListModeTest");
+        for (Object species : Arrays.asList("Homo sapiens", 9606)) {
+            Collection<PathwayBrowserNode> expected = hierarchyService.getEventHierarchy(species);
+            Collection<PathwayBrowserNode> observed = withEdgeList(() -> hierarchyService.getEventHierarchy(species));
+            assertEquals(species.toString(), toString(expected), toString(observed));
+        }
+        logger.info("Finished");
+    }
+
+    /**
+     * @return the stIds of the given node and all its descendants
+     */
+    private Set<String> getStIds(PathwayBrowserNode node) {
+        Set<String> stIds = new TreeSet<>();
+        Deque<PathwayBrowserNode> stack = new ArrayDeque<>(Collections.singleton(node));
+        while (!stack.isEmpty()) {
+            PathwayBrowserNode aux = stack.pop();
+            if (stIds.add(aux.getStId()) && aux.getChildren() != null) stack.addAll(aux.getChildren());
+        }
+        return stIds;
+    }
+
+    private <T> T withEdgeList(Supplier<T> supplier) {
+        boolean edgeListMode = hierarchyRepository.isEdgeListMode();
+        hierarchyRepository.setEdgeListMode(true);
+        try {
+            return supplier.get();
+        } finally {
+            hierarchyRepository.setEdgeListMode(edgeListMode);
+        }
+    }
+
+    /**
+     * @return the hierarchies in a canonical form (roots and children sorted by stId)
+     */
+    private String toString(Collection<PathwayBrowserNode> nodes) {
+        List<String> trees = new ArrayList<>();
+        if (nodes != null) for (PathwayBrowserNode node : nodes) trees.add(toString(node));
+        Collections.sort(trees);
+        return trees.toString();
+    }
+
+    private String toString(PathwayBrowserNode node) {
+        StringBuilder sb = new StringBuilder();
+        toString(node, new HashSet<>(), sb);
+        return sb.toString();
+    }
+
+    private void toString(PathwayBrowserNode node, Set<PathwayBrowserNode> path, StringBuilder sb) {
+        if (node == null) return;
+        sb.append(node.getStId()).append(":").append(node.getType()).append(":").append(node.isClickable()).append(node.getHighlighted());
+        // Cycles are printed once
+        if (!path.add(node)) return;
+        if (node.getChildren() != null) {
+            List<PathwayBrowserNode> children = new ArrayList<>(node.getChildren());
+            children.sort(Comparator.comparing(PathwayBrowserNode::getStId, Comparator.nullsFirst(Comparator.naturalOrder())));
+            sb.append("[");
+            for (PathwayBrowserNode child : children) {
+                toString(child, path, sb);
+                sb.append(",");
+            }
+            sb.append("]");
+        }
+        path.remove(node);
+    }
+}
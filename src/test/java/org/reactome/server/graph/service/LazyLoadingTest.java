@@ -3,16 +3,22 @@ package org.reactome.server.graph.service;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.reactome.server.graph.domain.model.DatabaseObject;
-import org.reactome.server.graph.domain.model.Event;
-import org.reactome.server.graph.domain.model.NegativeRegulation;
-import org.reactome.server.graph.domain.model.PositiveRegulation;
+import org.reactome.server.graph.aop.LazyLoadDetector;
+import org.reactome.server.graph.domain.model.*;
+import org.reactome.server.graph.exception.LazyLoadThresholdException;
 import org.reactome.server.graph.util.DatabaseObjectFactory;
 import org.reactome.server.graph.util.JunitHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
 import static org.junit.Assume.assumeTrue;
 
@@ -23,6 +29,7 @@ import static org.junit.Assume.assumeTrue;
 public class LazyLoadingTest extends BaseTest {
 
     private static final String stId = "R-HSA-446203";
+    private static final String complexStId = "R-HSA-2466381";
 
     @Autowired
     private DatabaseObjectService dbs;
@@ -60,6 +67,90 @@ public class LazyLoadingTest extends BaseTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void lazyLoadingBatchingTest() throws InvocationTargetException, IllegalAccessException {
+
+        logger.info("Testing Lazy Loading with batching.");
+
+        lazyFetchAspect.setEnableBatching(true);
+        try {
+            DatabaseObject databaseObjectObserved = dbs.findByIdNoRelations(stId);
+            DatabaseObject databaseObjectExpected = DatabaseObjectFactory.createObject(stId);
+
+            //getters will be automatically called by the Assertion test
+            JunitHelper.assertDatabaseObjectsEqual(databaseObjectExpected, databaseObjectObserved);
+        } finally {
+            lazyFetchAspect.setEnableBatching(false);
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void lazyLoadingBatchingSiblingsTest() throws Exception {
+
+        logger.info("Testing Lazy Loading with batching populates the siblings.");
+
+        lazyFetchAspect.setEnableBatching(true);
+        try {
+            Complex complex = dbs.findByIdNoRelations(complexStId);
+            List<PhysicalEntity> components = complex.getHasComponent();
+            assumeTrue(components != null && components.size() > 1);
+
+            // A miss in the first component loads the compartments of all its siblings in the same query
+            components.get(0).getCompartment();
+
+            Field field = PhysicalEntity.class.getDeclaredField("compartment");
+            field.setAccessible(true);
+            for (PhysicalEntity component : components) {
+                List<?> expected = ((PhysicalEntity) dbs.findById(component.getDbId())).getCompartment();
+                Object observed = field.get(component);
+                if (expected == null || expected.isEmpty()) continue;
+                assertNotNull("Compartment not populated for sibling " + component.getStId(), observed);
+                assertEquals(expected.size(), ((List<?>) observed).size());
+            }
+        } finally {
+            lazyFetchAspect.setEnableBatching(false);
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void lazyLoadingDetectionTest() throws InvocationTargetException, IllegalAccessException {
+
+        logger.info("Testing Lazy Loading detection.");
+
+        LazyLoadDetector detector = lazyFetchAspect.getLazyLoadDetector();
+        lazyFetchAspect.setEnableLazyLoadDetection(true);
+        try {
+            DatabaseObject databaseObjectExpected = DatabaseObjectFactory.createObject(stId);
+            int queries;
+            try (LazyLoadDetector.Scope scope = detector.open()) {
+                JunitHelper.assertDatabaseObjectsEqual(databaseObjectExpected, dbs.findByIdNoRelations(stId));
+                queries = scope.getQueries();
+            }
+            assertTrue(queries > 0);
+
+            detector.setThreshold(queries - 1);
+            detector.setFailOnThreshold(true);
+            try (LazyLoadDetector.Scope ignored = detector.open()) {
+                JunitHelper.assertDatabaseObjectsEqual(databaseObjectExpected, dbs.findByIdNoRelations(stId));
+                fail("The lazy loading threshold should have been exceeded");
+            } catch (InvocationTargetException e) {
+                // Getters are invoked by reflection in the JunitHelper
+                assertTrue(e.getCause() instanceof LazyLoadThresholdException);
+            }
+
+            // Outside of a scope nothing is counted, so the threshold is never exceeded
+            JunitHelper.assertDatabaseObjectsEqual(databaseObjectExpected, dbs.findByIdNoRelations(stId));
+            assertNull(detector.getScope());
+        } finally {
+            detector.setFailOnThreshold(false);
+            detector.setThreshold(100);
+            lazyFetchAspect.setEnableLazyLoadDetection(false);
+        }
+        logger.info("Finished");
+    }
+
     @Test
     @Deprecated
     @SuppressWarnings("deprecation")
@@ -16,7 +16,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -137,6 +139,18 @@ public class PathwaysServiceTest {
         assertTrue("There should be 9 or more pathways containing PTEN in human", pathways.size() >= 9);
     }
 
+    @Test
+    public void getLowerLevelPathwaysForIdentifiersTest(){
+        logger.info("Started testing pathwaysService.getLowerLevelPathwaysForIdentifiersTest");
+        long start = System.currentTimeMillis();
+        Map<String, Collection<Pathway>> pathways = pathwaysService.getLowerLevelPathwaysForIdentifiers(Arrays.asList("PTEN", "NOT_AN_IDENTIFIER"), "9606");
+        long time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertTrue("There should be 9 or more pathways containing PTEN in human", pathways.get("PTEN").size() >= 9);
+        assertFalse("Identifiers not found should not be part of the result", pathways.containsKey("NOT_AN_IDENTIFIER"));
+    }
+
     @Test
     public void getPathwaysForIdentifierTest(){
         logger.info("Started testing pathwaysService.getPathwaysForIdentifierTest");
@@ -0,0 +1,156 @@
+package org.reactome.server.graph.service;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.ogm.MetaData;
+import org.neo4j.ogm.driver.Driver;
+import org.neo4j.ogm.service.Components;
+import org.neo4j.ogm.service.DriverService;
+import org.reactome.server.graph.aop.RoutingAspect;
+import org.reactome.server.graph.config.DriverSettings;
+import org.reactome.server.graph.config.ReplicaRouter;
+import org.reactome.server.graph.config.ReplicaRouter.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The local database plays the part of the primary and of the read replicas, so every call succeeds no matter where
+ * it is routed and the endpoints only differ in their uri (and in the number of calls routed to them).
+ *
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class ReplicaRoutingTest extends BaseTest {
+
+    private static final MetaData metaData = new MetaData("org.reactome.server.graph.domain");
+
+    @Autowired
+    private RoutingAspect routingAspect;
+
+    @Autowired
+    private DatabaseObjectService databaseObjectService;
+
+    @Autowired
+    private DetailsService detailsService;
+
+    private Driver unavailable = null;
+
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info(" --- !!! Running " + ReplicaRoutingTest.class.getName() + "!!! --- \n");
+    }
+
+    @After
+    public void tearDown() {
+        routingAspect.setRouter(null);
+        // The drivers of the local endpoints are the one of the OGM, so the router is not closed
+        if (unavailable != null) unavailable.close();
+        unavailable = null;
+    }
+
+    @Test
+    public void roundRobinSelectionTest() {
+        logger.info("Started testing replicaRouter round robin selection");
+        ReplicaRouter router = getRouter(DriverSettings.RoutingStrategy.ROUND_ROBIN, "replica1", "replica2");
+        Endpoint first = router.select();
+        Endpoint second = router.select();
+        assertFalse(first.isPrimary());
+        assertFalse(second.isPrimary());
+        assertNotSame(first, second);
+        assertSame(first, router.select());
+        logger.info("Finished");
+    }
+
+    @Test
+    public void leastLoadedSelectionTest() {
+        logger.info("Started testing replicaRouter least loaded selection");
+        ReplicaRouter router = getRouter(DriverSettings.RoutingStrategy.LEAST_LOADED, "replica1", "replica2");
+        Endpoint busy = router.getReplicas().get(0);
+        Endpoint previous = router.bind(busy);
+        try {
+            assertSame(router.getReplicas().get(1), router.select());
+        } finally {
+            router.release(busy, previous);
+        }
+        logger.info("Finished");
+    }
+
+    @Test
+    public void failoverTest() {
+        logger.info("Started testing replicaRouter failover");
+        unavailable = DriverService.load(new DriverSettings().setHost("localhost").setPort(1).getConfiguration().driverConfiguration());
+        Endpoint primary = new Endpoint("primary", Components.driver(), true);
+        Endpoint down = new Endpoint("down", unavailable, false);
+        Endpoint up = new Endpoint("up", Components.driver(), false);
+        ReplicaRouter router = new ReplicaRouter(metaData, primary, Arrays.asList(down, up), DriverSettings.RoutingStrategy.ROUND_ROBIN);
+
+        assertFalse(router.check(down));
+        assertTrue(router.check(up));
+        for (int i = 0; i < 4; i++) assertSame(up, router.select());
+
+        // Once no replica is healthy the calls go to the primary
+        router = new ReplicaRouter(metaData, primary, Collections.singletonList(down), DriverSettings.RoutingStrategy.ROUND_ROBIN);
+        router.check(down);
+        assertSame(primary, router.select());
+        logger.info("Finished");
+    }
+
+    @Test
+    public void writesArePinnedToThePrimaryTest() {
+        logger.info("Started testing routingAspect write pinning");
+        ReplicaRouter router = getRouter(DriverSettings.RoutingStrategy.ROUND_ROBIN, "replica1", "replica2");
+        routingAspect.setRouter(router);
+
+        // A write query not modifying anything (there is no such label)
+        generalService.query("MATCH (n:NotExistingLabel) DETACH DELETE n", Collections.emptyMap());
+        assertEquals(1, router.getPrimary().getCalls());
+        assertEquals(0, getReplicaCalls(router));
+
+        databaseObjectService.findById("R-HSA-1640170");
+        assertEquals(1, router.getPrimary().getCalls());
+        assertEquals(1, getReplicaCalls(router));
+        logger.info("Finished");
+    }
+
+    @Test
+    public void nestedCallsKeepTheOuterBindingTest() {
+        logger.info("Started testing routingAspect nested binding");
+        ReplicaRouter router = getRouter(DriverSettings.RoutingStrategy.ROUND_ROBIN, "replica1", "replica2");
+        routingAspect.setRouter(router);
+
+        // The details service calls other services, but all of them are executed where the outer call was bound
+        assertNotNull(detailsService.getContentDetails("R-HSA-1640170", false));
+        assertEquals(0, router.getPrimary().getCalls());
+        assertEquals(1, getReplicaCalls(router));
+        assertNull(router.current());
+
+        Endpoint replica = router.getReplicas().get(0);
+        Endpoint previous = router.bind(replica);
+        try {
+            databaseObjectService.findById("R-HSA-1640170");
+            assertEquals(2, getReplicaCalls(router));
+            // A write within a call bound to a replica moves to the primary
+            generalService.query("MATCH (n:NotExistingLabel) DETACH DELETE n", Collections.emptyMap());
+            assertEquals(1, router.getPrimary().getCalls());
+            assertSame(replica, router.current());
+        } finally {
+            router.release(replica, previous);
+        }
+        logger.info("Finished");
+    }
+
+    private ReplicaRouter getRouter(DriverSettings.RoutingStrategy strategy, String... replicas) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String replica : replicas) endpoints.add(new Endpoint(replica, Components.driver(), false));
+        return new ReplicaRouter(metaData, new Endpoint("primary", Components.driver(), true), endpoints, strategy);
+    }
+
+    private long getReplicaCalls(ReplicaRouter router) {
+        long calls = 0;
+        for (Endpoint replica : router.getReplicas()) calls += replica.getCalls();
+        return calls;
+    }
+}
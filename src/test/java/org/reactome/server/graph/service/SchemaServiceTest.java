@@ -7,12 +7,12 @@ import org.reactome.server.graph.domain.model.Pathway;
 import org.reactome.server.graph.domain.model.Species;
 import org.reactome.server.graph.domain.result.SimpleDatabaseObject;
 import org.reactome.server.graph.domain.result.SimpleReferenceObject;
+import org.reactome.server.graph.service.helper.KeysetPage;
 import org.reactome.server.graph.util.DatabaseObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -155,6 +155,56 @@ public class SchemaServiceTest extends BaseTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void getPageByClassTest() {
+
+        logger.info("Started testing schemaService.getPageByClassTest");
+        long start, time;
+        start = System.currentTimeMillis();
+        KeysetPage<Pathway> first = schemaService.getPageByClass(Pathway.class, 9606, null, 25);
+        KeysetPage<Pathway> second = schemaService.getPageByClass(Pathway.class, 9606, first.getNext(), 25);
+        time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + "ms");
+
+        assertEquals(25, first.getContent().size());
+        assertEquals(25, second.getContent().size());
+        Set<Pathway> pathways = new HashSet<>(first.getContent());
+        for (Pathway pathway : second.getContent()) {
+            assertTrue("Pages should not overlap", pathways.add(pathway));
+        }
+        logger.info("Finished");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPageByClassWithoutLimitTest() {
+        logger.info("Started testing schemaService.getPageByClassWithoutLimitTest");
+        schemaService.getPageByClass(Pathway.class, null, null);
+    }
+
+    @Test
+    public void streamByClassTest() {
+
+        logger.info("Started testing schemaService.streamByClassTest");
+        int chunkSize = schemaService.getStreamChunkSize();
+        // Small chunks so the stream goes through several of them
+        schemaService.setStreamChunkSize(7);
+        try {
+            long start, time;
+            start = System.currentTimeMillis();
+            long streamed = schemaService.streamByClass(Species.class).count();
+            List<Pathway> pathways = schemaService.streamByClass(Pathway.class).limit(50).collect(Collectors.toList());
+            time = System.currentTimeMillis() - start;
+            logger.info("GraphDb execution time: " + time + "ms");
+
+            assertEquals(schemaService.getByClass(Species.class).size(), streamed);
+            KeysetPage<Pathway> page = schemaService.getPageByClass(Pathway.class, null, 50);
+            assertEquals(new ArrayList<>(page.getContent()), pathways);
+        } finally {
+            schemaService.setStreamChunkSize(chunkSize);
+        }
+        logger.info("Finished");
+    }
+
     // ---------------------------------------- Query by Class for SimpleObject ------------------------------------------------
 
     @Test
@@ -0,0 +1,93 @@
+package org.reactome.server.graph.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reactome.server.graph.aop.LoggingAspect;
+import org.reactome.server.graph.service.helper.SlowQuery;
+import org.reactome.server.graph.util.DatabaseObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class SlowQueryServiceTest extends BaseTest {
+
+    @Autowired
+    private SlowQueryService slowQueryService;
+
+    @Autowired
+    private SchemaService schemaService;
+
+    @Autowired
+    private LoggingAspect loggingAspect;
+
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info(" --- !!! Running " + SlowQueryServiceTest.class.getName() + "!!! --- \n");
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        if (!checkedOnce) {
+            isFit = generalService.fitForService();
+            checkedOnce = true;
+        }
+
+        //********   EVERY QUERY IS SLOW FOR A PROPER TESTING  *********
+        loggingAspect.setSlowQueryThreshold(0);
+        loggingAspect.setEnableSlowQueryLog(true);
+        slowQueryService.clear();
+
+        assumeTrue(isFit);
+        DatabaseObjectFactory.clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        loggingAspect.setEnableSlowQueryLog(false);
+        loggingAspect.setSlowQueryThreshold(1000);
+        slowQueryService.clear();
+    }
+
+    @Test
+    public void getSlowQueriesTest() throws ClassNotFoundException {
+        logger.info("Started testing slowQueryService.getSlowQueries");
+        long start = System.currentTimeMillis();
+        schemaService.getByClassName("Species");
+        long time = System.currentTimeMillis() - start;
+        logger.info("GraphDb execution time: " + time + ".ms");
+
+        List<SlowQuery> slowQueries = slowQueryService.getSlowQueries();
+        assertFalse(slowQueries.isEmpty());
+        SlowQuery slowQuery = slowQueries.get(0);
+        assertEquals("SchemaRepository.getByClass", slowQuery.getName());
+        assertTrue(slowQuery.getQuery().contains("Species"));
+        assertEquals(slowQuery, slowQueryService.getSlowQueries("SchemaRepository.getByClass").get(0));
+        logger.info("Finished");
+    }
+
+    @Test
+    public void failingQueriesAreRecordedTest() {
+        logger.info("Started testing slowQueryService.getSlowQueries for failing queries");
+        try {
+            generalService.query("MATCH (n:Species) RETURN n.dbId +", Collections.emptyMap());
+            fail("The query should have failed");
+        } catch (Exception e) {
+            // Nothing here
+        }
+
+        List<SlowQuery> slowQueries = slowQueryService.getSlowQueries("GeneralTemplateRepository.query");
+        assertFalse(slowQueries.isEmpty());
+        assertTrue(slowQueries.get(0).isFailed());
+        logger.info("Finished");
+    }
+}
@@ -11,7 +11,9 @@ import org.reactome.server.graph.util.DatabaseObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.lang.reflect.InvocationTargetException;
+import java.text.Collator;
 import java.util.Collection;
+import java.util.Locale;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
@@ -58,6 +60,21 @@ public class SortingAspectsTest extends BaseTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void sortingWithCollationLocaleTest() {
+        logger.info("Testing AOP Sorting with a collation locale and the sorting pushed into the queries");
+        sortingAspect.setCollationLocale(Locale.ENGLISH);
+        sortingAspect.setSortInQuery(true);
+        Complex databaseObjectObserved = dbs.findById(stId);
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        DatabaseObject prev = null;
+        for (DatabaseObject elem : databaseObjectObserved.getHasComponent()) {
+            assertTrue(prev == null || collator.compare(prev.getDisplayName(), elem.getDisplayName()) <= 0);
+            prev = elem;
+        }
+        logger.info("Finished");
+    }
+
     private boolean isSorted(Collection<? extends DatabaseObject> databaseObjects) {
         DatabaseObject prev = null;
         for (DatabaseObject elem : databaseObjects) {
@@ -72,5 +89,7 @@ public class SortingAspectsTest extends BaseTest {
     @After
     public void setDown(){
         sortingAspect.setEnableSorting(false);
+        sortingAspect.setCollationLocale(null);
+        sortingAspect.setSortInQuery(false);
     }
 }
\ No newline at end of file
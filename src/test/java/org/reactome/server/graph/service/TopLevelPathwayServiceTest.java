@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.reactome.server.graph.aop.CacheAspect;
 import org.reactome.server.graph.config.Neo4jConfig;
 import org.reactome.server.graph.domain.model.DatabaseObject;
 import org.reactome.server.graph.domain.model.TopLevelPathway;
@@ -15,9 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
@@ -42,6 +47,9 @@ public class TopLevelPathwayServiceTest {
     @Autowired
     private TopLevelPathwayService topLevelPathwayService;
 
+    @Autowired
+    private CacheAspect cacheAspect;
+
     @BeforeClass
     public static void setUpClass() {
         logger.info(" --- !!! Running " + DetailsServiceTest.class.getName() + " !!! --- \n");
@@ -145,4 +153,33 @@ public class TopLevelPathwayServiceTest {
         logger.info("Finished");
     }
 
+    @Test
+    public void getCachedTopLevelPathwaysTest() {
+        logger.info("Started testing genericService.getCachedTopLevelPathwaysTest");
+        cacheAspect.setEnableCache(true);
+        try {
+            Collection<TopLevelPathway> expectedTlps = topLevelPathwayService.getTopLevelPathways(9606);
+
+            long start, time;
+            start = System.currentTimeMillis();
+            Collection<TopLevelPathway> observedTlps = topLevelPathwayService.getTopLevelPathways(9606);
+            time = System.currentTimeMillis() - start;
+            logger.info("Cache execution time: " + time + "ms");
+
+            // Every caller gets a copy of its own
+            assertNotSame(expectedTlps, observedTlps);
+            assertEquals(getDbIds(expectedTlps), getDbIds(observedTlps));
+            for (TopLevelPathway tlp : observedTlps) assertFalse(tlp.preventLazyLoading);
+        } finally {
+            cacheAspect.setEnableCache(false);
+            cacheAspect.clear();
+        }
+        logger.info("Finished");
+    }
+
+    private List<Long> getDbIds(Collection<TopLevelPathway> tlps) {
+        List<Long> rtn = new ArrayList<>();
+        for (TopLevelPathway tlp : tlps) rtn.add(tlp.getDbId());
+        return rtn;
+    }
 }
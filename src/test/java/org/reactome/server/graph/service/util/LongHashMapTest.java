@@ -0,0 +1,70 @@
+package org.reactome.server.graph.service.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LongHashMapTest {
+
+    @Test
+    public void putAndGetTest() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(1640170, "PTEN"));
+        assertEquals("PTEN", map.put(1640170, "PTEN [cytosol]"));
+        assertEquals("PTEN [cytosol]", map.get(1640170));
+        assertNull(map.get(199420));
+        assertFalse(map.containsKey(199420));
+
+        // putIfAbsent keeps the current value
+        assertEquals("PTEN [cytosol]", map.putIfAbsent(1640170, "Other"));
+        assertNull(map.putIfAbsent(199420, "PTEN [plasma membrane]"));
+        assertEquals("PTEN [plasma membrane]", map.get(199420));
+
+        // A key added through the set has no value
+        assertTrue(map.add(109581));
+        assertTrue(map.containsKey(109581));
+        assertNull(map.get(109581));
+
+        assertEquals(3, map.size());
+        assertEquals(Arrays.asList("PTEN [cytosol]", "PTEN [plasma membrane]", null), map.values());
+        assertEquals(199420, map.keyAt(1));
+        assertEquals("PTEN [plasma membrane]", map.valueAt(1));
+    }
+
+    @Test
+    public void growKeepsTheValuesTest() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        for (long key = 0; key < 5_000; key++) assertNull(map.put(key * 31, key));
+        assertEquals(5_000, map.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i * 31L, map.keyAt(i));
+            assertEquals(Long.valueOf(i), map.valueAt(i));
+            assertEquals(Long.valueOf(i), map.get(i * 31L));
+        }
+        // Replacing a value after the rehash changes the same entry
+        assertEquals(Long.valueOf(10), map.put(310, -10L));
+        assertEquals(Long.valueOf(-10), map.valueAt(10));
+        assertEquals(5_000, map.size());
+    }
+
+    @Test
+    public void collidingKeysTest() {
+        LongHashMap<String> map = new LongHashMap<>(4);
+        long[] colliding = LongHashSetTest.getCollidingKeys(8, 6);
+        for (long key : colliding) map.put(key, "v" + key);
+        for (long key : colliding) assertEquals("v" + key, map.get(key));
+        assertEquals("v" + colliding[2], map.put(colliding[2], "replaced"));
+        assertEquals("replaced", map.get(colliding[2]));
+        assertEquals(6, map.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void valueAtOutOfBoundsTest() {
+        new LongHashMap<String>().valueAt(0);
+    }
+}
@@ -0,0 +1,92 @@
+package org.reactome.server.graph.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Antonio Fabregat (fabregat@ebi.ac.uk)
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void addAndContainsTest() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        // Zero and negative keys are valid (empty slots are not marked with a key value)
+        for (long key : new long[]{0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1640170}) {
+            assertTrue(set.add(key));
+            assertFalse(set.add(key));
+        }
+        assertEquals(5, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertFalse(set.contains(1));
+        assertArrayEquals(new long[]{0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1640170}, set.toArray());
+        assertEquals(Arrays.asList(0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1640170L), set.toList());
+    }
+
+    @Test
+    public void growKeepsKeysAndInsertionOrderTest() {
+        LongHashSet set = new LongHashSet(4);
+        List<Long> expected = new ArrayList<>();
+        // Consecutive dbIds (the usual case) and scattered ones, well above the initial capacity
+        for (long key = 1; key <= 5_000; key++) {
+            long scattered = key % 2 == 0 ? key : key * 104_729;
+            assertTrue(set.add(scattered));
+            expected.add(scattered);
+        }
+        assertEquals(5_000, set.size());
+        assertEquals(expected, set.toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((long) expected.get(i), set.keyAt(i));
+            assertTrue(set.contains(expected.get(i)));
+            assertFalse(set.add(expected.get(i)));
+        }
+        assertFalse(set.contains(3));
+        assertFalse(set.contains(-2));
+    }
+
+    @Test
+    public void collidingKeysTest() {
+        LongHashSet set = new LongHashSet(4);
+        // The initial table has 8 slots
+        long[] colliding = getCollidingKeys(8, 5);
+        for (int i = 0; i < 4; i++) assertTrue(set.add(colliding[i]));
+        for (int i = 0; i < 4; i++) assertTrue(set.contains(colliding[i]));
+        // The probe sequence of an absent key in the same slot ends in the first empty slot
+        assertFalse(set.contains(colliding[4]));
+
+        // The fifth key makes the set grow, so the colliding keys are placed again in a bigger table
+        assertTrue(set.add(colliding[4]));
+        assertEquals(5, set.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(set.contains(colliding[i]));
+            assertEquals(colliding[i], set.keyAt(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void keyAtOutOfBoundsTest() {
+        LongHashSet set = new LongHashSet();
+        set.add(1);
+        set.keyAt(1);
+    }
+
+    /**
+     * @return the first keys falling in the same slot of a table with the given size
+     */
+    static long[] getCollidingKeys(int tableSize, int number) {
+        long[] rtn = new long[number];
+        int slot = LongHashSet.hash(1) & (tableSize - 1);
+        int found = 0;
+        for (long key = 1; found < number; key++) {
+            if ((LongHashSet.hash(key) & (tableSize - 1)) == slot) rtn[found++] = key;
+        }
+        return rtn;
+    }
+}